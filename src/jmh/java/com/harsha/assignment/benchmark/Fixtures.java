@@ -0,0 +1,76 @@
+package com.harsha.assignment.benchmark;
+
+import com.harsha.assignment.config.JwtAuthenticationFilter;
+import com.harsha.assignment.model.Ride;
+import com.harsha.assignment.service.TokenRevocationList;
+import com.harsha.assignment.util.BloomFilter;
+import com.harsha.assignment.util.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Beans wired by hand with the values from application.yaml, so benchmarks start without a Spring context or Mongo
+final class Fixtures {
+    
+    static final String SECRET = "5367566B59703373367639792F423F4528482B4D6251655468576D5A71347437";
+    static final long ACCESS_TOKEN_MILLIS = 900_000;
+    
+    private Fixtures() {
+    }
+    
+    static JwtUtil jwtUtil() {
+        return jwtUtil(new SimpleMeterRegistry());
+    }
+    
+    static JwtUtil jwtUtil(MeterRegistry meterRegistry) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", ACCESS_TOKEN_MILLIS);
+        ReflectionTestUtils.setField(jwtUtil, "claimsCacheMaxSize", 10_000);
+        ReflectionTestUtils.setField(jwtUtil, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        return jwtUtil;
+    }
+    
+    // Revocation list with an empty, already built filter: every check stays in memory
+    static TokenRevocationList revocationList() {
+        TokenRevocationList revocations = new TokenRevocationList();
+        ReflectionTestUtils.setField(revocations, "filter", new BloomFilter(100_000, 0.01));
+        return revocations;
+    }
+    
+    static JwtAuthenticationFilter authenticationFilter(JwtUtil jwtUtil) {
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(filter, "tokenRevocationList", revocationList());
+        return filter;
+    }
+    
+    // Rides shaped like a driver's accepted-ride history: all statuses, most with pickup coordinates
+    static List<Ride> rides(int count) {
+        Random random = new Random(42);
+        String[] statuses = {"REQUESTED", "ACCEPTED", "COMPLETED", "CANCELLED"};
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 8, 0);
+        List<Ride> rides = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            GeoJsonPoint pickup = i % 5 == 0 ? null
+                    : new GeoJsonPoint(77.59 + random.nextDouble() * 0.1, 12.97 + random.nextDouble() * 0.1);
+            rides.add(new Ride(
+                    String.format("%024x", i),
+                    String.format("%024x", 1_000_000 + random.nextInt(10_000)),
+                    i % 4 == 0 ? null : String.format("%024x", 2_000_000 + random.nextInt(1_000)),
+                    "Pickup street " + i,
+                    pickup,
+                    "Drop avenue " + random.nextInt(10_000),
+                    statuses[i % statuses.length],
+                    start.plusSeconds(i * 37L)));
+        }
+        return rides;
+    }
+}
@@ -0,0 +1,48 @@
+package com.harsha.assignment.benchmark;
+
+import com.harsha.assignment.util.JwtUtil;
+import com.harsha.assignment.util.TokenClaims;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Token issue and verification. parseCached is what JwtAuthenticationFilter pays per request for a token
+// it has seen before; parseUncached is the full signature check that the claims cache avoids.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtBenchmark {
+    
+    private JwtUtil jwtUtil;
+    private String token;
+    
+    @Setup
+    public void setUp() {
+        jwtUtil = Fixtures.jwtUtil();
+        token = jwtUtil.generateToken("65a1f0c2e4b0a1b2c3d4e5f6", "driver@example.com", "ROLE_DRIVER");
+        jwtUtil.parseToken(token);
+    }
+    
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("65a1f0c2e4b0a1b2c3d4e5f6", "driver@example.com", "ROLE_DRIVER");
+    }
+    
+    @Benchmark
+    public Claims parseUncached() {
+        return jwtUtil.extractClaim(token, Function.identity());
+    }
+    
+    @Benchmark
+    public TokenClaims parseCached() {
+        return jwtUtil.parseToken(token);
+    }
+}
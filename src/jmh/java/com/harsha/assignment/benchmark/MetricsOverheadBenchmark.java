@@ -0,0 +1,143 @@
+package com.harsha.assignment.benchmark;
+
+import com.harsha.assignment.util.JwtUtil;
+import com.harsha.assignment.util.TokenClaims;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// What the instrumentation adds to each call: a timer with client-side percentiles (as configured for
+// rides.service and auth.*), a plain timer, and a tagged counter looked up by name (RideMetrics).
+//
+// Budget: metrics may add at most REQUEST_BUDGET_NANOS to a request. A ride request records four meters
+// (http.server.requests, auth.jwt.parse, rides.service and a rides.transitions counter), so each instrumented call
+// gets a quarter of that. The *Instrumented benchmarks run against a Prometheus registry configured like
+// application.yaml, the *Uninstrumented ones against a registry with no backend, whose meters do nothing.
+// The pairs run on one thread, since the budget is latency added to one request, not contention between them.
+// RegressionCheck fails the build when a pair differs by more than its budget.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+public class MetricsOverheadBenchmark {
+    
+    static final double REQUEST_BUDGET_NANOS = 1000;
+    static final double CALL_BUDGET_NANOS = REQUEST_BUDGET_NANOS / 4;
+    
+    private static final List<String> PERCENTILE_PREFIXES = List.of("http.server.requests", "auth", "rides.service");
+    
+    private PrometheusMeterRegistry registry;
+    private Timer percentileTimer;
+    private Timer plainTimer;
+    
+    private MeterRegistry uninstrumented;
+    private JwtUtil instrumentedJwt;
+    private JwtUtil uninstrumentedJwt;
+    private String token;
+    
+    @Setup
+    public void setUp() {
+        registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        registry.config().meterFilter(percentiles());
+        percentileTimer = Timer.builder("bench.percentiles").publishPercentiles(0.5, 0.95, 0.99).register(registry);
+        plainTimer = Timer.builder("bench.plain").register(registry);
+        
+        uninstrumented = new CompositeMeterRegistry();
+        instrumentedJwt = Fixtures.jwtUtil(registry);
+        uninstrumentedJwt = Fixtures.jwtUtil(uninstrumented);
+        token = instrumentedJwt.generateToken("65a1f0c2e4b0a1b2c3d4e5f6", "driver@example.com", "ROLE_DRIVER");
+        instrumentedJwt.parseToken(token);
+        uninstrumentedJwt.parseToken(token);
+    }
+    
+    @Benchmark
+    public long nanoTimeOnly() {
+        return System.nanoTime() - System.nanoTime();
+    }
+    
+    @Benchmark
+    public void percentileTimer() {
+        long started = System.nanoTime();
+        percentileTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+    
+    @Benchmark
+    public void plainTimer() {
+        long started = System.nanoTime();
+        plainTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+    
+    @Benchmark
+    public void taggedCounter() {
+        registry.counter("bench.transitions", "to", "ACCEPTED").increment();
+    }
+    
+    // Cached token check as JwtAuthenticationFilter makes it, timed into auth.jwt.parse{cache=hit}
+    @Benchmark
+    @Threads(1)
+    public TokenClaims parseTokenInstrumented() {
+        return instrumentedJwt.parseToken(token);
+    }
+    
+    @Benchmark
+    @Threads(1)
+    public TokenClaims parseTokenUninstrumented() {
+        return uninstrumentedJwt.parseToken(token);
+    }
+    
+    // Every meter an accept request records, each looked up by name and tags as Boot's observation and
+    // TimedAspect do; the request's own work is left out apart from the token check
+    @Benchmark
+    @Threads(1)
+    public TokenClaims requestInstrumented() {
+        return request(instrumentedJwt, registry);
+    }
+    
+    @Benchmark
+    @Threads(1)
+    public TokenClaims requestUninstrumented() {
+        return request(uninstrumentedJwt, uninstrumented);
+    }
+    
+    private TokenClaims request(JwtUtil jwtUtil, MeterRegistry meterRegistry) {
+        long started = System.nanoTime();
+        TokenClaims claims = jwtUtil.parseToken(token);
+        long serviceStarted = System.nanoTime();
+        meterRegistry.counter("rides.transitions", "to", "ACCEPTED").increment();
+        meterRegistry.timer("rides.service", "class", "RideService", "method", "acceptRide", "exception", "none")
+                .record(System.nanoTime() - serviceStarted, TimeUnit.NANOSECONDS);
+        meterRegistry.timer("http.server.requests", "method", "POST", "uri", "/api/v1/driver/rides/{rideId}/accept",
+                        "status", "200", "outcome", "SUCCESS", "exception", "none")
+                .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        return claims;
+    }
+    
+    // management.metrics.distribution.percentiles, plus the percentiles @Timed asks for on rides.service
+    private static MeterFilter percentiles() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (PERCENTILE_PREFIXES.stream().noneMatch(id.getName()::startsWith)) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder().percentiles(0.5, 0.95, 0.99).build().merge(config);
+            }
+        };
+    }
+}
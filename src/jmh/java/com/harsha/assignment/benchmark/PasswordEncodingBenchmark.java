@@ -0,0 +1,47 @@
+package com.harsha.assignment.benchmark;
+
+import com.harsha.assignment.config.PasswordEncoderConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost of one register (encode) and one login (matches) for each auth.password.encoder choice
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PasswordEncodingBenchmark {
+    
+    @Param({"bcrypt", "pbkdf2", "argon2"})
+    private String encoder;
+    
+    private PasswordEncoder passwordEncoder;
+    private String stored;
+    
+    @Setup
+    public void setUp() {
+        PasswordEncoderConfig config = new PasswordEncoderConfig();
+        ReflectionTestUtils.setField(config, "encoderId", encoder);
+        ReflectionTestUtils.setField(config, "bcryptStrength", 10);
+        passwordEncoder = config.passwordEncoder();
+        stored = passwordEncoder.encode("correct horse battery staple");
+    }
+    
+    @Benchmark
+    public String encode() {
+        return passwordEncoder.encode("correct horse battery staple");
+    }
+    
+    @Benchmark
+    public boolean matches() {
+        return passwordEncoder.matches("correct horse battery staple", stored);
+    }
+}
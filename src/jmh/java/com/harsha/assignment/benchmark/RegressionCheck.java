@@ -0,0 +1,146 @@
+package com.harsha.assignment.benchmark;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compares a JMH JSON result with a baseline from an earlier run and exits non-zero when any benchmark
+// got worse by more than the threshold (in percent). Throughput scores are better when higher, all other
+// modes when lower. Benchmarks missing from either file are reported and skipped.
+//
+// Budgets hold with or without a baseline: an instrumented benchmark may cost at most a fixed number of
+// nanoseconds more than its uninstrumented twin (see MetricsOverheadBenchmark). A pair fails only when the
+// difference is over budget by more than both scores' error together, so noise alone never fails it. A pair is
+// checked only when both halves ran, in ns/op.
+//
+//   java RegressionCheck <result.json> <baseline.json> <threshold-percent>
+public final class RegressionCheck {
+    
+    private static final List<Budget> BUDGETS = List.of(
+            new Budget("MetricsOverheadBenchmark.requestInstrumented",
+                    "MetricsOverheadBenchmark.requestUninstrumented", MetricsOverheadBenchmark.REQUEST_BUDGET_NANOS),
+            new Budget("MetricsOverheadBenchmark.parseTokenInstrumented",
+                    "MetricsOverheadBenchmark.parseTokenUninstrumented", MetricsOverheadBenchmark.CALL_BUDGET_NANOS));
+    
+    private RegressionCheck() {
+    }
+    
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.err.println("usage: RegressionCheck <result.json> <baseline.json> <threshold-percent>");
+            System.exit(2);
+        }
+        File result = new File(args[0]);
+        File baseline = new File(args[1]);
+        double threshold = Double.parseDouble(args[2]);
+        ObjectMapper mapper = JsonMapper.builder().build();
+        Map<String, Score> current = scores(mapper.readTree(result));
+        
+        int overBudget = checkBudgets(current);
+        if (!baseline.isFile()) {
+            System.out.printf("No baseline at %s; copy %s there to start tracking regressions%n", baseline, result);
+            exitIfOverBudget(overBudget);
+            return;
+        }
+        
+        Map<String, Score> previous = scores(mapper.readTree(baseline));
+        
+        int regressions = 0;
+        System.out.printf("%-60s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score now = entry.getValue();
+            Score before = previous.get(entry.getKey());
+            if (before == null || !before.unit().equals(now.unit())) {
+                System.out.printf("%-60s %14s %14.3f %9s%n", entry.getKey(), "-", now.value(), "new");
+                continue;
+            }
+            // Positive means better, whichever direction the mode counts in
+            double change = now.higherIsBetter()
+                    ? (now.value() - before.value()) / before.value() * 100
+                    : (before.value() - now.value()) / before.value() * 100;
+            boolean regressed = change < -threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-60s %14.3f %14.3f %+8.1f%%%s%n", entry.getKey(), before.value(), now.value(),
+                    change, regressed ? "  REGRESSION" : "");
+        }
+        previous.keySet().stream()
+                .filter(key -> !current.containsKey(key))
+                .forEach(key -> System.out.printf("%-60s (not run)%n", key));
+        
+        if (regressions > 0) {
+            System.err.printf("%d benchmark(s) regressed by more than %.1f%%%n", regressions, threshold);
+            System.exit(1);
+        }
+        exitIfOverBudget(overBudget);
+        System.out.printf("No regressions beyond %.1f%%%n", threshold);
+    }
+    
+    private static int checkBudgets(Map<String, Score> current) {
+        int overBudget = 0;
+        for (Budget budget : BUDGETS) {
+            Score instrumented = current.get(budget.instrumented());
+            Score uninstrumented = current.get(budget.uninstrumented());
+            if (instrumented == null || uninstrumented == null
+                    || !"ns/op".equals(instrumented.unit()) || !"ns/op".equals(uninstrumented.unit())) {
+                continue;
+            }
+            double overhead = instrumented.value() - uninstrumented.value();
+            double error = instrumented.error() + uninstrumented.error();
+            boolean over = overhead - error > budget.maxNanos();
+            if (over) {
+                overBudget++;
+            }
+            System.out.printf("%-60s %+10.1f +/- %.1f ns of %.0f ns budget%s%n", budget.instrumented(), overhead,
+                    error, budget.maxNanos(), over ? "  OVER BUDGET" : "");
+        }
+        return overBudget;
+    }
+    
+    private static void exitIfOverBudget(int overBudget) {
+        if (overBudget > 0) {
+            System.err.printf("%d benchmark(s) went over their overhead budget%n", overBudget);
+            System.exit(1);
+        }
+    }
+    
+    // Keyed by benchmark, parameters and unit so results run with different settings never get compared
+    private static Map<String, Score> scores(JsonNode results) {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode run : results) {
+            StringBuilder key = new StringBuilder(run.get("benchmark").asString()
+                    .replace("com.harsha.assignment.benchmark.", ""));
+            JsonNode params = run.get("params");
+            if (params != null) {
+                params.properties().forEach(param ->
+                        key.append(' ').append(param.getKey()).append('=').append(param.getValue().asString()));
+            }
+            JsonNode metric = run.get("primaryMetric");
+            scores.put(key.toString(), new Score(
+                    metric.get("score").asDouble(),
+                    errorOf(metric),
+                    metric.get("scoreUnit").asString(),
+                    "thrpt".equals(run.get("mode").asString())));
+        }
+        return scores;
+    }
+    
+    // JMH writes NaN (as a string) when there were too few iterations to estimate the error
+    private static double errorOf(JsonNode metric) {
+        JsonNode error = metric.get("scoreError");
+        double value = error == null || !error.isNumber() ? 0 : error.asDouble();
+        return Double.isNaN(value) ? 0 : value;
+    }
+    
+    private record Score(double value, double error, String unit, boolean higherIsBetter) {
+    }
+    
+    private record Budget(String instrumented, String uninstrumented, double maxNanos) {
+    }
+}
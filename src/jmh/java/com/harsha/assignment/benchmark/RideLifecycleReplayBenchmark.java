@@ -0,0 +1,99 @@
+package com.harsha.assignment.benchmark;
+
+import com.harsha.assignment.model.Ride;
+import com.harsha.assignment.model.RideLifecycleEvent;
+import com.harsha.assignment.repository.MappedSegmentRideLog;
+import com.harsha.assignment.service.RideStateProjection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Lifecycle log replay over a million events (500k rides, each created then accepted), in events per second:
+// decoding alone, folding into RideStateProjection, and a restart that loads a snapshot and replays the last 1%.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RideLifecycleReplayBenchmark {
+    
+    private static final int EVENTS = 1_000_000;
+    private static final int TAIL = EVENTS / 100;
+    private static final int SEGMENT_BYTES = 64 * 1024 * 1024;
+    
+    private Path directory;
+    private MappedSegmentRideLog log;
+    private Path snapshot;
+    
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("ride-lifecycle-bench");
+        log = new MappedSegmentRideLog(directory.resolve("segments"), SEGMENT_BYTES);
+        log.open();
+        List<Ride> rides = Fixtures.rides(EVENTS / 2);
+        RideStateProjection projection = new RideStateProjection();
+        List<RideLifecycleEvent> batch = new ArrayList<>(1000);
+        for (int i = 0; i < EVENTS; i++) {
+            Ride ride = rides.get(i % rides.size());
+            ride.setStatus(i < rides.size() ? "REQUESTED" : "ACCEPTED");
+            batch.add(RideLifecycleEvent.of(ride));
+            if (batch.size() == 1000) {
+                log.append(batch);
+                batch.forEach(projection::apply);
+                batch.clear();
+            }
+            if (i == EVENTS - TAIL - 1) {
+                snapshot = directory.resolve("snapshot.bin");
+                projection.writeSnapshot(snapshot);
+            }
+        }
+        log.flush();
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public long decode(Blackhole blackhole) {
+        return log.replayAfter(0, blackhole::consume);
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public RideStateProjection rebuildFromLog() {
+        RideStateProjection projection = new RideStateProjection();
+        log.replayAfter(0, projection::apply);
+        return projection;
+    }
+    
+    // Counted per event the restart stands in for, so it compares directly with rebuildFromLog
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public RideStateProjection restoreFromSnapshot() throws IOException {
+        RideStateProjection projection = new RideStateProjection();
+        projection.readSnapshot(snapshot);
+        log.replayAfter(projection.position(), projection::apply);
+        return projection;
+    }
+}
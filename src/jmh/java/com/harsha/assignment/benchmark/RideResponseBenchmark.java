@@ -0,0 +1,76 @@
+package com.harsha.assignment.benchmark;
+
+import com.harsha.assignment.dto.RideResponse;
+import com.harsha.assignment.model.Ride;
+import com.harsha.assignment.util.RideListCbor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Ride list responses: entity-to-DTO mapping alone, mapping plus encoding as a controller returns it, and encoding
+// alone, each as JSON (the default Jackson path) and as RideListCbor (Accept: application/cbor). Setup prints the
+// payload size of both encodings.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RideResponseBenchmark {
+    
+    @Param({"20", "1000", "10000"})
+    private int rides;
+    
+    private List<Ride> entities;
+    private List<RideResponse> responses;
+    private ObjectMapper objectMapper;
+    
+    @Setup
+    public void setUp() {
+        entities = Fixtures.rides(rides);
+        responses = map();
+        objectMapper = JsonMapper.builder().build();
+        int json = serializeJson().length;
+        int cbor = serializeCbor().length;
+        System.out.printf("%n%d rides: JSON %d bytes, CBOR %d bytes (%.0f%%)%n", rides, json, cbor, 100.0 * cbor / json);
+    }
+    
+    @Benchmark
+    public List<RideResponse> map() {
+        return entities.stream().map(RideResponse::fromRide).toList();
+    }
+    
+    @Benchmark
+    public byte[] mapAndSerialize() {
+        return objectMapper.writeValueAsBytes(entities.stream().map(RideResponse::fromRide).toList());
+    }
+    
+    @Benchmark
+    public byte[] mapAndSerializeCbor() {
+        return cbor(entities.stream().map(RideResponse::fromRide).toList());
+    }
+    
+    @Benchmark
+    public byte[] serializeJson() {
+        return objectMapper.writeValueAsBytes(responses);
+    }
+    
+    @Benchmark
+    public byte[] serializeCbor() {
+        return cbor(responses);
+    }
+    
+    private static byte[] cbor(List<RideResponse> responses) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RideListCbor.write(responses, null, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,43 @@
+package com.harsha.assignment.benchmark;
+
+import com.harsha.assignment.util.TokenBucket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// RateLimitFilter's per-request cost: one CAS on a caller's own bucket, and the same bucket shared by
+// eight threads (one user hammering from many connections), where CAS retries show up.
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TokenBucketBenchmark {
+    
+    private TokenBucket bucket;
+    
+    @Setup
+    public void setUp() {
+        bucket = new TokenBucket(TokenBucket.MAX_CAPACITY, TokenBucket.MAX_CAPACITY, System.currentTimeMillis());
+    }
+    
+    @Benchmark
+    @Group("uncontended")
+    @GroupThreads(1)
+    public long uncontended() {
+        return bucket.tryAcquire(System.currentTimeMillis());
+    }
+    
+    @Benchmark
+    @Group("shared")
+    @GroupThreads(8)
+    public long shared() {
+        return bucket.tryAcquire(System.currentTimeMillis());
+    }
+}
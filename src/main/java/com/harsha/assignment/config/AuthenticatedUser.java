@@ -0,0 +1,17 @@
+package com.harsha.assignment.config;
+
+import lombok.Value;
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+// Principal built from JWT claims, so services know who is calling without reading the users collection
+@Value
+public class AuthenticatedUser implements AuthenticatedPrincipal {
+    String id; // null for tokens issued before the id claim existed
+    String username;
+    String role;
+    
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -1,16 +1,17 @@
 package com.harsha.assignment.config;
 
+import com.harsha.assignment.service.TokenRevocationList;
 import com.harsha.assignment.util.JwtUtil;
+import com.harsha.assignment.util.TokenClaims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -19,45 +20,53 @@ import java.io.IOException;
 import java.util.Collections;
 
 @Component
+@Profile("!reactive")
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     @Autowired
     private JwtUtil jwtUtil;
     
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+    
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         
         final String authorizationHeader = request.getHeader("Authorization");
         
-        String username = null;
-        String jwt = null;
+        TokenClaims claims = null;
         
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
+            String jwt = authorizationHeader.substring(7);
             try {
-                username = jwtUtil.extractUsername(jwt);
+                // One signature check per token; expired or tampered tokens throw here
+                claims = jwtUtil.parseToken(jwt);
+                // In-memory filter check; only possible revocations go to Mongo
+                if (claims.tokenId() != null && tokenRevocationList.isRevoked(claims.tokenId())) {
+                    claims = null;
+                }
             } catch (Exception e) {
                 // Invalid token
             }
         }
         
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            String role = jwtUtil.extractRole(jwt);
-            UserDetails userDetails = User.builder()
-                    .username(username)
-                    .password("")
-                    .authorities(Collections.singletonList(new SimpleGrantedAuthority(role)))
-                    .build();
+        if (claims != null && claims.username() != null && claims.role() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            AuthenticatedUser principal = new AuthenticatedUser(claims.userId(), claims.username(), claims.role());
             
-            if (jwtUtil.validateToken(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-            }
+            UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                    principal, null, Collections.singletonList(new SimpleGrantedAuthority(claims.role())));
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authToken);
         }
         
         filterChain.doFilter(request, response);
     }
+    
+    // Streaming responses complete on an async dispatch, which must be authenticated too
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
 }
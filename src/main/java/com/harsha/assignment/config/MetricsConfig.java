@@ -0,0 +1,159 @@
+package com.harsha.assignment.config;
+
+import com.harsha.assignment.repository.RideArchive;
+import com.harsha.assignment.service.DriverLocationService;
+import com.harsha.assignment.service.PendingRideBoard;
+import com.harsha.assignment.service.RideDispatcher;
+import com.harsha.assignment.service.RideArchiver;
+import com.harsha.assignment.service.RideEventBroadcaster;
+import com.harsha.assignment.service.RideLifecycleRecorder;
+import com.harsha.assignment.service.RideListVersions;
+import com.harsha.assignment.service.RideSummaryChecker;
+import com.harsha.assignment.service.RideSummaryService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+// Gauges and counters over state the services already track. Request, repository and Mongo command timings
+// come from Boot's auto-configuration; percentiles and the Prometheus endpoint are set in application.yaml.
+@Configuration
+public class MetricsConfig {
+    
+    @Bean
+    public MeterBinder rideBoardMetrics(PendingRideBoard board, RideEventBroadcaster broadcaster) {
+        return registry -> {
+            Gauge.builder("rides.board.size", board, PendingRideBoard::size)
+                    .description("Pending rides held in memory")
+                    .register(registry);
+            Gauge.builder("rides.board.ready", board, b -> b.isReady() ? 1 : 0)
+                    .description("1 while pending rides are served from memory, 0 while they are read from Mongo")
+                    .register(registry);
+            TimeGauge.builder("rides.board.sync.lag", board, TimeUnit.MILLISECONDS, PendingRideBoard::lastSyncLagMillis)
+                    .description("Commit-to-apply delay of the last change-stream event")
+                    .register(registry);
+            TimeGauge.builder("rides.board.sync.age", board, TimeUnit.MILLISECONDS, PendingRideBoard::millisSinceLastSync)
+                    .description("Time since the board last heard from Mongo")
+                    .register(registry);
+            Gauge.builder("rides.events.subscribers", broadcaster, RideEventBroadcaster::subscriberCount)
+                    .register(registry);
+        };
+    }
+    
+    @Bean
+    public MeterBinder driverLocationMetrics(DriverLocationService locations) {
+        return registry -> {
+            FunctionCounter.builder("drivers.location.pings", locations, DriverLocationService::pingsReceived)
+                    .register(registry);
+            FunctionCounter.builder("drivers.location.coalesced", locations, DriverLocationService::pingsCoalesced)
+                    .description("Pings replaced by a newer one before they were written")
+                    .register(registry);
+            FunctionCounter.builder("drivers.location.written", locations, DriverLocationService::positionsWritten)
+                    .register(registry);
+            FunctionCounter.builder("drivers.location.flush.failures", locations, DriverLocationService::flushFailures)
+                    .register(registry);
+            Gauge.builder("drivers.location.pending", locations, DriverLocationService::pendingWrites)
+                    .register(registry);
+            Gauge.builder("drivers.location.tracked", locations, DriverLocationService::trackedDrivers)
+                    .register(registry);
+            TimeGauge.builder("drivers.location.flush.duration", locations, TimeUnit.MILLISECONDS,
+                            DriverLocationService::lastFlushDurationMillis)
+                    .register(registry);
+        };
+    }
+    
+    @Bean
+    public MeterBinder rideLifecycleMetrics(RideLifecycleRecorder recorder) {
+        return registry -> {
+            FunctionCounter.builder("rides.lifecycle.appended", recorder, RideLifecycleRecorder::appended)
+                    .register(registry);
+            FunctionCounter.builder("rides.lifecycle.append.failures", recorder, RideLifecycleRecorder::appendFailures)
+                    .register(registry);
+            FunctionCounter.builder("rides.lifecycle.dropped", recorder, RideLifecycleRecorder::dropped)
+                    .description("Status changes dropped because the lifecycle log queue was full")
+                    .register(registry);
+            Gauge.builder("rides.lifecycle.stale", recorder, r -> r.isStale() ? 1 : 0)
+                    .register(registry);
+            Gauge.builder("rides.lifecycle.pending", recorder, RideLifecycleRecorder::pendingEvents)
+                    .description("Status changes waiting to be appended to the lifecycle log")
+                    .register(registry);
+            Gauge.builder("rides.lifecycle.rides", recorder, RideLifecycleRecorder::projectedRides)
+                    .register(registry);
+        };
+    }
+    
+    // Only when rides.dispatch.enabled=true
+    @Bean
+    public MeterBinder dispatchMetrics(ObjectProvider<RideDispatcher> dispatcher) {
+        return registry -> dispatcher.ifAvailable(d -> {
+            FunctionCounter.builder("rides.dispatch.assignments", d, RideDispatcher::assignments)
+                    .register(registry);
+            FunctionCounter.builder("rides.dispatch.lost-races", d, RideDispatcher::lostRaces)
+                    .register(registry);
+            Gauge.builder("rides.dispatch.pickup.average", d, RideDispatcher::averagePickupKm)
+                    .baseUnit("kilometers")
+                    .register(registry);
+        });
+    }
+    
+    // Partitions are counted whether or not this instance archives (rides.archive.enabled)
+    @Bean
+    public MeterBinder archiveMetrics(RideArchive archive, ObjectProvider<RideArchiver> archiver) {
+        return registry -> {
+            Gauge.builder("rides.archive.partitions", archive, RideArchive::partitionCount)
+                    .register(registry);
+            archiver.ifAvailable(a -> {
+                FunctionCounter.builder("rides.archive.moved", a, RideArchiver::archived)
+                        .register(registry);
+                TimeGauge.builder("rides.archive.run.duration", a, TimeUnit.MILLISECONDS, RideArchiver::lastRunMillis)
+                        .register(registry);
+            });
+        };
+    }
+    
+    // The checker only exists when rides.summary.check.enabled=true
+    @Bean
+    public MeterBinder rideSummaryMetrics(RideSummaryService summaries, ObjectProvider<RideSummaryChecker> checker) {
+        return registry -> {
+            FunctionCounter.builder("rides.summary.written", summaries, RideSummaryService::summariesWritten)
+                    .register(registry);
+            FunctionCounter.builder("rides.summary.flush.failures", summaries, RideSummaryService::flushFailures)
+                    .register(registry);
+            Gauge.builder("rides.summary.pending", summaries, RideSummaryService::pendingParticipants)
+                    .description("Passengers and drivers with summary changes not flushed yet")
+                    .register(registry);
+            TimeGauge.builder("rides.summary.flush.duration", summaries, TimeUnit.MILLISECONDS,
+                            RideSummaryService::lastFlushDurationMillis)
+                    .register(registry);
+            checker.ifAvailable(c -> {
+                FunctionCounter.builder("rides.summary.check.checked", c, RideSummaryChecker::checked)
+                        .register(registry);
+                FunctionCounter.builder("rides.summary.check.mismatches", c, RideSummaryChecker::mismatches)
+                        .register(registry);
+                FunctionCounter.builder("rides.summary.check.repaired", c, RideSummaryChecker::repaired)
+                        .register(registry);
+            });
+        };
+    }
+    
+    // Hit rate of a list view = hit / (hit + miss); a hit was answered 304 without reading or serializing the list
+    @Bean
+    public MeterBinder rideListEtagMetrics(RideListVersions versions) {
+        return registry -> {
+            for (RideListVersions.View view : RideListVersions.View.values()) {
+                String name = view.name().toLowerCase();
+                FunctionCounter.builder("rides.etag.requests", versions, v -> v.hits(view))
+                        .tags("view", name, "result", "hit")
+                        .register(registry);
+                FunctionCounter.builder("rides.etag.requests", versions, v -> v.misses(view))
+                        .tags("view", name, "result", "miss")
+                        .register(registry);
+            }
+        };
+    }
+}
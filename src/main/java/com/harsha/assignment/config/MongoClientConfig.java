@@ -0,0 +1,33 @@
+package com.harsha.assignment.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.mongodb.autoconfigure.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class MongoClientConfig {
+    
+    @Value("${mongo.pool.max-size:100}")
+    private int maxPoolSize;
+    
+    @Value("${mongo.pool.max-wait-millis:2000}")
+    private long maxWaitMillis;
+    
+    @Value("${mongo.server-selection-timeout-millis:30000}")
+    private long serverSelectionTimeoutMillis;
+    
+    // With virtual threads there is no worker-pool ceiling in front of Mongo, so the connection
+    // pool is the backpressure point: bound it and make waiters fail fast instead of queueing forever
+    @Bean
+    public MongoClientSettingsBuilderCustomizer connectionPoolCustomizer() {
+        return builder -> builder
+                .applyToConnectionPoolSettings(pool -> pool
+                        .maxSize(maxPoolSize)
+                        .maxWaitTime(maxWaitMillis, TimeUnit.MILLISECONDS))
+                .applyToClusterSettings(cluster -> cluster
+                        .serverSelectionTimeout(serverSelectionTimeoutMillis, TimeUnit.MILLISECONDS));
+    }
+}
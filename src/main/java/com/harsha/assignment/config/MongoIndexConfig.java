@@ -0,0 +1,66 @@
+package com.harsha.assignment.config;
+
+import com.harsha.assignment.model.DriverLocation;
+import com.harsha.assignment.model.IdempotencyRecord;
+import com.harsha.assignment.model.RefreshToken;
+import com.harsha.assignment.model.RevokedToken;
+import com.harsha.assignment.model.Ride;
+import com.harsha.assignment.model.RideSummary;
+import com.harsha.assignment.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+
+// Creates the indexes declared on the documents (@Indexed, @CompoundIndex, @GeoSpatialIndexed) at startup.
+// Spring Data's auto-index-creation is off by default, so without this every finder is a collection scan.
+@Configuration
+public class MongoIndexConfig {
+    
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexConfig.class);
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    // Boot's application executor: virtual threads when spring.threads.virtual.enabled=true
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private AsyncTaskExecutor taskExecutor;
+    
+    @Autowired
+    private MongoMappingContext mongoMappingContext;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        taskExecutor.execute(() -> {
+            try {
+                ensureIndexes(Ride.class);
+                ensureIndexes(User.class);
+                ensureIndexes(RefreshToken.class);
+                ensureIndexes(RevokedToken.class);
+                ensureIndexes(IdempotencyRecord.class);
+                ensureIndexes(DriverLocation.class);
+                ensureIndexes(RideSummary.class);
+            } catch (Exception e) {
+                log.warn("Could not create Mongo indexes: {}", e.getMessage());
+            }
+        });
+    }
+    
+    public void ensureIndexes(Class<?> documentType) {
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mongoMappingContext);
+        IndexOperations indexOps = mongoTemplate.indexOps(documentType);
+        resolver.resolveIndexFor(documentType).forEach(indexOps::createIndex);
+        log.info("Ensured indexes for {}", documentType.getSimpleName());
+    }
+}
@@ -0,0 +1,39 @@
+package com.harsha.assignment.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Shared by the servlet and reactive stacks. New hashes are written as "{id}hash" with the configured
+// encoder; any stored hash can still be verified, and hashes without a prefix are the original bcrypt ones.
+// A login against an older encoding (or weaker bcrypt cost) is rehashed, see PasswordHasher.
+@Configuration
+public class PasswordEncoderConfig {
+    
+    @Value("${auth.password.encoder:bcrypt}")
+    private String encoderId;
+    
+    @Value("${auth.password.bcrypt-strength:10}")
+    private int bcryptStrength;
+    
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", bcrypt);
+        encoders.put("pbkdf2", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        encoders.put("argon2", Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(encoderId, encoders);
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        return delegating;
+    }
+}
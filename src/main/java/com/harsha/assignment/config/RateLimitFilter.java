@@ -0,0 +1,138 @@
+package com.harsha.assignment.config;
+
+import com.harsha.assignment.exception.TooManyRequestsException;
+import com.harsha.assignment.util.TokenBucket;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Per-caller rate limits, applied after JwtAuthenticationFilter so each authenticated user or driver
+// (username + role) gets one token bucket per endpoint group. Over-limit requests get 429 with Retry-After
+// through GlobalExceptionHandler. Unauthenticated requests are left to the auth endpoints' own admission control.
+@Component
+@Profile("!reactive")
+public class RateLimitFilter extends OncePerRequestFilter {
+    
+    @Autowired
+    @Qualifier("handlerExceptionResolver")
+    private HandlerExceptionResolver exceptionResolver;
+    
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${rate-limit.idle-millis:600000}")
+    private long idleMillis;
+    
+    // Pending-list, nearby and history reads: what a misbehaving app polls in a loop
+    @Value("${rate-limit.polling.capacity:10}")
+    private int pollingCapacity;
+    
+    @Value("${rate-limit.polling.refill-per-second:2}")
+    private int pollingRefill;
+    
+    // Creates, accepts, completes and cancels
+    @Value("${rate-limit.writes.capacity:20}")
+    private int writesCapacity;
+    
+    @Value("${rate-limit.writes.refill-per-second:5}")
+    private int writesRefill;
+    
+    @Value("${rate-limit.default.capacity:60}")
+    private int defaultCapacity;
+    
+    @Value("${rate-limit.default.refill-per-second:20}")
+    private int defaultRefill;
+    
+    private Group polling;
+    private Group writes;
+    private Group other;
+    
+    @Override
+    protected void initFilterBean() {
+        polling = new Group(pollingCapacity, pollingRefill);
+        writes = new Group(writesCapacity, writesRefill);
+        other = new Group(defaultCapacity, defaultRefill);
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith("/api/v1/");
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser caller) {
+            long waitMillis = groupOf(request).tryAcquire(caller, System.currentTimeMillis());
+            if (waitMillis > 0) {
+                long retryAfterSeconds = (waitMillis + 999) / 1000;
+                exceptionResolver.resolveException(request, response, null,
+                        new TooManyRequestsException("Rate limit exceeded, retry in " + retryAfterSeconds + "s",
+                                retryAfterSeconds));
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+    
+    // Drops buckets that have refilled and gone quiet, so the maps only hold recently active callers
+    @Scheduled(fixedDelayString = "${rate-limit.sweep-millis:60000}")
+    public void evictIdleBuckets() {
+        long now = System.currentTimeMillis();
+        for (Group group : List.of(polling, writes, other)) {
+            group.buckets.values().removeIf(bucket -> bucket.isIdle(now, idleMillis));
+        }
+    }
+    
+    private Group groupOf(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod())) {
+            return writes;
+        }
+        String uri = request.getRequestURI();
+        if (uri.startsWith("/api/v1/driver/rides/events")) {
+            return other;
+        }
+        if (uri.startsWith("/api/v1/driver/rides") || uri.startsWith("/api/v1/user/rides")) {
+            return polling;
+        }
+        return other;
+    }
+    
+    private static final class Group {
+        
+        private final int capacity;
+        private final int refillPerSecond;
+        // AuthenticatedUser is a value type over id, username and role, so it keys the bucket without building a string
+        private final Map<AuthenticatedUser, TokenBucket> buckets = new ConcurrentHashMap<>();
+        
+        Group(int capacity, int refillPerSecond) {
+            this.capacity = capacity;
+            this.refillPerSecond = refillPerSecond;
+        }
+        
+        long tryAcquire(AuthenticatedUser caller, long now) {
+            TokenBucket bucket = buckets.get(caller);
+            if (bucket == null) {
+                bucket = buckets.computeIfAbsent(caller, key -> new TokenBucket(capacity, refillPerSecond, now));
+            }
+            return bucket.tryAcquire(now);
+        }
+    }
+}
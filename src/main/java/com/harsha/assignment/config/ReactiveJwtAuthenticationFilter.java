@@ -0,0 +1,68 @@
+package com.harsha.assignment.config;
+
+import com.harsha.assignment.service.TokenRevocationList;
+import com.harsha.assignment.util.JwtUtil;
+import com.harsha.assignment.util.TokenClaims;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Collections;
+
+// WebFlux counterpart of JwtAuthenticationFilter: same claims parsing, context stored in the Reactor context
+@Component
+@Profile("reactive")
+public class ReactiveJwtAuthenticationFilter implements WebFilter {
+    
+    @Autowired
+    private JwtUtil jwtUtil;
+    
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+    
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        final String authorizationHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        
+        TokenClaims claims = null;
+        
+        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
+            try {
+                claims = jwtUtil.parseToken(authorizationHeader.substring(7));
+            } catch (Exception e) {
+                // Invalid token
+            }
+        }
+        
+        if (claims == null || claims.username() == null || claims.role() == null) {
+            return chain.filter(exchange);
+        }
+        
+        if (claims.tokenId() == null || !tokenRevocationList.mightBeRevoked(claims.tokenId())) {
+            return authenticated(exchange, chain, claims);
+        }
+        
+        // Possible revocation: confirm against Mongo off the event loop
+        TokenClaims candidate = claims;
+        return Mono.fromCallable(() -> tokenRevocationList.isRevoked(candidate.tokenId()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(revoked -> revoked ? chain.filter(exchange) : authenticated(exchange, chain, candidate));
+    }
+    
+    private Mono<Void> authenticated(ServerWebExchange exchange, WebFilterChain chain, TokenClaims claims) {
+        AuthenticatedUser principal = new AuthenticatedUser(claims.userId(), claims.username(), claims.role());
+        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                principal, null, Collections.singletonList(new SimpleGrantedAuthority(claims.role())));
+        return chain.filter(exchange)
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authToken));
+    }
+}
@@ -0,0 +1,48 @@
+package com.harsha.assignment.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import reactor.core.publisher.Mono;
+
+// WebFlux counterpart of SecurityConfig with the same route rules
+@Configuration
+@Profile("reactive")
+@EnableWebFluxSecurity
+public class ReactiveSecurityConfig {
+    
+    @Autowired
+    private ReactiveJwtAuthenticationFilter jwtAuthenticationFilter;
+    
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        return http
+            .csrf(ServerHttpSecurity.CsrfSpec::disable)
+            .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+            .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+            .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+            .authorizeExchange(auth -> auth
+                .pathMatchers("/api/auth/**").permitAll()
+                .pathMatchers("/actuator/health", "/actuator/prometheus").permitAll()
+                .pathMatchers("/api/v1/rides/**").hasAnyAuthority("ROLE_USER", "ROLE_DRIVER")
+                .pathMatchers("/api/v1/user/**").hasAuthority("ROLE_USER")
+                .pathMatchers("/api/v1/driver/**").hasAuthority("ROLE_DRIVER")
+                .anyExchange().authenticated()
+            )
+            .addFilterAt(jwtAuthenticationFilter, SecurityWebFiltersOrder.AUTHENTICATION)
+            .build();
+    }
+    
+    // Authentication happens in the JWT filter only; this stops Boot from creating a default in-memory user
+    @Bean
+    public ReactiveAuthenticationManager reactiveAuthenticationManager() {
+        return authentication -> Mono.empty();
+    }
+}
@@ -0,0 +1,43 @@
+package com.harsha.assignment.config;
+
+import com.harsha.assignment.repository.CappedCollectionRideLog;
+import com.harsha.assignment.repository.MappedSegmentRideLog;
+import com.harsha.assignment.repository.RideLifecycleLog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.nio.file.Path;
+
+// Picks the ride lifecycle log store: rides.event-log.store=file (one instance, local disk) or mongo (shared
+// capped collection). With neither, no log exists and RideLifecycleRecorder does nothing.
+// RideLifecycleRecorder closes the log after its last append, so the container must not close it first.
+@Configuration
+public class RideLifecycleLogConfig {
+    
+    @Value("${rides.event-log.directory:data/ride-log}")
+    private String directory;
+    
+    @Value("${rides.event-log.segment-bytes:67108864}")
+    private int segmentBytes;
+    
+    @Value("${rides.event-log.capped-bytes:1073741824}")
+    private long cappedBytes;
+    
+    @Value("${rides.event-log.clock-skew-millis:5000}")
+    private long clockSkewMillis;
+    
+    @Bean(destroyMethod = "")
+    @ConditionalOnProperty(name = "rides.event-log.store", havingValue = "file")
+    public RideLifecycleLog fileRideLifecycleLog() {
+        return new MappedSegmentRideLog(Path.of(directory, "segments"), segmentBytes);
+    }
+    
+    @Bean(destroyMethod = "")
+    @ConditionalOnProperty(name = "rides.event-log.store", havingValue = "mongo")
+    public RideLifecycleLog mongoRideLifecycleLog(MongoTemplate mongoTemplate) {
+        return new CappedCollectionRideLog(mongoTemplate, cappedBytes, clockSkewMillis);
+    }
+}
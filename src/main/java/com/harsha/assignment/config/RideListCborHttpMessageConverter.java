@@ -0,0 +1,64 @@
+package com.harsha.assignment.config;
+
+import com.harsha.assignment.dto.RidePage;
+import com.harsha.assignment.dto.RideResponse;
+import com.harsha.assignment.util.RideListCbor;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractSmartHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+// Writes ride lists and pages as RideListCbor when the client asks for application/cbor by name. It never offers
+// CBOR on its own, so clients sending Accept: */* (or nothing) keep getting JSON. Other bodies asked for as CBOR
+// fall through to the default Jackson CBOR converter.
+@Component
+public class RideListCborHttpMessageConverter extends AbstractSmartHttpMessageConverter<Object> {
+    
+    private static final ResolvableType RIDE_LIST = ResolvableType.forClassWithGenerics(List.class, RideResponse.class);
+    
+    public RideListCborHttpMessageConverter() {
+        super(MediaType.APPLICATION_CBOR);
+    }
+    
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return RidePage.class.isAssignableFrom(clazz) || List.class.isAssignableFrom(clazz);
+    }
+    
+    @Override
+    public boolean canRead(ResolvableType type, MediaType mediaType) {
+        return false;
+    }
+    
+    @Override
+    public boolean canWrite(ResolvableType type, Class<?> valueClass, MediaType mediaType) {
+        if (mediaType == null || !MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(mediaType)) {
+            return false;
+        }
+        return RidePage.class.isAssignableFrom(valueClass) || RIDE_LIST.isAssignableFrom(type);
+    }
+    
+    @Override
+    protected void writeInternal(Object body, ResolvableType type, HttpOutputMessage outputMessage,
+                                 Map<String, Object> hints) throws IOException {
+        if (body instanceof RidePage page) {
+            RideListCbor.write(page.getRides(), page.getNextCursor(), outputMessage.getBody());
+        } else {
+            @SuppressWarnings("unchecked")
+            List<RideResponse> rides = (List<RideResponse>) body;
+            RideListCbor.write(rides, null, outputMessage.getBody());
+        }
+    }
+    
+    @Override
+    public Object read(ResolvableType type, HttpInputMessage inputMessage, Map<String, Object> hints) {
+        throw new HttpMessageNotReadableException("Ride lists are only written as CBOR", inputMessage);
+    }
+}
@@ -2,14 +2,18 @@ package com.harsha.assignment.controller;
 
 import com.harsha.assignment.dto.AuthResponse;
 import com.harsha.assignment.dto.LoginRequest;
+import com.harsha.assignment.dto.RefreshRequest;
 import com.harsha.assignment.dto.RegisterRequest;
 import com.harsha.assignment.service.AuthService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/auth")
 public class AuthController {
     
@@ -27,4 +31,22 @@ public class AuthController {
         AuthResponse response = authService.login(request);
         return ResponseEntity.ok(response);
     }
+    
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponse> refresh(@Valid @RequestBody RefreshRequest request) {
+        AuthResponse response = authService.refresh(request);
+        return ResponseEntity.ok(response);
+    }
+    
+    // Revokes the bearer access token and, if given, the refresh token
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                       @RequestBody(required = false) RefreshRequest request) {
+        authService.logout(bearerToken(authorization), request != null ? request.getRefreshToken() : null);
+        return ResponseEntity.noContent().build();
+    }
+    
+    static String bearerToken(String authorization) {
+        return authorization != null && authorization.startsWith("Bearer ") ? authorization.substring(7) : null;
+    }
 }
@@ -0,0 +1,46 @@
+package com.harsha.assignment.controller;
+
+import com.harsha.assignment.dto.AuthResponse;
+import com.harsha.assignment.dto.LoginRequest;
+import com.harsha.assignment.dto.RefreshRequest;
+import com.harsha.assignment.dto.RegisterRequest;
+import com.harsha.assignment.service.ReactiveAuthService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/auth")
+public class ReactiveAuthController {
+    
+    @Autowired
+    private ReactiveAuthService authService;
+    
+    @PostMapping("/register")
+    public Mono<ResponseEntity<AuthResponse>> register(@Valid @RequestBody RegisterRequest request) {
+        return authService.register(request).map(ResponseEntity::ok);
+    }
+    
+    @PostMapping("/login")
+    public Mono<ResponseEntity<AuthResponse>> login(@Valid @RequestBody LoginRequest request) {
+        return authService.login(request).map(ResponseEntity::ok);
+    }
+    
+    @PostMapping("/refresh")
+    public Mono<ResponseEntity<AuthResponse>> refresh(@Valid @RequestBody RefreshRequest request) {
+        return authService.refresh(request).map(ResponseEntity::ok);
+    }
+    
+    // Revokes the bearer access token and, if given, the refresh token
+    @PostMapping("/logout")
+    public Mono<ResponseEntity<Void>> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                             @RequestBody(required = false) RefreshRequest request) {
+        return authService.logout(AuthController.bearerToken(authorization), request != null ? request.getRefreshToken() : null)
+                .then(Mono.just(ResponseEntity.noContent().<Void>build()));
+    }
+}
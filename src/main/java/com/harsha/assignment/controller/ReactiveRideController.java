@@ -0,0 +1,112 @@
+package com.harsha.assignment.controller;
+
+import com.harsha.assignment.dto.BatchResult;
+import com.harsha.assignment.dto.BulkTransitionRequest;
+import com.harsha.assignment.dto.CreateRideRequest;
+import com.harsha.assignment.dto.RideEvent;
+import com.harsha.assignment.dto.RideResponse;
+import com.harsha.assignment.dto.RideSummaryResponse;
+import com.harsha.assignment.service.ReactiveRideService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Same routes as RideController on WebFlux; list endpoints also stream as NDJSON with Accept: application/x-ndjson
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/v1")
+public class ReactiveRideController {
+    
+    @Autowired
+    private ReactiveRideService rideService;
+    
+    @Value("${rides.events.buffer-size:256}")
+    private int eventBufferSize;
+    
+    // Create a ride (USER only)
+    @PostMapping("/rides")
+    public Mono<ResponseEntity<RideResponse>> createRide(@Valid @RequestBody CreateRideRequest request) {
+        return rideService.createRide(request).map(ResponseEntity::ok);
+    }
+    
+    // Complete a ride (USER or DRIVER)
+    @PostMapping("/rides/{rideId}/complete")
+    public Mono<ResponseEntity<RideResponse>> completeRide(@PathVariable String rideId) {
+        return rideService.completeRide(rideId).map(ResponseEntity::ok);
+    }
+    
+    // Complete many rides in one call (USER or DRIVER)
+    @PostMapping("/rides/bulk/complete")
+    public Mono<ResponseEntity<BatchResult>> completeRides(@Valid @RequestBody BulkTransitionRequest request) {
+        return rideService.completeRides(request.getRideIds()).map(ResponseEntity::ok);
+    }
+    
+    // Cancel many not-yet-accepted rides in one call (USER only)
+    @PostMapping("/rides/bulk/cancel")
+    public Mono<ResponseEntity<BatchResult>> cancelRides(@Valid @RequestBody BulkTransitionRequest request) {
+        return rideService.cancelRides(request.getRideIds()).map(ResponseEntity::ok);
+    }
+    
+    // Get user's own rides (USER only)
+    @GetMapping("/user/rides")
+    public Flux<RideResponse> getUserRides() {
+        return rideService.getUserRides();
+    }
+    
+    // Ride count, completed and cancelled totals and last ride time (USER only)
+    @GetMapping("/user/rides/summary")
+    public Mono<ResponseEntity<RideSummaryResponse>> getUserRideSummary() {
+        return rideService.getRideSummary().map(ResponseEntity::ok);
+    }
+    
+    // View pending ride requests (DRIVER only)
+    @GetMapping("/driver/rides/requests")
+    public Flux<RideResponse> getPendingRides() {
+        return rideService.getPendingRides();
+    }
+    
+    // Push channel of CREATED/ACCEPTED ride events, replacing polling of /driver/rides/requests (DRIVER only)
+    @GetMapping(value = "/driver/rides/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<RideEvent>> subscribeToRideEvents() {
+        return rideService.rideEvents(eventBufferSize)
+                .map(event -> ServerSentEvent.builder(event)
+                        .id(Long.toString(event.getSequence()))
+                        .event(event.getType())
+                        .build());
+    }
+    
+    // Nearest pending ride requests around the driver (DRIVER only)
+    @GetMapping("/driver/rides/nearby")
+    public Flux<RideResponse> getNearbyPendingRides(
+            @RequestParam double latitude,
+            @RequestParam double longitude,
+            @RequestParam(defaultValue = "5") double radiusKm,
+            @RequestParam(defaultValue = "20") int limit) {
+        return rideService.getNearbyPendingRides(latitude, longitude, radiusKm, limit);
+    }
+    
+    // Accept a ride (DRIVER only)
+    @PostMapping("/driver/rides/{rideId}/accept")
+    public Mono<ResponseEntity<RideResponse>> acceptRide(@PathVariable String rideId) {
+        return rideService.acceptRide(rideId).map(ResponseEntity::ok);
+    }
+    
+    // Accepted and completed totals and last ride time (DRIVER only)
+    @GetMapping("/driver/rides/summary")
+    public Mono<ResponseEntity<RideSummaryResponse>> getDriverRideSummary() {
+        return rideService.getRideSummary().map(ResponseEntity::ok);
+    }
+    
+    // Get driver's accepted rides (DRIVER only)
+    @GetMapping("/driver/rides")
+    public Flux<RideResponse> getDriverRides() {
+        return rideService.getDriverRides();
+    }
+}
@@ -1,29 +1,97 @@
 package com.harsha.assignment.controller;
 
+import com.harsha.assignment.dto.BatchCreateRidesRequest;
+import com.harsha.assignment.dto.BatchResult;
+import com.harsha.assignment.dto.BulkTransitionRequest;
 import com.harsha.assignment.dto.CreateRideRequest;
+import com.harsha.assignment.dto.DriverAvailabilityRequest;
+import com.harsha.assignment.dto.DriverLocationRequest;
+import com.harsha.assignment.dto.RidePage;
 import com.harsha.assignment.dto.RideResponse;
+import com.harsha.assignment.dto.RideSummaryResponse;
+import com.harsha.assignment.service.RideListVersions;
 import com.harsha.assignment.service.RideService;
+import jakarta.annotation.PreDestroy;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
 
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/v1")
 public class RideController {
     
+    static final String NDJSON = "application/x-ndjson";
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    
     @Autowired
     private RideService rideService;
     
-    // Create a ride (USER only)
+    @Autowired
+    private RideListVersions rideListVersions;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${rides.events.buffer-size:256}")
+    private int eventBufferSize;
+    
+    @Value("${rides.events.timeout-millis:1800000}")
+    private long eventTimeoutMillis;
+    
+    // SSE drains block on slow clients' sockets, so they stay off the application executor other work queues on
+    private final ExecutorService eventDrainExecutor = SseRideEventSubscriber.drainExecutor();
+    
+    @PreDestroy
+    void shutdownEventDrains() {
+        eventDrainExecutor.shutdownNow();
+    }
+    
+    // Create a ride (USER only); retries with the same Idempotency-Key return the original ride
     @PostMapping("/rides")
-    public ResponseEntity<RideResponse> createRide(@Valid @RequestBody CreateRideRequest request) {
-        RideResponse response = rideService.createRide(request);
+    public ResponseEntity<RideResponse> createRide(@Valid @RequestBody CreateRideRequest request,
+                                                   @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        RideResponse response = rideService.createRide(request, idempotencyKey);
         return ResponseEntity.ok(response);
     }
     
+    // Create many rides in one call; each item gets its own result (USER only)
+    @PostMapping("/rides/batch")
+    public ResponseEntity<BatchResult> createRides(@Valid @RequestBody BatchCreateRidesRequest request) {
+        return ResponseEntity.ok(rideService.createRides(request.getRides()));
+    }
+    
+    // Complete many rides in one call (USER or DRIVER)
+    @PostMapping("/rides/bulk/complete")
+    public ResponseEntity<BatchResult> completeRides(@Valid @RequestBody BulkTransitionRequest request) {
+        return ResponseEntity.ok(rideService.completeRides(request.getRideIds()));
+    }
+    
+    // Cancel many not-yet-accepted rides in one call (USER only)
+    @PostMapping("/rides/bulk/cancel")
+    public ResponseEntity<BatchResult> cancelRides(@Valid @RequestBody BulkTransitionRequest request) {
+        return ResponseEntity.ok(rideService.cancelRides(request.getRideIds()));
+    }
+    
     // Complete a ride (USER or DRIVER)
     @PostMapping("/rides/{rideId}/complete")
     public ResponseEntity<RideResponse> completeRide(@PathVariable String rideId) {
@@ -31,31 +99,179 @@ public class RideController {
         return ResponseEntity.ok(response);
     }
     
-    // Get user's own rides (USER only)
+    // Get user's own rides (USER only); 304 while the caller's history is unchanged
     @GetMapping("/user/rides")
-    public ResponseEntity<List<RideResponse>> getUserRides() {
-        List<RideResponse> rides = rideService.getUserRides();
-        return ResponseEntity.ok(rides);
+    public ResponseEntity<List<RideResponse>> getUserRides(WebRequest request) {
+        return conditional(request, RideListVersions.View.USER, rideService.getUserRidesVersion(),
+                rideService::getUserRides);
+    }
+    
+    // Keyset-paged user rides, newest first: /user/rides?limit=50&cursor=...
+    @GetMapping(value = "/user/rides", params = "limit")
+    public ResponseEntity<RidePage> getUserRidesPage(@RequestParam int limit,
+                                                     @RequestParam(required = false) String cursor,
+                                                     WebRequest request) {
+        return conditional(request, RideListVersions.View.USER, rideService.getUserRidesVersion(),
+                () -> rideService.getUserRidesPage(cursor, limit));
+    }
+    
+    // Ride count, completed and cancelled totals and last ride time (USER only)
+    @GetMapping("/user/rides/summary")
+    public ResponseEntity<RideSummaryResponse> getUserRideSummary() {
+        return ResponseEntity.ok(rideService.getRideSummary());
+    }
+    
+    // Full user ride history streamed as NDJSON straight from the Mongo cursor
+    @GetMapping(value = "/user/rides", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamUserRides() {
+        return ndjson(rideService.streamUserRides());
     }
     
-    // View pending ride requests (DRIVER only)
+    // View pending ride requests (DRIVER only); 304 while no ride was requested, accepted or cancelled
     @GetMapping("/driver/rides/requests")
-    public ResponseEntity<List<RideResponse>> getPendingRides() {
-        List<RideResponse> rides = rideService.getPendingRides();
+    public ResponseEntity<List<RideResponse>> getPendingRides(WebRequest request) {
+        return conditional(request, RideListVersions.View.PENDING, rideService.getPendingRidesVersion(),
+                rideService::getPendingRides);
+    }
+    
+    // Keyset-paged pending ride requests, oldest first (DRIVER only)
+    @GetMapping(value = "/driver/rides/requests", params = "limit")
+    public ResponseEntity<RidePage> getPendingRidesPage(@RequestParam int limit,
+                                                        @RequestParam(required = false) String cursor,
+                                                        WebRequest request) {
+        return conditional(request, RideListVersions.View.PENDING, rideService.getPendingRidesVersion(),
+                () -> rideService.getPendingRidesPage(cursor, limit));
+    }
+    
+    // Push channel of CREATED/ACCEPTED ride events, replacing polling of /driver/rides/requests (DRIVER only)
+    @GetMapping(value = "/driver/rides/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToRideEvents() {
+        SseEmitter emitter = new SseEmitter(eventTimeoutMillis);
+        SseRideEventSubscriber subscriber = new SseRideEventSubscriber(emitter, eventDrainExecutor, eventBufferSize);
+        Runnable unsubscribe = rideService.subscribeToRideEvents(subscriber);
+        Runnable cleanup = () -> {
+            unsubscribe.run();
+            subscriber.close();
+        };
+        emitter.onCompletion(cleanup);
+        emitter.onTimeout(cleanup);
+        emitter.onError(e -> cleanup.run());
+        return emitter;
+    }
+    
+    // Nearest pending ride requests around the given point, or the driver's last reported location (DRIVER only)
+    @GetMapping("/driver/rides/nearby")
+    public ResponseEntity<List<RideResponse>> getNearbyPendingRides(
+            @RequestParam(required = false) Double latitude,
+            @RequestParam(required = false) Double longitude,
+            @RequestParam(defaultValue = "5") double radiusKm,
+            @RequestParam(defaultValue = "20") int limit) {
+        List<RideResponse> rides = rideService.getNearbyPendingRides(latitude, longitude, radiusKm, limit);
         return ResponseEntity.ok(rides);
     }
     
-    // Accept a ride (DRIVER only)
+    // Accept a ride (DRIVER only); retries with the same Idempotency-Key return the original acceptance
     @PostMapping("/driver/rides/{rideId}/accept")
-    public ResponseEntity<RideResponse> acceptRide(@PathVariable String rideId) {
-        RideResponse response = rideService.acceptRide(rideId);
+    public ResponseEntity<RideResponse> acceptRide(@PathVariable String rideId,
+                                                   @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        RideResponse response = rideService.acceptRide(rideId, idempotencyKey);
         return ResponseEntity.ok(response);
     }
     
-    // Get driver's accepted rides (DRIVER only)
+    // GPS ping, sent every few seconds while the driver app is open; stored with the next batch flush (DRIVER only)
+    @PutMapping("/driver/location")
+    public ResponseEntity<Void> reportLocation(@Valid @RequestBody DriverLocationRequest request) {
+        rideService.reportDriverLocation(request);
+        return ResponseEntity.accepted().build();
+    }
+    
+    // Go on or off duty (DRIVER only)
+    @PutMapping("/driver/availability")
+    public ResponseEntity<Void> setAvailability(@Valid @RequestBody DriverAvailabilityRequest request) {
+        rideService.setDriverAvailability(request.getAvailable());
+        return ResponseEntity.accepted().build();
+    }
+    
+    // Get driver's accepted rides (DRIVER only); 304 while the caller's history is unchanged
     @GetMapping("/driver/rides")
-    public ResponseEntity<List<RideResponse>> getDriverRides() {
-        List<RideResponse> rides = rideService.getDriverRides();
-        return ResponseEntity.ok(rides);
+    public ResponseEntity<List<RideResponse>> getDriverRides(WebRequest request) {
+        return conditional(request, RideListVersions.View.DRIVER, rideService.getDriverRidesVersion(),
+                rideService::getDriverRides);
+    }
+    
+    // Keyset-paged driver rides, newest first (DRIVER only)
+    @GetMapping(value = "/driver/rides", params = "limit")
+    public ResponseEntity<RidePage> getDriverRidesPage(@RequestParam int limit,
+                                                       @RequestParam(required = false) String cursor,
+                                                       WebRequest request) {
+        return conditional(request, RideListVersions.View.DRIVER, rideService.getDriverRidesVersion(),
+                () -> rideService.getDriverRidesPage(cursor, limit));
+    }
+    
+    // Accepted and completed totals and last ride time (DRIVER only)
+    @GetMapping("/driver/rides/summary")
+    public ResponseEntity<RideSummaryResponse> getDriverRideSummary() {
+        return ResponseEntity.ok(rideService.getRideSummary());
+    }
+    
+    // Full driver ride history streamed as NDJSON (DRIVER only)
+    @GetMapping(value = "/driver/rides", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamDriverRides() {
+        return ndjson(rideService.streamDriverRides());
+    }
+    
+    // The list view's version stamp is the ETag, so If-None-Match is answered before anything is read or serialized.
+    // JSON and CBOR bodies differ, so the tag also carries the Accept header.
+    private <T> ResponseEntity<T> conditional(WebRequest request, RideListVersions.View view, String version,
+                                              Supplier<T> body) {
+        if (version == null) {
+            return ResponseEntity.ok(body.get());
+        }
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        ETag etag = new ETag(version + "." + Integer.toHexString(Objects.hashCode(accept)), false);
+        if (matches(request.getHeaderValues(HttpHeaders.IF_NONE_MATCH), etag)) {
+            rideListVersions.recordHit(view);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag.formattedTag())
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .build();
+        }
+        rideListVersions.recordMiss(view);
+        return ResponseEntity.ok()
+                .eTag(etag.formattedTag())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(body.get());
+    }
+    
+    // If-None-Match uses weak comparison and may list several tags or *
+    private static boolean matches(String[] ifNoneMatch, ETag etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String header : ifNoneMatch) {
+            for (ETag candidate : ETag.parse(header)) {
+                if (candidate.isWildcard() || candidate.compare(etag, false)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    // Writes one JSON document per line so memory stays flat regardless of history length
+    private ResponseEntity<StreamingResponseBody> ndjson(Stream<RideResponse> rides) {
+        StreamingResponseBody body = (OutputStream out) -> {
+            try (Stream<RideResponse> stream = rides) {
+                Iterator<RideResponse> iterator = stream.iterator();
+                while (iterator.hasNext()) {
+                    out.write(objectMapper.writeValueAsBytes(iterator.next()));
+                    out.write('\n');
+                }
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
     }
 }
@@ -0,0 +1,115 @@
+package com.harsha.assignment.controller;
+
+import com.harsha.assignment.dto.RideEvent;
+import com.harsha.assignment.service.RideEventSubscriber;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Servlet SSE subscriber with a bounded drop-oldest buffer. Publishers only enqueue; a single drain
+// task per subscriber does the (possibly slow) socket writes on a virtual thread of drainExecutor(), so a client
+// that stops reading parks one virtual thread of its own and holds up nobody else. At most one drain per subscriber
+// runs at a time, so there are never more drain threads than subscribers.
+class SseRideEventSubscriber implements RideEventSubscriber {
+    
+    private final SseEmitter emitter;
+    private final Executor executor;
+    private final int capacity;
+    
+    // ReentrantLock rather than synchronized so virtual threads never pin on it
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<RideEvent> buffer = new ArrayDeque<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile boolean closed;
+    
+    SseRideEventSubscriber(SseEmitter emitter, Executor executor, int capacity) {
+        this.emitter = emitter;
+        this.executor = executor;
+        this.capacity = capacity;
+    }
+    
+    static ExecutorService drainExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sse-drain-", 0).factory());
+    }
+    
+    @Override
+    public void offer(RideEvent event) {
+        if (closed) {
+            throw new IllegalStateException("subscriber closed");
+        }
+        lock.lock();
+        try {
+            // Drop-oldest: a slow client loses stale events, never the newest ones
+            if (buffer.size() == capacity) {
+                buffer.pollFirst();
+            }
+            buffer.addLast(event);
+        } finally {
+            lock.unlock();
+        }
+        scheduleDrain();
+    }
+    
+    void close() {
+        closed = true;
+        lock.lock();
+        try {
+            buffer.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+    
+    private void drain() {
+        while (true) {
+            RideEvent next;
+            lock.lock();
+            try {
+                next = buffer.pollFirst();
+            } finally {
+                lock.unlock();
+            }
+            
+            if (next == null) {
+                draining.set(false);
+                // An offer may have slipped in between the empty poll and releasing the flag
+                if (isEmpty() || !draining.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            
+            try {
+                emitter.send(SseEmitter.event()
+                        .id(Long.toString(next.getSequence()))
+                        .name(next.getType())
+                        .data(next));
+            } catch (Exception e) {
+                close();
+                emitter.completeWithError(e);
+                return;
+            }
+        }
+    }
+    
+    private boolean isEmpty() {
+        lock.lock();
+        try {
+            return buffer.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -8,7 +8,8 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class AuthResponse {
-    private String token;
+    private String token; // short-lived access token
+    private String refreshToken; // single use; exchange at /api/auth/refresh for a new pair
     private String username;
     private String role;
 }
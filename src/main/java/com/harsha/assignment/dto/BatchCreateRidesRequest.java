@@ -0,0 +1,20 @@
+package com.harsha.assignment.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchCreateRidesRequest {
+    
+    // Items are validated one by one so a bad item is reported in its result instead of failing the batch
+    @NotEmpty(message = "At least one ride is required")
+    @Size(max = 500, message = "At most 500 rides per batch")
+    private List<CreateRideRequest> rides;
+}
@@ -0,0 +1,24 @@
+package com.harsha.assignment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResult {
+    private int index; // position in the request
+    private String rideId;
+    private String status; // CREATED, COMPLETED, CANCELLED on success; INVALID, NOT_FOUND, REJECTED, CONFLICT, FAILED otherwise
+    private RideResponse ride; // set on success
+    private String error; // set on failure
+    
+    public static BatchItemResult succeeded(int index, String status, RideResponse ride) {
+        return new BatchItemResult(index, ride.getId(), status, ride, null);
+    }
+    
+    public static BatchItemResult failed(int index, String rideId, String status, String error) {
+        return new BatchItemResult(index, rideId, status, null, error);
+    }
+}
@@ -0,0 +1,21 @@
+package com.harsha.assignment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResult {
+    private int succeeded;
+    private int failed;
+    private List<BatchItemResult> results; // one per request item, in request order
+    
+    public static BatchResult of(List<BatchItemResult> results) {
+        int succeeded = (int) results.stream().filter(result -> result.getError() == null).count();
+        return new BatchResult(succeeded, results.size() - succeeded, results);
+    }
+}
@@ -0,0 +1,19 @@
+package com.harsha.assignment.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkTransitionRequest {
+    
+    @NotEmpty(message = "At least one ride id is required")
+    @Size(max = 500, message = "At most 500 rides per batch")
+    private List<String> rideIds;
+}
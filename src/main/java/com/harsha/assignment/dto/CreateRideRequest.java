@@ -1,5 +1,7 @@
 package com.harsha.assignment.dto;
 
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -15,4 +17,13 @@ public class CreateRideRequest {
     
     @NotBlank(message = "Drop location is required")
     private String dropLocation;
+    
+    // Optional pickup coordinates; rides without them are not offered through nearby search
+    @DecimalMin(value = "-90.0", message = "Pickup latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Pickup latitude must be between -90 and 90")
+    private Double pickupLatitude;
+    
+    @DecimalMin(value = "-180.0", message = "Pickup longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Pickup longitude must be between -180 and 180")
+    private Double pickupLongitude;
 }
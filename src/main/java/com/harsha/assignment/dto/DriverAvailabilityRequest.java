@@ -0,0 +1,15 @@
+package com.harsha.assignment.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DriverAvailabilityRequest {
+    
+    @NotNull(message = "Availability is required")
+    private Boolean available;
+}
@@ -0,0 +1,17 @@
+package com.harsha.assignment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RideEvent {
+    private long sequence; // increases by one per published event, so clients can detect drops
+    private String type; // CREATED, ACCEPTED, CANCELLED
+    private RideResponse ride;
+    private LocalDateTime timestamp;
+}
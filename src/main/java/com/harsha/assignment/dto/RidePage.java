@@ -0,0 +1,15 @@
+package com.harsha.assignment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RidePage {
+    private List<RideResponse> rides;
+    private String nextCursor; // null when there are no more rides
+}
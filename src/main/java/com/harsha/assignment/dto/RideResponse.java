@@ -15,6 +15,8 @@ public class RideResponse {
     private String userId;
     private String driverId;
     private String pickupLocation;
+    private Double pickupLatitude;
+    private Double pickupLongitude;
     private String dropLocation;
     private String status;
     private LocalDateTime createdAt;
@@ -25,6 +27,8 @@ public class RideResponse {
             ride.getUserId(),
             ride.getDriverId(),
             ride.getPickupLocation(),
+            ride.getPickupPoint() != null ? ride.getPickupPoint().getY() : null,
+            ride.getPickupPoint() != null ? ride.getPickupPoint().getX() : null,
             ride.getDropLocation(),
             ride.getStatus(),
             ride.getCreatedAt()
@@ -0,0 +1,17 @@
+package com.harsha.assignment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RideSummaryResponse {
+    private long rides; // passenger: rides requested; driver: rides accepted
+    private long completed;
+    private long cancelled;
+    private LocalDateTime lastRideAt; // null before the first ride
+}
@@ -0,0 +1,31 @@
+package com.harsha.assignment.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+// Last known position and availability of a driver. Kept apart from User because it is rewritten every few
+// seconds; written in batches by DriverLocationService, never per ping.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "driver_locations")
+public class DriverLocation {
+    
+    @Id
+    private String id; // driver's user id
+    
+    @GeoSpatialIndexed(type = GeoSpatialIndexType.GEO_2DSPHERE)
+    private GeoJsonPoint location; // x = longitude, y = latitude (nullable until the first ping)
+    
+    private Boolean available; // null until the driver sets it
+    
+    private Date updatedAt;
+}
@@ -0,0 +1,30 @@
+package com.harsha.assignment.model;
+
+import com.harsha.assignment.dto.RideResponse;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+// The outcome of a request sent with an Idempotency-Key. A record without a response is a claim held by the
+// instance that is still executing the request.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "idempotency_keys")
+public class IdempotencyRecord {
+    
+    @Id
+    private String id; // SHA-256 of user id, operation and client key
+    
+    private String requestHash; // fingerprint of the original request, so a reused key with other input is refused
+    
+    private RideResponse response;
+    
+    @Indexed(expireAfter = "0s") // claims expire after a short lease, completed records after the replay window
+    private Date expiresAt;
+}
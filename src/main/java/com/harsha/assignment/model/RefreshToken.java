@@ -0,0 +1,26 @@
+package com.harsha.assignment.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "refresh_tokens")
+public class RefreshToken {
+    
+    @Id
+    private String id; // SHA-256 of the token; the raw value is only ever held by the client
+    
+    @Indexed
+    private String userId;
+    
+    @Indexed(expireAfter = "0s") // Mongo's TTL monitor deletes the document once it expires
+    private Date expiresAt;
+}
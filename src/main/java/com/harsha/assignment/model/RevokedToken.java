@@ -0,0 +1,27 @@
+package com.harsha.assignment.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+// An access token (by jti) that was logged out before it expired
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "revoked_tokens")
+public class RevokedToken {
+    
+    @Id
+    private String id; // jti of the access token
+    
+    @Indexed
+    private Date revokedAt;
+    
+    @Indexed(expireAfter = "0s") // no need to remember it once the token would have expired anyway
+    private Date expiresAt;
+}
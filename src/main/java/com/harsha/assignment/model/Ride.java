@@ -4,6 +4,11 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -12,6 +17,14 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "rides")
+@CompoundIndexes({
+    // Pending requests, paged oldest first
+    @CompoundIndex(name = "status_createdAt_id", def = "{'status': 1, 'createdAt': 1, '_id': 1}"),
+    // Passenger history, paged newest first (index is walked backwards)
+    @CompoundIndex(name = "userId_createdAt_id", def = "{'userId': 1, 'createdAt': 1, '_id': 1}"),
+    // Driver history, paged newest first
+    @CompoundIndex(name = "driverId_createdAt_id", def = "{'driverId': 1, 'createdAt': 1, '_id': 1}")
+})
 public class Ride {
     
     @Id
@@ -23,9 +36,12 @@ public class Ride {
     
     private String pickupLocation;
     
+    @GeoSpatialIndexed(type = GeoSpatialIndexType.GEO_2DSPHERE)
+    private GeoJsonPoint pickupPoint; // x = longitude, y = latitude (nullable)
+    
     private String dropLocation;
     
-    private String status; // REQUESTED, ACCEPTED, COMPLETED
+    private String status; // REQUESTED, ACCEPTED, COMPLETED, CANCELLED
     
     private LocalDateTime createdAt;
 }
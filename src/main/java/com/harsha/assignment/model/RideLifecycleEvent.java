@@ -0,0 +1,43 @@
+package com.harsha.assignment.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// One ride status change in the lifecycle log, carrying the whole ride as it was right after the change.
+// Applying events is therefore idempotent, and a ride first seen mid-life is still complete.
+// Stored in the ride_lifecycle capped collection when rides.event-log.store=mongo.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "ride_lifecycle")
+public class RideLifecycleEvent {
+    
+    @Id
+    private String id; // Mongo store only
+    
+    private String source; // Mongo store only: the instance that appended it
+    
+    // Where the event sits in its log: a sequence number in the file store, the append time in millis in Mongo
+    @Indexed
+    private long position;
+    
+    private long recordedAt;
+    
+    private Ride ride;
+    
+    // Snapshot of the ride's current state; later changes to the passed Ride are not seen by the event
+    public static RideLifecycleEvent of(Ride ride) {
+        Ride copy = new Ride(ride.getId(), ride.getUserId(), ride.getDriverId(), ride.getPickupLocation(),
+                ride.getPickupPoint(), ride.getDropLocation(), ride.getStatus(), ride.getCreatedAt());
+        return new RideLifecycleEvent(null, null, 0, System.currentTimeMillis(), copy);
+    }
+    
+    // CREATED, ACCEPTED, COMPLETED or CANCELLED
+    public String type() {
+        return "REQUESTED".equals(ride.getStatus()) ? "CREATED" : ride.getStatus();
+    }
+}
@@ -0,0 +1,34 @@
+package com.harsha.assignment.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+
+// Running ride totals of one passenger or driver, so a summary is one document read however long the history is.
+// Only ever changed with $inc/$max by RideSummaryService's flush (and by RideSummaryChecker's repair).
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "ride_summaries")
+public class RideSummary {
+    
+    @Id
+    private String id; // passenger's or driver's user id
+    
+    private long rides; // passenger: rides requested; driver: rides accepted
+    
+    private long completed;
+    
+    private long cancelled;
+    
+    private LocalDateTime lastRideAt; // createdAt of the newest ride counted
+    
+    @Indexed
+    private Date updatedAt; // last flush that changed these totals
+}
@@ -0,0 +1,139 @@
+package com.harsha.assignment.repository;
+
+import com.harsha.assignment.model.RideLifecycleEvent;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Shared lifecycle log in a Mongo capped collection: inserts are append-only and kept in insertion order, and
+// the oldest events are dropped once the collection reaches cappedBytes. The position is the append time,
+// indexed, so a replay is a range scan. Instances' clocks differ, so a first replay reaches back clockSkewMillis;
+// applying an event twice is harmless. Each event names the instance that appended it, whose positions never go
+// backwards, so later replays ask each instance already seen only for what follows its last event, and reach back
+// only for instances not seen yet. An instance silent for longer than the skew is forgotten.
+public class CappedCollectionRideLog implements RideLifecycleLog {
+    
+    private static final Logger log = LoggerFactory.getLogger(CappedCollectionRideLog.class);
+    private static final int DUPLICATE_KEY = 11000;
+    
+    private final MongoTemplate mongoTemplate;
+    private final long cappedBytes;
+    private final long clockSkewMillis;
+    // Only the writer thread appends and replays
+    private final String source = new ObjectId().toHexString();
+    private final Map<String, Long> sourcePositions = new HashMap<>();
+    private long lastPosition;
+    
+    public CappedCollectionRideLog(MongoTemplate mongoTemplate, long cappedBytes, long clockSkewMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.cappedBytes = cappedBytes;
+        this.clockSkewMillis = clockSkewMillis;
+    }
+    
+    @Override
+    public void open() {
+        if (!mongoTemplate.collectionExists(RideLifecycleEvent.class)) {
+            mongoTemplate.createCollection(RideLifecycleEvent.class, CollectionOptions.empty().capped().size(cappedBytes));
+            log.info("Created capped collection ride_lifecycle of {} bytes", cappedBytes);
+        }
+        mongoTemplate.indexOps(RideLifecycleEvent.class).createIndex(new Index("position", Sort.Direction.ASC));
+        // Lets a replay pass over events of instances it has already read without fetching them
+        mongoTemplate.indexOps(RideLifecycleEvent.class).createIndex(
+                new Index("position", Sort.Direction.ASC).on("source", Sort.Direction.ASC));
+    }
+    
+    // Ordered, so the capped collection keeps log order. Ids and positions are assigned once, so a batch retried
+    // after a lost acknowledgement skips the events that did land instead of failing on them forever.
+    @Override
+    public void append(List<RideLifecycleEvent> events) {
+        for (RideLifecycleEvent event : events) {
+            if (event.getId() == null) {
+                // Positions never go backwards on this instance, even if the clock does
+                lastPosition = Math.max(lastPosition, event.getRecordedAt());
+                event.setPosition(lastPosition);
+                event.setId(new ObjectId().toHexString());
+                event.setSource(source);
+            }
+        }
+        List<RideLifecycleEvent> remaining = events;
+        while (!remaining.isEmpty()) {
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, RideLifecycleEvent.class).insert(remaining).execute();
+                // Applied by the caller already; replays need not read these back
+                sourcePositions.put(source, lastPosition);
+                return;
+            } catch (BulkOperationException e) {
+                BulkWriteError error = e.getErrors().get(0);
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+                remaining = remaining.subList(error.getIndex() + 1, remaining.size());
+            }
+        }
+    }
+    
+    @Override
+    public long replayAfter(long position, Consumer<RideLifecycleEvent> consumer) {
+        long reachBack = position - clockSkewMillis;
+        sourcePositions.values().removeIf(last -> last < reachBack);
+        Query query = new Query();
+        if (position > 0) {
+            // Events at an instance's last position are read again, in case it appended more in that millisecond
+            List<Criteria> branches = new ArrayList<>();
+            sourcePositions.forEach((seen, last) ->
+                    branches.add(Criteria.where("source").is(seen).and("position").gte(last)));
+            branches.add(Criteria.where("source").nin(sourcePositions.keySet()).and("position").gte(reachBack));
+            query.addCriteria(new Criteria().orOperator(branches));
+        }
+        query.with(Sort.by("position"));
+        long replayed = 0;
+        try (Stream<RideLifecycleEvent> events = mongoTemplate.stream(query, RideLifecycleEvent.class)) {
+            Iterator<RideLifecycleEvent> iterator = events.iterator();
+            while (iterator.hasNext()) {
+                RideLifecycleEvent event = iterator.next();
+                if (event.getSource() != null) {
+                    sourcePositions.merge(event.getSource(), event.getPosition(), Math::max);
+                }
+                consumer.accept(event);
+                replayed++;
+            }
+        }
+        return replayed;
+    }
+    
+    // The capped collection drops its oldest events by itself
+    @Override
+    public void pruneBefore(long position) {
+    }
+    
+    // Every insert is acknowledged by Mongo
+    @Override
+    public void flush() {
+    }
+    
+    @Override
+    public boolean shared() {
+        return true;
+    }
+    
+    @Override
+    public void close() {
+    }
+}
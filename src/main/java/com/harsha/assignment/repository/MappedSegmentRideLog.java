@@ -0,0 +1,257 @@
+package com.harsha.assignment.repository;
+
+import com.harsha.assignment.model.RideLifecycleEvent;
+import com.harsha.assignment.util.RideCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Local lifecycle log in fixed-size, memory-mapped segment files named after their first position
+// (00000000000000000001.log, ...). Each record is [length][crc32c][event]; a zero length marks the end of a
+// segment, so appends are plain memory writes. On open, the last segment is scanned and anything after the
+// first torn or corrupt record is discarded. Durability is the OS page cache until flush() forces the segment.
+// Segments whose events all precede the oldest snapshot still kept are deleted by pruneBefore.
+public class MappedSegmentRideLog implements RideLifecycleLog {
+    
+    private static final Logger log = LoggerFactory.getLogger(MappedSegmentRideLog.class);
+    private static final String SUFFIX = ".log";
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+    
+    private final Path directory;
+    private final int segmentBytes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ByteBuffer scratch = ByteBuffer.allocate(MAX_RECORD_BYTES);
+    private final CRC32C crc = new CRC32C(); // writer's; replays use their own
+    
+    private MappedByteBuffer segment;
+    private long lastPosition;
+    
+    public MappedSegmentRideLog(Path directory, int segmentBytes) {
+        if (segmentBytes < MAX_RECORD_BYTES + HEADER_BYTES + 4) {
+            throw new IllegalArgumentException("segmentBytes must be at least " + (MAX_RECORD_BYTES + HEADER_BYTES + 4));
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+    }
+    
+    @Override
+    public void open() {
+        lock.lock();
+        try {
+            Files.createDirectories(directory);
+            List<Path> segments = segments();
+            if (segments.isEmpty()) {
+                segment = map(directory.resolve(name(1)));
+                lastPosition = 0;
+                return;
+            }
+            Path last = segments.get(segments.size() - 1);
+            segment = map(last);
+            lastPosition = firstPosition(last) - 1;
+            // Find the end of the valid records and clear whatever a crash left behind it
+            while (true) {
+                ByteBuffer record = nextRecord(segment, crc);
+                if (record == null) {
+                    break;
+                }
+                lastPosition = record.getLong(0);
+            }
+            int end = segment.position();
+            for (int i = end; i < Math.min(segmentBytes, end + MAX_RECORD_BYTES + HEADER_BYTES); i++) {
+                segment.put(i, (byte) 0);
+            }
+            segment.position(end);
+            log.info("Ride lifecycle log opened at {} with {} segments, last position {}",
+                    directory, segments.size(), lastPosition);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public void append(List<RideLifecycleEvent> events) {
+        lock.lock();
+        try {
+            for (RideLifecycleEvent event : events) {
+                if (event.getPosition() > 0 && event.getPosition() <= lastPosition) {
+                    // Written by an earlier attempt at this batch, which failed further on
+                    continue;
+                }
+                event.setPosition(lastPosition + 1);
+                scratch.clear();
+                try {
+                    RideCodec.writeEvent(scratch, event);
+                } catch (BufferOverflowException e) {
+                    // Not retryable; the ride itself is still in Mongo
+                    log.warn("Ride {} is larger than {} bytes; not logging its {} event",
+                            event.getRide().getId(), MAX_RECORD_BYTES, event.type());
+                    event.setPosition(0);
+                    continue;
+                }
+                scratch.flip();
+                // Keep room for the zero length that terminates the segment
+                if (segment.remaining() < HEADER_BYTES + scratch.remaining() + 4) {
+                    roll(event.getPosition());
+                }
+                crc.reset();
+                crc.update(scratch.duplicate());
+                segment.putInt(scratch.remaining());
+                segment.putInt((int) crc.getValue());
+                segment.put(scratch);
+                lastPosition = event.getPosition();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public long replayAfter(long position, Consumer<RideLifecycleEvent> consumer) {
+        long replayed = 0;
+        CRC32C checksum = new CRC32C();
+        try {
+            List<Path> segments = segments();
+            for (int i = 0; i < segments.size(); i++) {
+                // Skip segments that end before the requested position
+                if (i + 1 < segments.size() && firstPosition(segments.get(i + 1)) <= position + 1) {
+                    continue;
+                }
+                ByteBuffer buffer;
+                try (FileChannel channel = FileChannel.open(segments.get(i), StandardOpenOption.READ)) {
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
+                ByteBuffer record;
+                while ((record = nextRecord(buffer, checksum)) != null) {
+                    if (record.getLong(0) > position) {
+                        consumer.accept(RideCodec.readEvent(record));
+                        replayed++;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return replayed;
+    }
+    
+    // The segment being written is always kept
+    @Override
+    public void pruneBefore(long position) {
+        lock.lock();
+        try {
+            List<Path> segments = segments();
+            int pruned = 0;
+            while (pruned + 1 < segments.size() && firstPosition(segments.get(pruned + 1)) <= position + 1) {
+                Files.delete(segments.get(pruned));
+                pruned++;
+            }
+            if (pruned > 0) {
+                log.info("Pruned {} ride lifecycle log segments before position {}", pruned, position);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public void flush() {
+        lock.lock();
+        try {
+            if (segment != null) {
+                segment.force();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public boolean shared() {
+        return false;
+    }
+    
+    public long lastPosition() {
+        return lastPosition;
+    }
+    
+    @Override
+    public void close() {
+        flush();
+    }
+    
+    // Returns the next record's payload, or null at the end of the valid records; leaves the buffer after it
+    private static ByteBuffer nextRecord(ByteBuffer buffer, CRC32C crc) {
+        int start = buffer.position();
+        if (buffer.remaining() < HEADER_BYTES) {
+            return null;
+        }
+        int length = buffer.getInt(start);
+        if (length <= 0 || length > MAX_RECORD_BYTES || length > buffer.remaining() - HEADER_BYTES) {
+            return null;
+        }
+        ByteBuffer payload = buffer.slice(start + HEADER_BYTES, length);
+        crc.reset();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != buffer.getInt(start + 4)) {
+            return null;
+        }
+        buffer.position(start + HEADER_BYTES + length);
+        return payload;
+    }
+    
+    private void roll(long nextPosition) throws IOException {
+        segment.force();
+        segment = map(directory.resolve(name(nextPosition)));
+    }
+    
+    private MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+    
+    private List<Path> segments() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return new ArrayList<>(files
+                    .filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .toList());
+        }
+    }
+    
+    private static long firstPosition(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+    
+    private static String name(long firstPosition) {
+        return String.format("%020d%s", firstPosition, SUFFIX);
+    }
+}
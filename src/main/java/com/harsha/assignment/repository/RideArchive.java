@@ -0,0 +1,289 @@
+package com.harsha.assignment.repository;
+
+import com.harsha.assignment.model.Ride;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Cold storage for COMPLETED rides: one collection per month of createdAt (rides_archive_2026_03) holding the same
+// documents as rides, with only the history indexes. RideArchiver moves rides in; passenger and driver history reads
+// merge the partitions back in, so callers never see the split. A move interrupted between its insert and its delete
+// leaves a ride in both places until the next run, so merged reads drop repeated ids.
+@Repository
+public class RideArchive {
+    
+    private static final Logger log = LoggerFactory.getLogger(RideArchive.class);
+    
+    private static final String PREFIX = "rides_archive_";
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("uuuu_MM");
+    private static final Set<String> HISTORY_FIELDS = Set.of("userId", "driverId");
+    private static final int DUPLICATE_KEY = 11000;
+    
+    // History order: newest first, ties broken by id (Mongo sorts a missing createdAt lowest)
+    static final Comparator<Ride> NEWEST_FIRST = Comparator
+            .comparing(Ride::getCreatedAt, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparing(Ride::getId)
+            .reversed();
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    // Archived months, newest first
+    private final NavigableSet<YearMonth> partitions = new ConcurrentSkipListSet<>(Comparator.reverseOrder());
+    
+    // Picks up partitions created by other instances. Partitions are never forgotten here: one that was listed
+    // just before this instance created it must not disappear from reads.
+    @Scheduled(fixedDelayString = "${rides.archive.refresh-millis:60000}")
+    public void refreshPartitions() {
+        try {
+            for (String name : mongoTemplate.getCollectionNames()) {
+                if (name.startsWith(PREFIX)) {
+                    addPartition(name);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Could not list ride archive partitions: {}", e.getMessage());
+        }
+    }
+    
+    // True when reads on this field must include archived rides
+    public boolean holds(String field) {
+        return !partitions.isEmpty() && HISTORY_FIELDS.contains(field);
+    }
+    
+    public int partitionCount() {
+        return partitions.size();
+    }
+    
+    // Partition collection names, newest month first
+    public List<String> collections() {
+        return partitions.stream().map(RideArchive::collectionName).toList();
+    }
+    
+    // Partitions that can hold this ride. Ids are minted when a ride is created, so the id's timestamp gives the
+    // month of createdAt, give or take a month boundary.
+    public List<String> collectionsFor(String rideId) {
+        if (partitions.isEmpty() || rideId == null || !ObjectId.isValid(rideId)) {
+            return List.of();
+        }
+        YearMonth month = YearMonth.from(new ObjectId(rideId).getDate().toInstant().atZone(ZoneId.systemDefault()));
+        return Stream.of(month, month.minusMonths(1), month.plusMonths(1))
+                .filter(partitions::contains)
+                .map(RideArchive::collectionName)
+                .toList();
+    }
+    
+    // Copies the rides into their month partitions, then deletes them from rides. Re-inserting an already archived
+    // ride is ignored, so the next run finishes a move that was interrupted. Returns how many rides left rides.
+    public long archive(List<Ride> rides) {
+        Map<YearMonth, List<Ride>> byMonth = rides.stream().collect(Collectors.groupingBy(RideArchive::monthOf));
+        byMonth.forEach((month, monthRides) -> {
+            String collection = ensurePartition(month);
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Ride.class, collection).insert(monthRides).execute();
+            } catch (BulkOperationException e) {
+                if (!e.getErrors().stream().allMatch(error -> error.getCode() == DUPLICATE_KEY)) {
+                    throw e;
+                }
+            }
+        });
+        List<String> ids = rides.stream().map(Ride::getId).toList();
+        // Only completed rides are archived, and completed is final, so nothing can have changed them meanwhile
+        Query moved = new Query(Criteria.where("id").in(ids).and("status").is("COMPLETED"));
+        return mongoTemplate.remove(moved, Ride.class).getDeletedCount();
+    }
+    
+    public Optional<Ride> findById(String rideId) {
+        return findAllById(List.of(rideId)).stream().findFirst();
+    }
+    
+    // One query per partition that can hold any of the ids
+    public List<Ride> findAllById(Collection<String> rideIds) {
+        Map<String, List<String>> idsByCollection = new LinkedHashMap<>();
+        for (String rideId : rideIds) {
+            for (String collection : collectionsFor(rideId)) {
+                idsByCollection.computeIfAbsent(collection, c -> new ArrayList<>()).add(rideId);
+            }
+        }
+        List<Ride> rides = new ArrayList<>();
+        idsByCollection.forEach((collection, ids) ->
+                rides.addAll(mongoTemplate.find(new Query(Criteria.where("id").in(ids)), Ride.class, collection)));
+        return rides;
+    }
+    
+    // Adds every archived ride where field == value to rides read from the rides collection
+    public List<Ride> withArchived(List<Ride> rides, String field, String value) {
+        Map<String, Ride> merged = new LinkedHashMap<>();
+        rides.forEach(ride -> merged.put(ride.getId(), ride));
+        Query query = new Query(Criteria.where(field).is(value));
+        for (String collection : collections()) {
+            mongoTemplate.find(query, Ride.class, collection).forEach(ride -> merged.putIfAbsent(ride.getId(), ride));
+        }
+        return new ArrayList<>(merged.values());
+    }
+    
+    // Tops up a newest-first page read from rides with archived rides. Partitions cover disjoint months and are
+    // walked newest first, so the walk stops at the first month that is older than an already full page.
+    public List<Ride> mergePage(List<Ride> rides, String field, String value, LocalDateTime afterCreatedAt,
+                                String afterId, int limit) {
+        List<Ride> merged = new ArrayList<>(rides);
+        for (YearMonth month : partitions) {
+            if (afterCreatedAt != null && month.atDay(1).atStartOfDay().isAfter(afterCreatedAt)) {
+                continue;
+            }
+            if (merged.size() >= limit) {
+                merged.sort(NEWEST_FIRST);
+                LocalDateTime oldestKept = merged.get(limit - 1).getCreatedAt();
+                if (oldestKept != null && !oldestKept.isBefore(month.plusMonths(1).atDay(1).atStartOfDay())) {
+                    break;
+                }
+            }
+            Query query = RideRepositoryImpl.pageQuery(field, value, afterCreatedAt, afterId, limit, Sort.Direction.DESC);
+            merged.addAll(mongoTemplate.find(query, Ride.class, collectionName(month)));
+        }
+        merged.sort(NEWEST_FIRST);
+        List<Ride> page = new ArrayList<>(Math.min(limit, merged.size()));
+        String lastId = null;
+        for (Ride ride : merged) {
+            if (page.size() == limit) {
+                break;
+            }
+            if (!ride.getId().equals(lastId)) {
+                page.add(ride);
+                lastId = ride.getId();
+            }
+        }
+        return page;
+    }
+    
+    // Merges a newest-first stream from rides with every partition's; closing the result closes all the cursors
+    public Stream<Ride> mergeStream(Stream<Ride> rides, String field, String value) {
+        List<Stream<Ride>> streams = new ArrayList<>();
+        streams.add(rides);
+        try {
+            for (String collection : collections()) {
+                streams.add(mongoTemplate.stream(RideRepositoryImpl.historyQuery(field, value), Ride.class, collection));
+            }
+        } catch (RuntimeException e) {
+            streams.forEach(Stream::close);
+            throw e;
+        }
+        return merge(streams, NEWEST_FIRST);
+    }
+    
+    // K-way merge of streams that are each sorted by order; equal rides come out together, so repeats are dropped
+    static Stream<Ride> merge(List<Stream<Ride>> sorted, Comparator<Ride> order) {
+        PriorityQueue<Head> heads = new PriorityQueue<>(sorted.size(), Comparator.comparing(Head::ride, order));
+        for (Stream<Ride> stream : sorted) {
+            Iterator<Ride> rides = stream.iterator();
+            if (rides.hasNext()) {
+                heads.add(new Head(rides.next(), rides));
+            }
+        }
+        Iterator<Ride> merged = new Iterator<>() {
+            private Ride next;
+            private String lastId;
+            
+            @Override
+            public boolean hasNext() {
+                while (next == null && !heads.isEmpty()) {
+                    Head head = heads.poll();
+                    if (head.rest().hasNext()) {
+                        heads.add(new Head(head.rest().next(), head.rest()));
+                    }
+                    if (!head.ride().getId().equals(lastId)) {
+                        next = head.ride();
+                        lastId = next.getId();
+                    }
+                }
+                return next != null;
+            }
+            
+            @Override
+            public Ride next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Ride ride = next;
+                next = null;
+                return ride;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> sorted.forEach(Stream::close));
+    }
+    
+    private void addPartition(String collection) {
+        try {
+            partitions.add(YearMonth.parse(collection.substring(PREFIX.length()), MONTH));
+        } catch (DateTimeParseException e) {
+            log.warn("Ignoring {}: not a ride archive partition", collection);
+        }
+    }
+    
+    static String collectionName(YearMonth month) {
+        return PREFIX + MONTH.format(month);
+    }
+    
+    private static YearMonth monthOf(Ride ride) {
+        if (ride.getCreatedAt() != null) {
+            return YearMonth.from(ride.getCreatedAt());
+        }
+        return YearMonth.from(new ObjectId(ride.getId()).getDate().toInstant().atZone(ZoneId.systemDefault()));
+    }
+    
+    // Creating the history indexes also creates the collection; both are no-ops when another instance got there first
+    private String ensurePartition(YearMonth month) {
+        String collection = collectionName(month);
+        if (!partitions.contains(month)) {
+            IndexOperations indexOps = mongoTemplate.indexOps(collection);
+            for (String field : HISTORY_FIELDS) {
+                indexOps.createIndex(new Index()
+                        .on(field, Sort.Direction.ASC)
+                        .on("createdAt", Sort.Direction.ASC)
+                        .on("_id", Sort.Direction.ASC)
+                        .named(field + "_createdAt_id"));
+            }
+            partitions.add(month);
+        }
+        return collection;
+    }
+    
+    private record Head(Ride ride, Iterator<Ride> rest) {
+    }
+}
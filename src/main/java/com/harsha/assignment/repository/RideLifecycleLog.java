@@ -0,0 +1,34 @@
+package com.harsha.assignment.repository;
+
+import com.harsha.assignment.model.RideLifecycleEvent;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+// Append-only log of ride status changes (rides.event-log.store): memory-mapped segment files on the local
+// disk, or a Mongo capped collection shared by every instance. Positions only ever grow within one log.
+public interface RideLifecycleLog extends AutoCloseable {
+    
+    // Prepares storage (maps the last segment, creates the capped collection); called once before use
+    void open();
+    
+    // Appends in order and sets each event's position. A batch retried after a failure is not appended twice: the
+    // events that made it the first time are skipped.
+    void append(List<RideLifecycleEvent> events);
+    
+    // Replays, in log order, every event after the given position (0 for all); returns how many were replayed.
+    // A shared log may also replay a few events at or before the position, since positions come from clocks.
+    long replayAfter(long position, Consumer<RideLifecycleEvent> consumer);
+    
+    // Drops what a replay after the given position no longer needs; a log that bounds itself ignores it
+    void pruneBefore(long position);
+    
+    // Makes everything appended so far durable
+    void flush();
+    
+    // True when other instances append to the same log, so their events have to be read back
+    boolean shared();
+    
+    @Override
+    void close();
+}
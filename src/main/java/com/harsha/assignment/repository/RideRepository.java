@@ -7,7 +7,7 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface RideRepository extends MongoRepository<Ride, String> {
+public interface RideRepository extends MongoRepository<Ride, String>, RideRepositoryCustom {
     List<Ride> findByStatus(String status);
     List<Ride> findByUserId(String userId);
     List<Ride> findByDriverId(String driverId);
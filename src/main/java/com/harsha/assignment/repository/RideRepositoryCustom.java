@@ -0,0 +1,44 @@
+package com.harsha.assignment.repository;
+
+import com.harsha.assignment.model.Ride;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public interface RideRepositoryCustom {
+    // Atomically moves a REQUESTED ride to ACCEPTED; returns null if the ride was already taken or missing
+    Ride acceptIfRequested(String rideId, String driverId);
+    
+    // Atomically moves an ACCEPTED ride to COMPLETED for its passenger or driver; returns null otherwise
+    Ride completeIfAccepted(String rideId, String participantId);
+    
+    // Keyset page of rides where field == value, ordered by (createdAt, id); a null cursor starts from the beginning.
+    // Newest-first history pages (userId, driverId) include archived rides.
+    List<Ride> findPage(String field, String value, LocalDateTime afterCreatedAt, String afterId, int limit, Sort.Direction direction);
+    
+    // Cursor-backed stream of rides where field == value, newest first; callers must close it.
+    // History streams (userId, driverId) include archived rides.
+    Stream<Ride> streamBy(String field, String value);
+    
+    // Every ride where field == value, in no particular order; archived rides are included for userId and driverId
+    List<Ride> findAllBy(String field, String value);
+    
+    // One unordered bulkWrite; rides need their ids assigned. Returns error messages keyed by list index (empty if all inserted)
+    Map<Integer, String> insertUnordered(List<Ride> rides);
+    
+    // One unordered bulkWrite of conditional single-document updates; returns how many documents changed
+    long updateEachUnordered(List<Query> conditions, Update update);
+    
+    // As above, with its own update per condition (same index)
+    long updateEachUnordered(List<Query> conditions, List<Update> updates);
+    
+    // Which of rideIds were last changed by the bulk transition stamped with transitionId (RideTransitions.markedBy)
+    Set<String> findIdsMarkedBy(String transitionId, Collection<String> rideIds);
+}
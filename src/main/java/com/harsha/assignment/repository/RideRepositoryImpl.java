@@ -0,0 +1,125 @@
+package com.harsha.assignment.repository;
+
+import com.harsha.assignment.model.Ride;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class RideRepositoryImpl implements RideRepositoryCustom {
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private RideArchive rideArchive;
+    
+    @Override
+    public Ride acceptIfRequested(String rideId, String driverId) {
+        return mongoTemplate.findAndModify(RideTransitions.requested(rideId), RideTransitions.acceptBy(driverId),
+                FindAndModifyOptions.options().returnNew(true), Ride.class);
+    }
+    
+    @Override
+    public Ride completeIfAccepted(String rideId, String participantId) {
+        return mongoTemplate.findAndModify(RideTransitions.acceptedFor(rideId, participantId), RideTransitions.complete(),
+                FindAndModifyOptions.options().returnNew(true), Ride.class);
+    }
+    
+    @Override
+    public List<Ride> findPage(String field, String value, LocalDateTime afterCreatedAt, String afterId, int limit, Sort.Direction direction) {
+        List<Ride> rides = mongoTemplate.find(pageQuery(field, value, afterCreatedAt, afterId, limit, direction), Ride.class);
+        if (direction == Sort.Direction.DESC && rideArchive.holds(field)) {
+            return rideArchive.mergePage(rides, field, value, afterCreatedAt, afterId, limit);
+        }
+        return rides;
+    }
+    
+    @Override
+    public Stream<Ride> streamBy(String field, String value) {
+        Stream<Ride> rides = mongoTemplate.stream(historyQuery(field, value), Ride.class);
+        return rideArchive.holds(field) ? rideArchive.mergeStream(rides, field, value) : rides;
+    }
+    
+    @Override
+    public List<Ride> findAllBy(String field, String value) {
+        List<Ride> rides = mongoTemplate.find(new Query(Criteria.where(field).is(value)), Ride.class);
+        return rideArchive.holds(field) ? rideArchive.withArchived(rides, field, value) : rides;
+    }
+    
+    // Shared with the archive partitions, which are paged with the same keyset
+    static Query pageQuery(String field, String value, LocalDateTime afterCreatedAt, String afterId, int limit, Sort.Direction direction) {
+        Criteria criteria = Criteria.where(field).is(value);
+        if (afterCreatedAt != null) {
+            boolean descending = direction == Sort.Direction.DESC;
+            Criteria beyondTime = descending
+                    ? Criteria.where("createdAt").lt(afterCreatedAt)
+                    : Criteria.where("createdAt").gt(afterCreatedAt);
+            Criteria sameTimeBeyondId = descending
+                    ? Criteria.where("createdAt").is(afterCreatedAt).and("id").lt(afterId)
+                    : Criteria.where("createdAt").is(afterCreatedAt).and("id").gt(afterId);
+            criteria = new Criteria().andOperator(criteria, new Criteria().orOperator(beyondTime, sameTimeBeyondId));
+        }
+        return new Query(criteria)
+                .with(Sort.by(direction, "createdAt", "id"))
+                .limit(limit);
+    }
+    
+    // Rides where field == value, newest first
+    static Query historyQuery(String field, String value) {
+        return new Query(Criteria.where(field).is(value))
+                .with(Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+    }
+    
+    @Override
+    public Map<Integer, String> insertUnordered(List<Ride> rides) {
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Ride.class).insert(rides).execute();
+            return Map.of();
+        } catch (BulkOperationException e) {
+            // Unordered: every other document was still written
+            Map<Integer, String> failures = new HashMap<>();
+            e.getErrors().forEach(error -> failures.put(error.getIndex(), error.getMessage()));
+            return failures;
+        }
+    }
+    
+    @Override
+    public long updateEachUnordered(List<Query> conditions, Update update) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Ride.class);
+        conditions.forEach(condition -> bulk.updateOne(condition, update));
+        return bulk.execute().getModifiedCount();
+    }
+    
+    @Override
+    public long updateEachUnordered(List<Query> conditions, List<Update> updates) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Ride.class);
+        for (int i = 0; i < conditions.size(); i++) {
+            bulk.updateOne(conditions.get(i), updates.get(i));
+        }
+        return bulk.execute().getModifiedCount();
+    }
+    
+    @Override
+    public Set<String> findIdsMarkedBy(String transitionId, Collection<String> rideIds) {
+        Query marked = new Query(Criteria.where("_id").in(rideIds).and(RideTransitions.MARKER).is(transitionId));
+        marked.fields().include("_id");
+        return mongoTemplate.find(marked, Ride.class).stream()
+                .map(Ride::getId)
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,53 @@
+package com.harsha.assignment.repository;
+
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+// Conditional status transitions as query/update pairs, shared by the blocking and reactive repositories
+public final class RideTransitions {
+    
+    private RideTransitions() {
+    }
+    
+    // REQUESTED -> ACCEPTED
+    public static Query requested(String rideId) {
+        return new Query(Criteria.where("_id").is(rideId).and("status").is("REQUESTED"));
+    }
+    
+    public static Update acceptBy(String driverId) {
+        return new Update()
+                .set("status", "ACCEPTED")
+                .set("driverId", driverId);
+    }
+    
+    // ACCEPTED -> COMPLETED, only for the ride's passenger or driver
+    public static Query acceptedFor(String rideId, String participantId) {
+        return new Query(Criteria.where("_id").is(rideId)
+                .and("status").is("ACCEPTED")
+                .orOperator(Criteria.where("userId").is(participantId), Criteria.where("driverId").is(participantId)));
+    }
+    
+    public static Update complete() {
+        return new Update().set("status", "COMPLETED");
+    }
+    
+    // REQUESTED -> CANCELLED, only for the passenger who requested it
+    public static Query requestedBy(String rideId, String userId) {
+        return new Query(Criteria.where("_id").is(rideId)
+                .and("status").is("REQUESTED")
+                .and("userId").is(userId));
+    }
+    
+    public static Update cancel() {
+        return new Update().set("status", "CANCELLED");
+    }
+    
+    // Stamps a bulk transition's update with its own marker, so a re-read can tell the rides this batch changed
+    // from rides a concurrent request moved to the same status. The field is not mapped on Ride.
+    public static final String MARKER = "transitionId";
+    
+    public static Update markedBy(Update update, String transitionId) {
+        return update.set(MARKER, transitionId);
+    }
+}
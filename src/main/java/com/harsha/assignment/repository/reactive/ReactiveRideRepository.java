@@ -0,0 +1,13 @@
+package com.harsha.assignment.repository.reactive;
+
+import com.harsha.assignment.model.Ride;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface ReactiveRideRepository extends ReactiveMongoRepository<Ride, String> {
+    Flux<Ride> findByStatus(String status);
+    Flux<Ride> findByUserId(String userId);
+    Flux<Ride> findByDriverId(String driverId);
+}
@@ -0,0 +1,12 @@
+package com.harsha.assignment.repository.reactive;
+
+import com.harsha.assignment.model.User;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface ReactiveUserRepository extends ReactiveMongoRepository<User, String> {
+    Mono<User> findByUsername(String username);
+    Mono<Boolean> existsByUsername(String username);
+}
@@ -2,33 +2,46 @@ package com.harsha.assignment.service;
 
 import com.harsha.assignment.dto.AuthResponse;
 import com.harsha.assignment.dto.LoginRequest;
+import com.harsha.assignment.dto.RefreshRequest;
 import com.harsha.assignment.dto.RegisterRequest;
 import com.harsha.assignment.exception.BadRequestException;
 import com.harsha.assignment.exception.NotFoundException;
 import com.harsha.assignment.model.User;
 import com.harsha.assignment.repository.UserRepository;
 import com.harsha.assignment.util.JwtUtil;
+import com.harsha.assignment.util.TokenClaims;
+import io.jsonwebtoken.JwtException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 @Service
 public class AuthService {
     
+    private static final Logger log = LoggerFactory.getLogger(AuthService.class);
+    
     @Autowired
     private UserRepository userRepository;
     
+    // All hashing goes through the bounded hashing pool; a full queue surfaces as 429
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
     
     @Autowired
     private JwtUtil jwtUtil;
     
+    @Autowired
+    private UserCache userCache;
+    
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+    
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+    
     public AuthResponse register(RegisterRequest request) {
-        // Validate role
-        if (!request.getRole().equals("ROLE_USER") && !request.getRole().equals("ROLE_DRIVER")) {
-            throw new BadRequestException("Role must be either ROLE_USER or ROLE_DRIVER");
-        }
+        requireKnownRole(request.getRole());
         
         // Check if username already exists
         if (userRepository.existsByUsername(request.getUsername())) {
@@ -38,15 +51,13 @@ public class AuthService {
         // Create new user
         User user = new User();
         user.setUsername(request.getUsername());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHasher.encode(request.getPassword()));
         user.setRole(request.getRole());
         
         userRepository.save(user);
+        userCache.invalidate(user.getUsername());
         
-        // Generate JWT token
-        String token = jwtUtil.generateToken(user.getUsername(), user.getRole());
-        
-        return new AuthResponse(token, user.getUsername(), user.getRole());
+        return issueTokens(user);
     }
     
     public AuthResponse login(LoginRequest request) {
@@ -55,13 +66,68 @@ public class AuthService {
                 .orElseThrow(() -> new NotFoundException("User not found"));
         
         // Verify password
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordHasher.matches(request.getPassword(), user.getPassword())) {
             throw new BadRequestException("Invalid credentials");
         }
         
-        // Generate JWT token
-        String token = jwtUtil.generateToken(user.getUsername(), user.getRole());
+        if (passwordHasher.needsRehash(user.getPassword())) {
+            rehashInBackground(user, request.getPassword());
+        }
         
-        return new AuthResponse(token, user.getUsername(), user.getRole());
+        return issueTokens(user);
+    }
+    
+    // Exchanges a refresh token for a new access/refresh pair; the old refresh token stops working
+    public AuthResponse refresh(RefreshRequest request) {
+        String userId = refreshTokenService.consume(request.getRefreshToken());
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new BadRequestException("Invalid refresh token"));
+        return issueTokens(user);
+    }
+    
+    // Revokes the access token (by jti, until it would have expired) and the refresh token, whichever are given
+    public void logout(String accessToken, String refreshToken) {
+        if (accessToken != null) {
+            try {
+                TokenClaims claims = jwtUtil.parseToken(accessToken);
+                if (claims.tokenId() != null) {
+                    tokenRevocationList.revoke(claims.tokenId(), claims.expiration());
+                }
+            } catch (JwtException e) {
+                // Already expired or invalid: nothing to revoke
+            }
+        }
+        if (refreshToken != null) {
+            refreshTokenService.revoke(refreshToken);
+        }
+    }
+    
+    // Shared with ReactiveAuthService
+    AuthResponse issueTokens(User user) {
+        String token = jwtUtil.generateToken(user.getId(), user.getUsername(), user.getRole());
+        String refreshToken = refreshTokenService.issue(user.getId());
+        return new AuthResponse(token, refreshToken, user.getUsername(), user.getRole());
+    }
+    
+    // Upgrades the stored hash to the current encoder now that we know the raw password.
+    // Best effort: if the pool is busy or the save fails, the next login tries again.
+    private void rehashInBackground(User user, String rawPassword) {
+        passwordHasher.encodeAsync(rawPassword)
+                .thenAccept(encoded -> {
+                    user.setPassword(encoded);
+                    userRepository.save(user);
+                    userCache.invalidate(user.getUsername());
+                })
+                .exceptionally(e -> {
+                    log.debug("Skipped password rehash for {}: {}", user.getUsername(), e.getMessage());
+                    return null;
+                });
+    }
+    
+    // Validate role (shared with ReactiveAuthService)
+    static void requireKnownRole(String role) {
+        if (!role.equals("ROLE_USER") && !role.equals("ROLE_DRIVER")) {
+            throw new BadRequestException("Role must be either ROLE_USER or ROLE_DRIVER");
+        }
     }
 }
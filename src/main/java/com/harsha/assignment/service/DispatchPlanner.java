@@ -0,0 +1,292 @@
+package com.harsha.assignment.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+// The assignment step of RideDispatcher, free of Spring and Mongo so it can be simulated on its own.
+// Takes one micro-batch of open requests (oldest first) that have at least one available driver within the
+// pickup radius, and pairs them with drivers to minimize total pickup distance. "hungarian" solves each batch
+// exactly (most pairs first, then least total distance); "greedy" takes the closest remaining pair repeatedly.
+public final class DispatchPlanner {
+    
+    public enum Algorithm { GREEDY, HUNGARIAN }
+    
+    public record Request(String rideId, double latitude, double longitude) {
+    }
+    
+    public record Driver(String driverId, double latitude, double longitude) {
+    }
+    
+    public record Assignment(String rideId, String driverId, double pickupKm) {
+    }
+    
+    private static final double UNREACHABLE = 1e9;
+    private static final int MAX_CANDIDATES = 16;
+    
+    private final double maxPickupKm;
+    private final int batchSize;
+    private final Algorithm algorithm;
+    
+    public DispatchPlanner(double maxPickupKm, int batchSize, Algorithm algorithm) {
+        this.maxPickupKm = maxPickupKm;
+        this.batchSize = batchSize;
+        this.algorithm = algorithm;
+    }
+    
+    public List<Assignment> plan(List<Request> oldestFirst, List<Driver> drivers) {
+        if (oldestFirst.isEmpty() || drivers.isEmpty()) {
+            return List.of();
+        }
+        DriverGrid grid = new DriverGrid(drivers, maxPickupKm);
+        
+        // Requests nobody can reach are skipped, so they never hold back newer ones behind them
+        List<Request> batch = new ArrayList<>(batchSize);
+        List<int[]> candidates = new ArrayList<>(batchSize);
+        List<double[]> distances = new ArrayList<>(batchSize);
+        Nearest nearest = new Nearest(MAX_CANDIDATES);
+        for (Request request : oldestFirst) {
+            nearest.clear();
+            grid.forEachNear(request.latitude(), request.longitude(), index -> {
+                Driver driver = drivers.get(index);
+                double km = NearbyRideIndex.distanceKm(request.latitude(), request.longitude(),
+                        driver.latitude(), driver.longitude());
+                if (km <= maxPickupKm) {
+                    nearest.offer(index, km);
+                }
+            });
+            if (nearest.size == 0) {
+                continue;
+            }
+            batch.add(request);
+            candidates.add(Arrays.copyOf(nearest.indices, nearest.size));
+            distances.add(Arrays.copyOf(nearest.km, nearest.size));
+            if (batch.size() == batchSize) {
+                break;
+            }
+        }
+        if (batch.isEmpty()) {
+            return List.of();
+        }
+        return algorithm == Algorithm.HUNGARIAN
+                ? hungarian(batch, drivers, candidates, distances)
+                : greedy(batch, drivers, candidates, distances);
+    }
+    
+    private static List<Assignment> greedy(List<Request> batch, List<Driver> drivers,
+                                           List<int[]> candidates, List<double[]> distances) {
+        List<long[]> pairs = new ArrayList<>();
+        for (int r = 0; r < batch.size(); r++) {
+            for (int c = 0; c < candidates.get(r).length; c++) {
+                pairs.add(new long[] {Double.doubleToLongBits(distances.get(r)[c]), r, candidates.get(r)[c]});
+            }
+        }
+        pairs.sort((a, b) -> Long.compare(a[0], b[0]));
+        boolean[] rideTaken = new boolean[batch.size()];
+        Set<Integer> driverTaken = new HashSet<>();
+        List<Assignment> assignments = new ArrayList<>();
+        for (long[] pair : pairs) {
+            int r = (int) pair[1];
+            int d = (int) pair[2];
+            if (rideTaken[r] || !driverTaken.add(d)) {
+                continue;
+            }
+            rideTaken[r] = true;
+            assignments.add(new Assignment(batch.get(r).rideId(), drivers.get(d).driverId(),
+                    Double.longBitsToDouble(pair[0])));
+        }
+        return assignments;
+    }
+    
+    private static List<Assignment> hungarian(List<Request> batch, List<Driver> drivers,
+                                              List<int[]> candidates, List<double[]> distances) {
+        // Only drivers that can reach someone in the batch take part
+        Map<Integer, Integer> column = new HashMap<>();
+        List<Integer> driverOfColumn = new ArrayList<>();
+        for (int[] reachable : candidates) {
+            for (int d : reachable) {
+                if (column.putIfAbsent(d, column.size()) == null) {
+                    driverOfColumn.add(d);
+                }
+            }
+        }
+        int rides = batch.size();
+        int columns = driverOfColumn.size();
+        double[][] cost = new double[rides][columns];
+        for (double[] row : cost) {
+            Arrays.fill(row, UNREACHABLE);
+        }
+        for (int r = 0; r < rides; r++) {
+            for (int c = 0; c < candidates.get(r).length; c++) {
+                cost[r][column.get(candidates.get(r)[c])] = distances.get(r)[c];
+            }
+        }
+        
+        List<Assignment> assignments = new ArrayList<>();
+        if (rides <= columns) {
+            int[] match = solve(cost);
+            for (int r = 0; r < rides; r++) {
+                if (cost[r][match[r]] < UNREACHABLE) {
+                    assignments.add(new Assignment(batch.get(r).rideId(),
+                            drivers.get(driverOfColumn.get(match[r])).driverId(), cost[r][match[r]]));
+                }
+            }
+        } else {
+            double[][] transposed = new double[columns][rides];
+            for (int r = 0; r < rides; r++) {
+                for (int c = 0; c < columns; c++) {
+                    transposed[c][r] = cost[r][c];
+                }
+            }
+            int[] match = solve(transposed);
+            for (int c = 0; c < columns; c++) {
+                if (transposed[c][match[c]] < UNREACHABLE) {
+                    assignments.add(new Assignment(batch.get(match[c]).rideId(),
+                            drivers.get(driverOfColumn.get(c)).driverId(), transposed[c][match[c]]));
+                }
+            }
+        }
+        return assignments;
+    }
+    
+    // Minimum-cost assignment of every row to a distinct column (rows <= columns), O(rows^2 * columns).
+    // Shortest augmenting paths with potentials; returns the column chosen for each row.
+    static int[] solve(double[][] cost) {
+        int n = cost.length;
+        int m = cost[0].length;
+        double[] u = new double[n + 1];
+        double[] v = new double[m + 1];
+        int[] rowOfColumn = new int[m + 1];
+        int[] way = new int[m + 1];
+        double[] minSlack = new double[m + 1];
+        boolean[] used = new boolean[m + 1];
+        for (int i = 1; i <= n; i++) {
+            rowOfColumn[0] = i;
+            int j0 = 0;
+            Arrays.fill(minSlack, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+            do {
+                used[j0] = true;
+                int i0 = rowOfColumn[j0];
+                double delta = Double.POSITIVE_INFINITY;
+                int j1 = 0;
+                for (int j = 1; j <= m; j++) {
+                    if (used[j]) {
+                        continue;
+                    }
+                    double slack = cost[i0 - 1][j - 1] - u[i0] - v[j];
+                    if (slack < minSlack[j]) {
+                        minSlack[j] = slack;
+                        way[j] = j0;
+                    }
+                    if (minSlack[j] < delta) {
+                        delta = minSlack[j];
+                        j1 = j;
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[rowOfColumn[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minSlack[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (rowOfColumn[j0] != 0);
+            do {
+                int j1 = way[j0];
+                rowOfColumn[j0] = rowOfColumn[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+        int[] columnOfRow = new int[n];
+        for (int j = 1; j <= m; j++) {
+            if (rowOfColumn[j] != 0) {
+                columnOfRow[rowOfColumn[j] - 1] = j - 1;
+            }
+        }
+        return columnOfRow;
+    }
+    
+    // The closest few drivers seen so far for one request, kept sorted by distance
+    private static final class Nearest {
+        
+        private final int[] indices;
+        private final double[] km;
+        private int size;
+        
+        Nearest(int capacity) {
+            indices = new int[capacity];
+            km = new double[capacity];
+        }
+        
+        void clear() {
+            size = 0;
+        }
+        
+        void offer(int index, double distanceKm) {
+            if (size == indices.length && distanceKm >= km[size - 1]) {
+                return;
+            }
+            int i = size < indices.length ? size++ : size - 1;
+            for (; i > 0 && km[i - 1] > distanceKm; i--) {
+                indices[i] = indices[i - 1];
+                km[i] = km[i - 1];
+            }
+            indices[i] = index;
+            km[i] = distanceKm;
+        }
+    }
+    
+    // Drivers bucketed into cells at least one pickup radius tall, with the cell geometry of NearbyRideIndex: a
+    // whole number of cells around the globe, so searches wrap across the antimeridian, and spans on the same sphere
+    private static final class DriverGrid {
+        
+        private final double radiusKm;
+        private final double cellDegrees;
+        private final int cellsAround;
+        private final Map<Long, List<Integer>> cells = new HashMap<>();
+        
+        DriverGrid(List<Driver> drivers, double radiusKm) {
+            this.radiusKm = radiusKm;
+            this.cellsAround = Math.max(1, (int) Math.floor(360.0 / NearbyRideIndex.latSpan(radiusKm)));
+            this.cellDegrees = 360.0 / cellsAround;
+            for (int i = 0; i < drivers.size(); i++) {
+                Driver driver = drivers.get(i);
+                cells.computeIfAbsent(NearbyRideIndex.pack(cell(driver.latitude()), wrap(cell(driver.longitude()))),
+                        k -> new ArrayList<>()).add(i);
+            }
+        }
+        
+        void forEachNear(double latitude, double longitude, IntConsumer action) {
+            double latSpan = NearbyRideIndex.latSpan(radiusKm);
+            double lngSpan = NearbyRideIndex.lngSpan(latitude, radiusKm);
+            int minLatCell = cell(Math.max(latitude - latSpan, -90.0));
+            int maxLatCell = cell(Math.min(latitude + latSpan, 90.0));
+            int minLngCell = cell(longitude - lngSpan);
+            int maxLngCell = Math.min(cell(longitude + lngSpan), minLngCell + cellsAround - 1);
+            for (int latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+                for (int lngCell = minLngCell; lngCell <= maxLngCell; lngCell++) {
+                    List<Integer> bucket = cells.get(NearbyRideIndex.pack(latCell, wrap(lngCell)));
+                    if (bucket != null) {
+                        bucket.forEach(action::accept);
+                    }
+                }
+            }
+        }
+        
+        private int cell(double degrees) {
+            return NearbyRideIndex.cellIndex(degrees, cellDegrees);
+        }
+        
+        private int wrap(int lngCell) {
+            return NearbyRideIndex.wrapLngCell(lngCell, cellDegrees);
+        }
+    }
+}
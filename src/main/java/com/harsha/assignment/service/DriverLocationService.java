@@ -0,0 +1,231 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.model.DriverLocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Driver GPS pings and availability. A ping only replaces the driver's entry in an in-memory latest-position map
+// and marks it dirty; a periodic flush writes every dirty driver's newest state to Mongo in one unordered
+// bulkWrite, so a driver pinging every few seconds costs at most one write per flush however often it pings.
+// A driver with no entry (after a restart, or evicted as stale) gets one rebuilt from the stored document, so a
+// ping without availability or an availability change without a position keeps the other half.
+@Service
+public class DriverLocationService {
+    
+    private static final Logger log = LoggerFactory.getLogger(DriverLocationService.class);
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Value("${drivers.location.flush-batch-size:1000}")
+    private int flushBatchSize;
+    
+    @Value("${drivers.location.stale-millis:300000}")
+    private long staleMillis;
+    
+    private final Map<String, DriverPosition> latest = new ConcurrentHashMap<>();
+    // Drivers whose newest state is not in Mongo yet; a later ping simply replaces the pending one
+    private final Map<String, DriverPosition> dirty = new ConcurrentHashMap<>();
+    
+    private final LongAdder pingsReceived = new LongAdder();
+    private final LongAdder pingsCoalesced = new LongAdder();
+    private final LongAdder positionsWritten = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+    private volatile long lastFlushMillis;
+    private volatile long lastFlushDurationMillis;
+    
+    public void reportLocation(String driverId, double latitude, double longitude, Boolean available) {
+        long now = System.currentTimeMillis();
+        DriverPosition seed = available == null ? seed(driverId) : null;
+        latest.compute(driverId, (id, previous) -> {
+            DriverPosition known = previous != null ? previous : seed;
+            return markDirty(id, new DriverPosition(latitude, longitude,
+                    available != null ? available : known != null ? known.available() : null, now));
+        });
+        pingsReceived.increment();
+    }
+    
+    public void setAvailability(String driverId, boolean available) {
+        long now = System.currentTimeMillis();
+        DriverPosition seed = seed(driverId);
+        latest.compute(driverId, (id, previous) -> {
+            DriverPosition known = previous != null && previous.hasLocation() ? previous : seed;
+            return markDirty(id, known != null
+                    ? new DriverPosition(known.latitude(), known.longitude(), available, now)
+                    : new DriverPosition(null, null, available, now));
+        });
+    }
+    
+    // Takes an on-duty driver off duty in one step, so a dispatch and a manual accept never both find the driver
+    // free. Returns the entry the claim wrote, or null if this instance did not have the driver on duty; hand it to
+    // release if the ride is not taken after all.
+    public DriverPosition claim(String driverId) {
+        DriverPosition[] claimed = new DriverPosition[1];
+        latest.computeIfPresent(driverId, (id, previous) -> {
+            if (!previous.isAvailable()) {
+                return previous;
+            }
+            claimed[0] = markDirty(id, new DriverPosition(previous.latitude(), previous.longitude(), false,
+                    System.currentTimeMillis()));
+            return claimed[0];
+        });
+        return claimed[0];
+    }
+    
+    // Puts a claimed driver back on duty, unless anything (a ping with availability, another claim) changed the
+    // entry since
+    public void release(String driverId, DriverPosition claim) {
+        latest.computeIfPresent(driverId, (id, current) -> current != claim ? current
+                : markDirty(id, new DriverPosition(current.latitude(), current.longitude(), true,
+                        System.currentTimeMillis())));
+    }
+    
+    // Newest known state: memory first, then the last flushed copy for drivers this instance has not heard from
+    public Optional<DriverPosition> findPosition(String driverId) {
+        DriverPosition position = latest.get(driverId);
+        return position != null ? Optional.of(position) : Optional.ofNullable(stored(driverId));
+    }
+    
+    // On-duty drivers with a known position, as reported to this instance
+    public List<DispatchPlanner.Driver> availableDrivers() {
+        List<DispatchPlanner.Driver> drivers = new ArrayList<>();
+        latest.forEach((driverId, position) -> {
+            if (position.isAvailable() && position.hasLocation()) {
+                drivers.add(new DispatchPlanner.Driver(driverId, position.latitude(), position.longitude()));
+            }
+        });
+        return drivers;
+    }
+    
+    @Scheduled(fixedDelayString = "${drivers.location.flush-millis:1000}")
+    public void flush() {
+        long started = System.currentTimeMillis();
+        List<String> driverIds = new ArrayList<>(flushBatchSize);
+        List<DriverPosition> positions = new ArrayList<>(flushBatchSize);
+        for (String driverId : dirty.keySet()) {
+            DriverPosition position = dirty.remove(driverId);
+            if (position == null) {
+                continue;
+            }
+            driverIds.add(driverId);
+            positions.add(position);
+            if (driverIds.size() == flushBatchSize) {
+                write(driverIds, positions);
+                driverIds.clear();
+                positions.clear();
+            }
+        }
+        if (!driverIds.isEmpty()) {
+            write(driverIds, positions);
+        }
+        
+        // Drivers that went quiet are served from Mongo again, so memory tracks only active drivers
+        latest.entrySet().removeIf(entry -> started - entry.getValue().recordedAtMillis() > staleMillis
+                && !dirty.containsKey(entry.getKey()));
+        lastFlushMillis = started;
+        lastFlushDurationMillis = System.currentTimeMillis() - started;
+    }
+    
+    public long pingsReceived() {
+        return pingsReceived.sum();
+    }
+    
+    // Pings that replaced a not-yet-flushed one and so never cost a write
+    public long pingsCoalesced() {
+        return pingsCoalesced.sum();
+    }
+    
+    public long positionsWritten() {
+        return positionsWritten.sum();
+    }
+    
+    public long flushFailures() {
+        return flushFailures.sum();
+    }
+    
+    public int pendingWrites() {
+        return dirty.size();
+    }
+    
+    public int trackedDrivers() {
+        return latest.size();
+    }
+    
+    public long lastFlushMillis() {
+        return lastFlushMillis;
+    }
+    
+    public long lastFlushDurationMillis() {
+        return lastFlushDurationMillis;
+    }
+    
+    // Stored state to rebuild a missing entry from, read outside latest.compute so no Mongo call holds the map's
+    // lock; null when the driver already has an entry, or never had a document
+    private DriverPosition seed(String driverId) {
+        return latest.containsKey(driverId) ? null : stored(driverId);
+    }
+    
+    private DriverPosition stored(String driverId) {
+        DriverLocation stored = mongoTemplate.findById(driverId, DriverLocation.class);
+        if (stored == null) {
+            return null;
+        }
+        return new DriverPosition(
+                stored.getLocation() != null ? stored.getLocation().getY() : null,
+                stored.getLocation() != null ? stored.getLocation().getX() : null,
+                stored.getAvailable(),
+                stored.getUpdatedAt() != null ? stored.getUpdatedAt().getTime() : 0);
+    }
+    
+    // Called inside latest.compute, so concurrent pings of one driver reach the dirty map in the same order
+    private DriverPosition markDirty(String driverId, DriverPosition position) {
+        if (dirty.put(driverId, position) != null) {
+            pingsCoalesced.increment();
+        }
+        return position;
+    }
+    
+    private void write(List<String> driverIds, List<DriverPosition> positions) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, DriverLocation.class);
+        for (int i = 0; i < driverIds.size(); i++) {
+            DriverPosition position = positions.get(i);
+            Update update = Update.update("updatedAt", new Date(position.recordedAtMillis()));
+            if (position.hasLocation()) {
+                update.set("location", new GeoJsonPoint(position.longitude(), position.latitude()));
+            }
+            if (position.available() != null) {
+                update.set("available", position.available());
+            }
+            bulk.upsert(Query.query(Criteria.where("_id").is(driverIds.get(i))), update);
+        }
+        try {
+            bulk.execute();
+            positionsWritten.add(driverIds.size());
+        } catch (Exception e) {
+            flushFailures.increment();
+            log.warn("Could not flush {} driver locations: {}", driverIds.size(), e.getMessage());
+            // Retry on the next flush unless a newer ping has arrived in the meantime
+            for (int i = 0; i < driverIds.size(); i++) {
+                dirty.putIfAbsent(driverIds.get(i), positions.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.harsha.assignment.service;
+
+// A driver's latest reported state as held in memory. Latitude/longitude are null until the first ping,
+// availability until the driver sets it.
+public record DriverPosition(Double latitude, Double longitude, Boolean available, long recordedAtMillis) {
+    
+    public boolean hasLocation() {
+        return latitude != null && longitude != null;
+    }
+    
+    public boolean isAvailable() {
+        return Boolean.TRUE.equals(available);
+    }
+}
@@ -0,0 +1,195 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.dto.RideResponse;
+import com.harsha.assignment.exception.BadRequestException;
+import com.harsha.assignment.exception.ConflictException;
+import com.harsha.assignment.model.IdempotencyRecord;
+import com.harsha.assignment.util.TokenHashes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Replays the original response for requests retried with the same Idempotency-Key. Completed responses are kept
+// in a bounded local cache with a TTL, backed by the idempotency_keys collection, so a replay never writes.
+// Concurrent duplicates on this instance wait for the first one; on other instances they see its claim and get 409.
+@Component
+public class IdempotencyStore {
+    
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+    
+    static final int MAX_KEY_LENGTH = 255;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Value("${rides.idempotency.ttl-millis:86400000}")
+    private long ttlMillis;
+    
+    @Value("${rides.idempotency.claim-millis:30000}")
+    private long claimMillis;
+    
+    @Value("${rides.idempotency.cache-size:10000}")
+    private int maxSize;
+    
+    // Least recently used first: access-ordered, so a full cache drops the entry replayed longest ago in O(1).
+    // Guarded by lock; ReentrantLock rather than synchronized so virtual threads never pin on it.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Entry> completed = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, IdempotencyStore.Entry> eldest) {
+            return size() > maxSize;
+        }
+    };
+    private final Map<String, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+    
+    // Runs action at most once per (user, operation, key); fingerprint identifies the request body it was sent with
+    public RideResponse execute(String userId, String operation, String key, String fingerprint,
+                                Supplier<RideResponse> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String id = TokenHashes.sha256(userId + ':' + operation + ':' + key);
+        String requestHash = TokenHashes.sha256(fingerprint);
+        
+        Entry cached = cached(id, System.currentTimeMillis());
+        if (cached != null) {
+            return cached.replay(requestHash);
+        }
+        
+        CompletableFuture<Entry> mine = new CompletableFuture<>();
+        CompletableFuture<Entry> running = inFlight.putIfAbsent(id, mine);
+        if (running != null) {
+            return await(running).replay(requestHash);
+        }
+        try {
+            Entry entry = resolve(id, requestHash, action);
+            mine.complete(entry);
+            return entry.replay(requestHash);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, mine);
+        }
+    }
+    
+    // Stored outcome if there is one; otherwise claims the key, runs the action and records its response
+    private Entry resolve(String id, String requestHash, Supplier<RideResponse> action) {
+        IdempotencyRecord existing = mongoTemplate.findById(id, IdempotencyRecord.class);
+        if (existing == null) {
+            long now = System.currentTimeMillis();
+            try {
+                mongoTemplate.insert(new IdempotencyRecord(id, requestHash, null, new Date(now + claimMillis)));
+            } catch (DuplicateKeyException e) {
+                existing = mongoTemplate.findById(id, IdempotencyRecord.class);
+                if (existing == null) {
+                    throw inProgress();
+                }
+            }
+        }
+        if (existing != null) {
+            if (existing.getResponse() == null) {
+                throw inProgress();
+            }
+            return remember(id, new Entry(existing.getRequestHash(), existing.getResponse(),
+                    existing.getExpiresAt().getTime()));
+        }
+        
+        RideResponse response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            // Failed requests are not replayed; release the claim so the client can retry
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(id).and("response").is(null)),
+                    IdempotencyRecord.class);
+            throw e;
+        }
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        Entry entry = remember(id, new Entry(requestHash, response, expiresAt));
+        try {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(id)),
+                    Update.update("response", response).set("expiresAt", new Date(expiresAt)),
+                    IdempotencyRecord.class);
+        } catch (RuntimeException e) {
+            // The action already happened, so the claim stays: releasing it would let a retry do it again. Retries
+            // here replay the cached entry; elsewhere they get 409 until the claim expires.
+            log.warn("Could not store the response for an idempotent request: {}", e.getMessage());
+        }
+        return entry;
+    }
+    
+    // Unexpired cached entry, or null; an expired one is dropped on the way
+    private Entry cached(String id, long now) {
+        lock.lock();
+        try {
+            Entry entry = completed.get(id);
+            if (entry != null && entry.expiresAt() <= now) {
+                completed.remove(id);
+                return null;
+            }
+            return entry;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private Entry remember(String id, Entry entry) {
+        lock.lock();
+        try {
+            completed.put(id, entry);
+        } finally {
+            lock.unlock();
+        }
+        return entry;
+    }
+    
+    int cachedEntries() {
+        lock.lock();
+        try {
+            return completed.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private static Entry await(CompletableFuture<Entry> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
+    private static ConflictException inProgress() {
+        return new ConflictException("A request with this Idempotency-Key is still in progress");
+    }
+    
+    private record Entry(String requestHash, RideResponse response, long expiresAt) {
+        
+        RideResponse replay(String requestHash) {
+            if (!this.requestHash.equals(requestHash)) {
+                throw new BadRequestException("Idempotency-Key was already used for a different request");
+            }
+            return response;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.model.Ride;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+// In-memory grid index of REQUESTED rides keyed by pickup coordinates.
+// Rides are bucketed into fixed-size lat/lng cells so a nearby lookup only
+// visits the cells overlapping the search radius instead of every pending ride.
+@Component
+public class NearbyRideIndex {
+    
+    static final double CELL_DEGREES = 0.05; // ~5.5 km of latitude
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final int CELLS_AROUND = cellsAround(CELL_DEGREES);
+    
+    private final Map<Long, Map<String, Ride>> cells = new ConcurrentHashMap<>();
+    private final Map<String, Long> cellByRideId = new ConcurrentHashMap<>();
+    
+    public void add(Ride ride) {
+        if (ride.getPickupPoint() == null) {
+            return;
+        }
+        long cell = cellKey(ride.getPickupPoint().getY(), ride.getPickupPoint().getX());
+        Long previous = cellByRideId.put(ride.getId(), cell);
+        if (previous != null && previous != cell) {
+            removeFromCell(previous, ride.getId());
+        }
+        cells.compute(cell, (k, bucket) -> {
+            Map<String, Ride> target = bucket != null ? bucket : new ConcurrentHashMap<>();
+            target.put(ride.getId(), ride);
+            return target;
+        });
+    }
+    
+    public void remove(String rideId) {
+        Long cell = cellByRideId.remove(rideId);
+        if (cell != null) {
+            removeFromCell(cell, rideId);
+        }
+    }
+    
+    public void clear() {
+        cells.clear();
+        cellByRideId.clear();
+    }
+    
+    public int size() {
+        return cellByRideId.size();
+    }
+    
+    // Returns up to limit rides within radiusKm of (latitude, longitude), nearest first
+    public List<Ride> findNearest(double latitude, double longitude, double radiusKm, int limit) {
+        double latSpan = latSpan(radiusKm);
+        double lngSpan = lngSpan(latitude, radiusKm);
+        int minLatCell = cellIndex(Math.max(latitude - latSpan, -90.0), CELL_DEGREES);
+        int maxLatCell = cellIndex(Math.min(latitude + latSpan, 90.0), CELL_DEGREES);
+        int minLngCell = cellIndex(longitude - lngSpan, CELL_DEGREES);
+        int maxLngCell = Math.min(cellIndex(longitude + lngSpan, CELL_DEGREES), minLngCell + CELLS_AROUND - 1);
+        
+        // Max-heap on distance holding the best `limit` candidates seen so far
+        PriorityQueue<Candidate> best = new PriorityQueue<>(limit + 1,
+                Comparator.comparingDouble(Candidate::distanceKm).reversed());
+        
+        for (int latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+            for (int lngCell = minLngCell; lngCell <= maxLngCell; lngCell++) {
+                Map<String, Ride> bucket = cells.get(pack(latCell, wrapLngCell(lngCell, CELL_DEGREES)));
+                if (bucket == null) {
+                    continue;
+                }
+                for (Ride ride : bucket.values()) {
+                    double distance = distanceKm(latitude, longitude,
+                            ride.getPickupPoint().getY(), ride.getPickupPoint().getX());
+                    if (distance > radiusKm) {
+                        continue;
+                    }
+                    if (best.size() < limit) {
+                        best.add(new Candidate(ride, distance));
+                    } else if (distance < best.peek().distanceKm()) {
+                        best.poll();
+                        best.add(new Candidate(ride, distance));
+                    }
+                }
+            }
+        }
+        
+        List<Candidate> sorted = new ArrayList<>(best);
+        sorted.sort(Comparator.comparingDouble(Candidate::distanceKm));
+        List<Ride> result = new ArrayList<>(sorted.size());
+        for (Candidate candidate : sorted) {
+            result.add(candidate.ride());
+        }
+        return result;
+    }
+    
+    // Half-height in degrees of a circle of radiusKm, on the same sphere as distanceKm, so a point just inside the
+    // radius is never in an unvisited cell
+    static double latSpan(double radiusKm) {
+        return Math.toDegrees(radiusKm / EARTH_RADIUS_KM);
+    }
+    
+    // Half-width in degrees of the same circle around latitude. The widest longitude offset grows toward the poles;
+    // a circle reaching a pole spans them all.
+    static double lngSpan(double latitude, double radiusKm) {
+        double angle = radiusKm / EARTH_RADIUS_KM;
+        double cosLat = Math.cos(Math.toRadians(latitude));
+        return Math.sin(angle) < cosLat ? Math.toDegrees(Math.asin(Math.sin(angle) / cosLat)) : 180.0;
+    }
+    
+    static double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+    
+    private void removeFromCell(long cell, String rideId) {
+        cells.computeIfPresent(cell, (k, bucket) -> {
+            bucket.remove(rideId);
+            return bucket.isEmpty() ? null : bucket;
+        });
+    }
+    
+    private static long cellKey(double latitude, double longitude) {
+        return pack(cellIndex(latitude, CELL_DEGREES), wrapLngCell(cellIndex(longitude, CELL_DEGREES), CELL_DEGREES));
+    }
+    
+    static int cellIndex(double degrees, double cellDegrees) {
+        return (int) Math.floor(degrees / cellDegrees);
+    }
+    
+    // Keeps searches that cross the antimeridian pointing at the right cells; cellDegrees must divide 360
+    static int wrapLngCell(int lngCell, double cellDegrees) {
+        int offset = cellIndex(-180.0, cellDegrees);
+        return Math.floorMod(lngCell - offset, cellsAround(cellDegrees)) + offset;
+    }
+    
+    static int cellsAround(double cellDegrees) {
+        return (int) Math.round(360.0 / cellDegrees);
+    }
+    
+    static long pack(int latCell, int lngCell) {
+        return ((long) latCell << 32) | (lngCell & 0xffffffffL);
+    }
+    
+    private record Candidate(Ride ride, double distanceKm) {
+    }
+}
@@ -0,0 +1,189 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.model.Ride;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+// In-process board of every REQUESTED ride, so the pending list never touches Mongo.
+// Rides are split across shards by id so concurrent writers rarely contend on the same map.
+// Local writes update it directly; RideBoardSynchronizer applies writes made by other instances.
+@Component
+public class PendingRideBoard {
+    
+    private static final int SHARDS = 16;
+    private static final long TOMBSTONE_TTL_MILLIS = 10 * 60 * 1000;
+    // Ride ids are ObjectIds minted by whichever instance created the ride, so their clocks may disagree this much
+    private static final long CLOCK_SKEW_MILLIS = 60 * 1000;
+    private static final Comparator<Ride> OLDEST_FIRST = Comparator
+            .comparing(Ride::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Ride::getId);
+    
+    @Autowired
+    private NearbyRideIndex nearbyRideIndex;
+    
+    private final List<Map<String, Ride>> shards = new ArrayList<>(SHARDS);
+    
+    // Rides never return to REQUESTED, so an id that left the board stays off it even if a late event replays it.
+    // Expiry walks the queue from its oldest end, which is in removal order, so each remove costs O(1) amortized.
+    private final Map<String, Long> tombstones = new ConcurrentHashMap<>();
+    private final Queue<Tombstone> tombstoneQueue = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock expiryLock = new ReentrantLock();
+    
+    private volatile boolean ready;
+    private volatile long loadedFromMillis;
+    private volatile long lastSyncedAtMillis;
+    private volatile long lastSyncLagMillis;
+    
+    public PendingRideBoard() {
+        for (int i = 0; i < SHARDS; i++) {
+            shards.add(new ConcurrentHashMap<>());
+        }
+    }
+    
+    // Adds a REQUESTED ride; any other status takes the ride off the board
+    public void apply(Ride ride) {
+        if (!"REQUESTED".equals(ride.getStatus())) {
+            remove(ride.getId());
+            return;
+        }
+        if (tombstones.containsKey(ride.getId())) {
+            return;
+        }
+        shardFor(ride.getId()).put(ride.getId(), ride);
+        nearbyRideIndex.add(ride);
+    }
+    
+    public void remove(String rideId) {
+        remove(rideId, System.currentTimeMillis());
+    }
+    
+    void remove(String rideId, long now) {
+        boolean wasPending = shardFor(rideId).remove(rideId) != null;
+        nearbyRideIndex.remove(rideId);
+        if (wasPending || mayStillArrive(rideId)) {
+            tombstones.put(rideId, now);
+            tombstoneQueue.add(new Tombstone(rideId, now));
+        }
+        expireTombstones(now);
+    }
+    
+    // Bootstrap / resync from a full read of pending rides. Entries older than the read that it did not
+    // return have left REQUESTED while we were not listening; newer ones were added during the read.
+    public void load(List<Ride> pendingRides, long readStartedAtMillis) {
+        Set<String> seen = new HashSet<>();
+        for (Ride ride : pendingRides) {
+            seen.add(ride.getId());
+            apply(ride);
+        }
+        for (Map<String, Ride> shard : shards) {
+            for (Ride ride : shard.values()) {
+                if (!seen.contains(ride.getId()) && ride.getCreatedAt() != null
+                        && toEpochMillis(ride) < readStartedAtMillis) {
+                    remove(ride.getId());
+                }
+            }
+        }
+        loadedFromMillis = readStartedAtMillis;
+        lastSyncedAtMillis = System.currentTimeMillis();
+        ready = true;
+    }
+    
+    // Called when the change stream is lost: callers fall back to Mongo until the next load
+    public void invalidate() {
+        ready = false;
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    // Records a change applied from another instance; eventTimeMillis is when Mongo committed it
+    public void recordSync(long eventTimeMillis) {
+        long now = System.currentTimeMillis();
+        lastSyncedAtMillis = now;
+        lastSyncLagMillis = Math.max(0, now - eventTimeMillis);
+    }
+    
+    // Commit-to-apply delay of the last synchronized change
+    public long lastSyncLagMillis() {
+        return lastSyncLagMillis;
+    }
+    
+    // Time since the board last heard from Mongo (load or change event)
+    public long millisSinceLastSync() {
+        return lastSyncedAtMillis == 0 ? -1 : System.currentTimeMillis() - lastSyncedAtMillis;
+    }
+    
+    public int size() {
+        int size = 0;
+        for (Map<String, Ride> shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+    
+    // Live tombstones, for tests
+    int tombstoneCount() {
+        return tombstones.size();
+    }
+    
+    // Pending rides oldest first, matching the paged pending endpoint
+    public List<Ride> pending() {
+        List<Ride> rides = new ArrayList<>(size());
+        for (Map<String, Ride> shard : shards) {
+            rides.addAll(shard.values());
+        }
+        rides.sort(OLDEST_FIRST);
+        return rides;
+    }
+    
+    // Tombstones that outlived the TTL, oldest first; one remover does it while the others carry on
+    private void expireTombstones(long now) {
+        if (!expiryLock.tryLock()) {
+            return;
+        }
+        try {
+            long cutoff = now - TOMBSTONE_TTL_MILLIS;
+            Tombstone oldest;
+            while ((oldest = tombstoneQueue.peek()) != null && oldest.removedAtMillis() < cutoff) {
+                tombstoneQueue.poll();
+                // A newer tombstone for the same id has its own queue entry and stays
+                tombstones.remove(oldest.rideId(), oldest.removedAtMillis());
+            }
+        } finally {
+            expiryLock.unlock();
+        }
+    }
+    
+    // A ride the board never held can only come back through its creation event if it was created after the last
+    // load read; anything older was either in that read or not REQUESTED by then. Ids that are not ObjectIds (a
+    // bad accept) never can.
+    private boolean mayStillArrive(String rideId) {
+        return ObjectId.isValid(rideId)
+                && new ObjectId(rideId).getDate().getTime() >= loadedFromMillis - CLOCK_SKEW_MILLIS;
+    }
+    
+    private Map<String, Ride> shardFor(String rideId) {
+        return shards.get(Math.floorMod(rideId.hashCode(), SHARDS));
+    }
+    
+    private static long toEpochMillis(Ride ride) {
+        return ride.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+    
+    private record Tombstone(String rideId, long removedAtMillis) {
+    }
+}
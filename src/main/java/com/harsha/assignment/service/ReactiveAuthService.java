@@ -0,0 +1,102 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.dto.AuthResponse;
+import com.harsha.assignment.dto.LoginRequest;
+import com.harsha.assignment.dto.RefreshRequest;
+import com.harsha.assignment.dto.RegisterRequest;
+import com.harsha.assignment.exception.BadRequestException;
+import com.harsha.assignment.exception.NotFoundException;
+import com.harsha.assignment.model.User;
+import com.harsha.assignment.repository.reactive.ReactiveUserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+// Non-blocking counterpart of AuthService for the "reactive" profile
+@Service
+@Profile("reactive")
+public class ReactiveAuthService {
+    
+    private static final Logger log = LoggerFactory.getLogger(ReactiveAuthService.class);
+    
+    @Autowired
+    private ReactiveUserRepository userRepository;
+    
+    @Autowired
+    private PasswordHasher passwordHasher;
+    
+    // Token issuing, refresh and logout are shared with the servlet stack; their Mongo calls run on boundedElastic
+    @Autowired
+    private AuthService authService;
+    
+    @Autowired
+    private UserCache userCache;
+    
+    public Mono<AuthResponse> register(RegisterRequest request) {
+        return Mono.fromRunnable(() -> AuthService.requireKnownRole(request.getRole()))
+                .then(userRepository.existsByUsername(request.getUsername()))
+                .flatMap(exists -> {
+                    // Check if username already exists
+                    if (exists) {
+                        return Mono.error(new BadRequestException("Username already exists"));
+                    }
+                    // Password hashing is CPU-bound, keep it off the event loop
+                    return Mono.fromFuture(() -> passwordHasher.encodeAsync(request.getPassword()));
+                })
+                .flatMap(encoded -> {
+                    User user = new User();
+                    user.setUsername(request.getUsername());
+                    user.setPassword(encoded);
+                    user.setRole(request.getRole());
+                    return userRepository.save(user);
+                })
+                .doOnNext(user -> userCache.invalidate(user.getUsername()))
+                .flatMap(this::issueTokens);
+    }
+    
+    public Mono<AuthResponse> login(LoginRequest request) {
+        return userRepository.findByUsername(request.getUsername())
+                .switchIfEmpty(Mono.error(new NotFoundException("User not found")))
+                .flatMap(user -> Mono.fromFuture(() -> passwordHasher.matchesAsync(request.getPassword(), user.getPassword()))
+                        .flatMap(matches -> matches
+                                ? Mono.just(user)
+                                : Mono.error(new BadRequestException("Invalid credentials"))))
+                .doOnNext(user -> {
+                    if (passwordHasher.needsRehash(user.getPassword())) {
+                        rehashInBackground(user, request.getPassword());
+                    }
+                })
+                .flatMap(this::issueTokens);
+    }
+    
+    public Mono<AuthResponse> refresh(RefreshRequest request) {
+        return Mono.fromCallable(() -> authService.refresh(request))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+    
+    public Mono<Void> logout(String accessToken, String refreshToken) {
+        return Mono.fromRunnable(() -> authService.logout(accessToken, refreshToken))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+    
+    // Upgrades the stored hash to the current encoder; best effort, the next login tries again
+    private void rehashInBackground(User user, String rawPassword) {
+        Mono.fromFuture(() -> passwordHasher.encodeAsync(rawPassword))
+                .flatMap(encoded -> {
+                    user.setPassword(encoded);
+                    return userRepository.save(user);
+                })
+                .doOnNext(saved -> userCache.invalidate(saved.getUsername()))
+                .subscribe(saved -> { }, e -> log.debug("Skipped password rehash for {}: {}", user.getUsername(), e.getMessage()));
+    }
+    
+    private Mono<AuthResponse> issueTokens(User user) {
+        return Mono.fromCallable(() -> authService.issueTokens(user))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
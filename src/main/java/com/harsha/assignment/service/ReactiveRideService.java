@@ -0,0 +1,302 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.config.AuthenticatedUser;
+import com.harsha.assignment.dto.BatchItemResult;
+import com.harsha.assignment.dto.BatchResult;
+import com.harsha.assignment.dto.CreateRideRequest;
+import com.harsha.assignment.dto.RideEvent;
+import com.harsha.assignment.dto.RideResponse;
+import com.harsha.assignment.dto.RideSummaryResponse;
+import com.harsha.assignment.exception.NotFoundException;
+import com.harsha.assignment.model.Ride;
+import com.harsha.assignment.model.RideSummary;
+import com.harsha.assignment.repository.RideArchive;
+import com.harsha.assignment.repository.RideTransitions;
+import com.harsha.assignment.repository.reactive.ReactiveRideRepository;
+import com.harsha.assignment.repository.reactive.ReactiveUserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Non-blocking counterpart of RideService for the "reactive" profile; business rules come from RideRules
+@Service
+@Profile("reactive")
+public class ReactiveRideService {
+    
+    // Conditional updates of one bulk request in flight at once
+    private static final int BULK_CONCURRENCY = 16;
+    
+    @Autowired
+    private ReactiveRideRepository rideRepository;
+    
+    @Autowired
+    private ReactiveUserRepository userRepository;
+    
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+    
+    @Autowired
+    private RideArchive rideArchive;
+    
+    @Autowired
+    private PendingRideBoard pendingRideBoard;
+    
+    @Autowired
+    private NearbyRideIndex nearbyRideIndex;
+    
+    @Autowired
+    private RideEventBroadcaster rideEventBroadcaster;
+    
+    @Autowired
+    private RideMetrics rideMetrics;
+    
+    @Autowired
+    private RideLifecycleRecorder rideLifecycleRecorder;
+    
+    @Autowired
+    private RideSummaryService rideSummaryService;
+    
+    private Mono<AuthenticatedUser> getCurrentUser() {
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .flatMap(this::toAuthenticatedUser);
+    }
+    
+    private Mono<AuthenticatedUser> toAuthenticatedUser(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof AuthenticatedUser principal && principal.getId() != null) {
+            return Mono.just(principal);
+        }
+        return userRepository.findByUsername(authentication.getName())
+                .switchIfEmpty(Mono.error(new NotFoundException("User not found")))
+                .map(user -> new AuthenticatedUser(user.getId(), user.getUsername(), user.getRole()));
+    }
+    
+    public Mono<RideResponse> createRide(CreateRideRequest request) {
+        return getCurrentUser()
+                .map(user -> {
+                    RideRules.requirePassenger(user.getRole());
+                    return RideRules.newRequestedRide(user.getId(), request);
+                })
+                .flatMap(rideRepository::save)
+                .doOnNext(ride -> {
+                    rideMetrics.transitioned("REQUESTED");
+                    rideLifecycleRecorder.record(ride);
+                    rideSummaryService.record(ride);
+                    pendingRideBoard.apply(ride);
+                    rideEventBroadcaster.publish("CREATED", ride);
+                })
+                .map(RideResponse::fromRide);
+    }
+    
+    // Live ride events with a bounded drop-oldest buffer per subscriber, so slow clients never stall publishers
+    public Flux<RideEvent> rideEvents(int bufferSize) {
+        return Flux.<RideEvent>create(sink -> {
+                    Runnable unsubscribe = rideEventBroadcaster.subscribe(sink::next);
+                    sink.onDispose(unsubscribe::run);
+                })
+                .onBackpressureBuffer(bufferSize, dropped -> { }, BufferOverflowStrategy.DROP_OLDEST);
+    }
+    
+    public Flux<RideResponse> getNearbyPendingRides(double latitude, double longitude, double radiusKm, int limit) {
+        return Flux.defer(() -> {
+            RideRules.validateNearbyQuery(latitude, longitude, radiusKm, limit);
+            return Flux.fromIterable(nearbyRideIndex.findNearest(latitude, longitude, radiusKm, limit));
+        }).map(RideResponse::fromRide);
+    }
+    
+    public Flux<RideResponse> getPendingRides() {
+        Flux<Ride> rides = Flux.defer(() -> pendingRideBoard.isReady()
+                ? Flux.fromIterable(pendingRideBoard.pending())
+                : rideRepository.findByStatus("REQUESTED"));
+        return rides.map(RideResponse::fromRide);
+    }
+    
+    public Mono<RideResponse> acceptRide(String rideId) {
+        return getCurrentUser()
+                .doOnNext(driver -> {
+                    RideRules.requireDriver(driver.getRole());
+                    RideRules.validateRideId(rideId);
+                })
+                .flatMap(driver -> mongoTemplate.findAndModify(
+                                RideTransitions.requested(rideId), RideTransitions.acceptBy(driver.getId()),
+                                FindAndModifyOptions.options().returnNew(true), Ride.class)
+                        // Either way the ride is no longer pending, so drop any stale board entry
+                        .doFinally(signal -> pendingRideBoard.remove(rideId))
+                        // The conditional update did not match; find out why
+                        .switchIfEmpty(Mono.defer(() -> rideExists(rideId)).flatMap(exists -> {
+                            rideMetrics.rejected("ACCEPTED", exists ? "conflict" : "not_found");
+                            return Mono.error(RideRules.acceptanceRejected(exists));
+                        })))
+                .doOnNext(ride -> {
+                    rideMetrics.transitioned("ACCEPTED");
+                    rideLifecycleRecorder.record(ride);
+                    rideSummaryService.record(ride);
+                    rideEventBroadcaster.publish("ACCEPTED", ride);
+                })
+                .map(RideResponse::fromRide);
+    }
+    
+    public Mono<RideResponse> completeRide(String rideId) {
+        return getCurrentUser()
+                .flatMap(user -> mongoTemplate.findAndModify(
+                                RideTransitions.acceptedFor(rideId, user.getId()), RideTransitions.complete(),
+                                FindAndModifyOptions.options().returnNew(true), Ride.class)
+                        // The conditional update did not match; read once to report why
+                        .switchIfEmpty(rideRepository.findById(rideId)
+                                .switchIfEmpty(findArchived(rideId))
+                                .switchIfEmpty(Mono.error(new NotFoundException("Ride not found")))
+                                .flatMap(ride -> Mono.<Ride>error(RideRules.completionRejected(ride)))
+                                .doOnError(e -> rideMetrics.rejected("COMPLETED", "rejected"))))
+                .doOnNext(ride -> {
+                    rideMetrics.transitioned("COMPLETED");
+                    rideLifecycleRecorder.record(ride);
+                    rideSummaryService.record(ride);
+                })
+                .map(RideResponse::fromRide);
+    }
+    
+    // Completes every listed ride the caller takes part in that is still ACCEPTED (USER or DRIVER)
+    public Mono<BatchResult> completeRides(List<String> rideIds) {
+        return getCurrentUser().flatMap(user -> {
+            RideRules.validateBatchSize(rideIds.size());
+            return bulkTransition(rideIds, "COMPLETED",
+                    ride -> RideRules.completionRejection(ride, user.getId()),
+                    rideId -> RideTransitions.acceptedFor(rideId, user.getId()),
+                    RideTransitions.complete(),
+                    ride -> { });
+        });
+    }
+    
+    // Cancels every listed ride the passenger requested that no driver has accepted yet (USER only)
+    public Mono<BatchResult> cancelRides(List<String> rideIds) {
+        return getCurrentUser().flatMap(user -> {
+            RideRules.requirePassenger(user.getRole());
+            RideRules.validateBatchSize(rideIds.size());
+            return bulkTransition(rideIds, "CANCELLED",
+                    ride -> RideRules.cancellationRejection(ride, user.getId()),
+                    rideId -> RideTransitions.requestedBy(rideId, user.getId()),
+                    RideTransitions.cancel(),
+                    ride -> {
+                        pendingRideBoard.remove(ride.getId());
+                        rideEventBroadcaster.publish("CANCELLED", ride);
+                    });
+        });
+    }
+    
+    public Flux<RideResponse> getUserRides() {
+        return getCurrentUser()
+                .flatMapMany(user -> withArchived(rideRepository.findByUserId(user.getId()), "userId", user.getId()))
+                .map(RideResponse::fromRide);
+    }
+    
+    public Mono<RideSummaryResponse> getRideSummary() {
+        return getCurrentUser()
+                .flatMap(user -> mongoTemplate.findById(user.getId(), RideSummary.class)
+                        .map(stored -> rideSummaryService.withPending(user.getId(), stored))
+                        .switchIfEmpty(Mono.fromSupplier(() -> rideSummaryService.withPending(user.getId(), null))));
+    }
+    
+    public Flux<RideResponse> getDriverRides() {
+        return getCurrentUser()
+                .flatMapMany(driver -> withArchived(rideRepository.findByDriverId(driver.getId()), "driverId", driver.getId()))
+                .map(RideResponse::fromRide);
+    }
+    
+    // One conditional findAndModify per ride rather than RideService's single bulkWrite: the returned document is
+    // exactly the ride this request changed, so a ride a concurrent request moved is never counted twice. Results
+    // keep request order; an item that did not match is read once to report why.
+    private Mono<BatchResult> bulkTransition(List<String> rideIds, String targetStatus,
+                                             Function<Ride, String> rejection, Function<String, Query> condition,
+                                             Update update, Consumer<Ride> onTransition) {
+        Set<String> listed = new HashSet<>();
+        boolean[] repeated = new boolean[rideIds.size()];
+        for (int i = 0; i < rideIds.size(); i++) {
+            repeated[i] = rideIds.get(i) != null && !listed.add(rideIds.get(i));
+        }
+        return Flux.range(0, rideIds.size())
+                .flatMapSequential(i -> {
+                    String rideId = rideIds.get(i);
+                    if (rideId == null) {
+                        return Mono.just(notFound(i, null, targetStatus));
+                    }
+                    if (repeated[i]) {
+                        rideMetrics.rejected(targetStatus, "rejected");
+                        return Mono.just(BatchItemResult.failed(i, rideId, "REJECTED",
+                                "Ride is listed more than once"));
+                    }
+                    return mongoTemplate.findAndModify(condition.apply(rideId), update,
+                                    FindAndModifyOptions.options().returnNew(true), Ride.class)
+                            .map(ride -> {
+                                rideMetrics.transitioned(targetStatus);
+                                rideLifecycleRecorder.record(ride);
+                                rideSummaryService.record(ride);
+                                onTransition.accept(ride);
+                                return BatchItemResult.succeeded(i, targetStatus, RideResponse.fromRide(ride));
+                            })
+                            .switchIfEmpty(Mono.defer(() -> rideRepository.findById(rideId)
+                                    .switchIfEmpty(findArchived(rideId))
+                                    .map(ride -> unmatched(i, ride, targetStatus, rejection.apply(ride)))
+                                    .switchIfEmpty(Mono.fromSupplier(() -> notFound(i, rideId, targetStatus)))));
+                }, BULK_CONCURRENCY)
+                .collectList()
+                .map(BatchResult::of);
+    }
+    
+    private BatchItemResult notFound(int index, String rideId, String targetStatus) {
+        rideMetrics.rejected(targetStatus, "not_found");
+        return BatchItemResult.failed(index, rideId, "NOT_FOUND", "Ride not found");
+    }
+    
+    // rejected is null when the ride qualifies now, i.e. it changed between the update and the read
+    private BatchItemResult unmatched(int index, Ride ride, String targetStatus, String rejected) {
+        if (rejected != null) {
+            rideMetrics.rejected(targetStatus, "rejected");
+            return BatchItemResult.failed(index, ride.getId(), "REJECTED", rejected);
+        }
+        rideMetrics.rejected(targetStatus, "conflict");
+        return BatchItemResult.failed(index, ride.getId(), "CONFLICT", "Ride changed while the batch was applied");
+    }
+    
+    // Archived rides follow the hot ones; a ride caught mid-move appears once
+    private Flux<Ride> withArchived(Flux<Ride> rides, String field, String value) {
+        if (!rideArchive.holds(field)) {
+            return rides;
+        }
+        Query query = new Query(Criteria.where(field).is(value));
+        return Flux.concat(rides, Flux.fromIterable(rideArchive.collections())
+                        .concatMap(collection -> mongoTemplate.find(query, Ride.class, collection)))
+                .distinct(Ride::getId);
+    }
+    
+    // A ride the lifecycle log has seen needs no read; archived rides exist, finished
+    private Mono<Boolean> rideExists(String rideId) {
+        if (rideLifecycleRecorder.knows(rideId)) {
+            return Mono.just(true);
+        }
+        return rideRepository.existsById(rideId)
+                .flatMap(exists -> exists ? Mono.just(true) : findArchived(rideId).hasElement());
+    }
+    
+    private Mono<Ride> findArchived(String rideId) {
+        return Flux.fromIterable(rideArchive.collectionsFor(rideId))
+                .concatMap(collection -> mongoTemplate.findById(rideId, Ride.class, collection))
+                .next();
+    }
+}
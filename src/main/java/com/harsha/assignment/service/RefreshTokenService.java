@@ -0,0 +1,53 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.exception.BadRequestException;
+import com.harsha.assignment.model.RefreshToken;
+import com.harsha.assignment.util.TokenHashes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+
+// Opaque, single-use refresh tokens. Only a hash is stored; each refresh consumes the token and issues a new one.
+@Service
+public class RefreshTokenService {
+    
+    private static final SecureRandom RANDOM = new SecureRandom();
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Value("${jwt.refresh-expiration:2592000000}")
+    private long refreshLifetimeMillis;
+    
+    public String issue(String userId) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        
+        Date expiresAt = new Date(System.currentTimeMillis() + refreshLifetimeMillis);
+        mongoTemplate.insert(new RefreshToken(TokenHashes.sha256(token), userId, expiresAt));
+        return token;
+    }
+    
+    // Atomically removes the token, so a replayed refresh token can never be exchanged twice; returns its user id
+    public String consume(String token) {
+        Query query = Query.query(Criteria.where("_id").is(TokenHashes.sha256(token))
+                .and("expiresAt").gt(new Date()));
+        RefreshToken stored = mongoTemplate.findAndRemove(query, RefreshToken.class);
+        if (stored == null) {
+            throw new BadRequestException("Invalid refresh token");
+        }
+        return stored.getUserId();
+    }
+    
+    public void revoke(String token) {
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(TokenHashes.sha256(token))), RefreshToken.class);
+    }
+}
@@ -0,0 +1,129 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.model.Ride;
+import com.harsha.assignment.repository.RideArchive;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Moves COMPLETED rides created more than after-days ago out of rides into the monthly RideArchive partitions, so
+// the hot collection and its indexes only hold rides that can still change or are recent. Each run walks the oldest
+// completed rides in batches, paced to max-rides-per-second so its reads, inserts and deletes leave Mongo to request
+// traffic. Several instances may archive at once: every step is idempotent. Opt-in with rides.archive.enabled.
+@Component
+@ConditionalOnProperty(name = "rides.archive.enabled", havingValue = "true")
+public class RideArchiver {
+    
+    private static final Logger log = LoggerFactory.getLogger(RideArchiver.class);
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private RideArchive rideArchive;
+    
+    @Value("${rides.archive.after-days:30}")
+    private int afterDays;
+    
+    @Value("${rides.archive.interval-millis:3600000}")
+    private long intervalMillis;
+    
+    @Value("${rides.archive.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${rides.archive.max-rides-per-second:2000}")
+    private int maxRidesPerSecond;
+    
+    private final LongAdder archived = new LongAdder();
+    private volatile long lastRunMillis;
+    private volatile boolean stopped;
+    private ScheduledExecutorService scheduler;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        // A dedicated platform thread, so archiving never competes with request handling for executor slots
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("ride-archiver").daemon().factory());
+        scheduler.scheduleWithFixedDelay(this::archiveSafely, Math.min(intervalMillis, 60000), intervalMillis,
+                TimeUnit.MILLISECONDS);
+        log.info("Ride archiver started: completed rides older than {} days, every {} ms, at most {} rides/s",
+                afterDays, intervalMillis, maxRidesPerSecond);
+    }
+    
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+    
+    public long archived() {
+        return archived.sum();
+    }
+    
+    public long lastRunMillis() {
+        return lastRunMillis;
+    }
+    
+    private void archiveSafely() {
+        try {
+            archive();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Archiving completed rides failed: {}", e.getMessage());
+        }
+    }
+    
+    // Returns how many rides were moved in this run
+    long archive() throws InterruptedException {
+        long startedAt = System.currentTimeMillis();
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(afterDays);
+        // Walks the status_createdAt_id index, oldest first
+        Query oldestCompleted = new Query(Criteria.where("status").is("COMPLETED").and("createdAt").lt(cutoff))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt", "id"))
+                .limit(batchSize);
+        long moved = 0;
+        while (!stopped) {
+            long batchStartedAt = System.currentTimeMillis();
+            List<Ride> batch = mongoTemplate.find(oldestCompleted, Ride.class);
+            if (batch.isEmpty()) {
+                break;
+            }
+            long removed = rideArchive.archive(batch);
+            moved += removed;
+            archived.add(removed);
+            // A short batch was the last one; an empty delete means another instance is moving the same rides
+            if (batch.size() < batchSize || removed == 0) {
+                break;
+            }
+            long pauseMillis = batch.size() * 1000L / maxRidesPerSecond - (System.currentTimeMillis() - batchStartedAt);
+            if (pauseMillis > 0) {
+                Thread.sleep(pauseMillis);
+            }
+        }
+        lastRunMillis = System.currentTimeMillis() - startedAt;
+        if (moved > 0) {
+            log.info("Archived {} completed rides in {} ms", moved, lastRunMillis);
+        }
+        return moved;
+    }
+}
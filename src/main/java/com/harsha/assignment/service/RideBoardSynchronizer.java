@@ -0,0 +1,178 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.model.Ride;
+import com.harsha.assignment.repository.RideRepository;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Message;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Subscription;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Keeps the PendingRideBoard consistent across instances by tailing a change stream on "rides".
+// Change streams need a replica set, so this is opt-in (rides.board.change-stream.enabled).
+// The stream is opened before the board is reloaded, so nothing committed during the reload is missed.
+@Component
+@ConditionalOnProperty(name = "rides.board.change-stream.enabled", havingValue = "true")
+public class RideBoardSynchronizer {
+    
+    private static final Logger log = LoggerFactory.getLogger(RideBoardSynchronizer.class);
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private RideRepository rideRepository;
+    
+    @Autowired
+    private PendingRideBoard pendingRideBoard;
+    
+    @Autowired
+    private RideListVersions rideListVersions;
+    
+    // Boot's application executor: virtual threads when spring.threads.virtual.enabled=true
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private AsyncTaskExecutor taskExecutor;
+    
+    @Value("${rides.board.change-stream.retry-millis:5000}")
+    private long retryMillis;
+    
+    // Guards container/subscription; ReentrantLock rather than synchronized so virtual threads never pin on it
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicBoolean resubscribing = new AtomicBoolean();
+    private volatile boolean stopped;
+    private MessageListenerContainer container;
+    private Subscription subscription;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        // No list ETags until the stream is open and the board reloaded
+        rideListVersions.suspend();
+        lock.lock();
+        try {
+            // The tailing cursor never finishes, so it gets its own thread rather than one the
+            // application executor would wait on at shutdown
+            container = new DefaultMessageListenerContainer(mongoTemplate);
+            container.start();
+        } finally {
+            lock.unlock();
+        }
+        taskExecutor.execute(this::subscribe);
+    }
+    
+    @PreDestroy
+    public void stop() {
+        lock.lock();
+        try {
+            stopped = true;
+            if (container != null) {
+                container.stop();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void subscribe() {
+        ChangeStreamRequest<Ride> request = ChangeStreamRequest.builder(this::onChange)
+                .collection(mongoTemplate.getCollectionName(Ride.class))
+                .fullDocumentLookup(FullDocument.UPDATE_LOOKUP)
+                .build();
+        Subscription current;
+        lock.lock();
+        try {
+            if (stopped) {
+                return;
+            }
+            current = container.register(request, Ride.class, this::onError);
+            subscription = current;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            if (!current.await(Duration.ofSeconds(30))) {
+                throw new IllegalStateException("change stream did not open");
+            }
+            long readStartedAt = System.currentTimeMillis();
+            pendingRideBoard.load(rideRepository.findByStatus("REQUESTED"), readStartedAt);
+            rideListVersions.resume();
+            log.info("Pending ride board synchronized with {} rides", pendingRideBoard.size());
+        } catch (Exception e) {
+            onError(e);
+        }
+    }
+    
+    private void onChange(Message<ChangeStreamDocument<Document>, Ride> message) {
+        ChangeStreamDocument<Document> change = message.getRaw();
+        Ride ride = message.getBody();
+        if (ride != null) {
+            pendingRideBoard.apply(ride);
+            rideListVersions.bump(ride);
+        } else if (change.getDocumentKey() != null) {
+            // Deletes (and updates whose document is already gone) carry only the key
+            BsonValue id = change.getDocumentKey().get("_id");
+            pendingRideBoard.remove(id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue());
+            rideListVersions.bumpPending();
+        }
+        pendingRideBoard.recordSync(commitTimeMillis(change));
+    }
+    
+    // The board can no longer be trusted: serve from Mongo, then reopen the stream and reload
+    private void onError(Throwable error) {
+        pendingRideBoard.invalidate();
+        rideListVersions.suspend();
+        if (stopped || !resubscribing.compareAndSet(false, true)) {
+            return;
+        }
+        log.warn("Ride change stream failed, retrying in {} ms: {}", retryMillis, error.getMessage());
+        taskExecutor.execute(() -> {
+            try {
+                Thread.sleep(retryMillis);
+                lock.lock();
+                try {
+                    if (subscription != null) {
+                        container.remove(subscription);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                resubscribing.set(false);
+            }
+            subscribe();
+        });
+    }
+    
+    private static long commitTimeMillis(ChangeStreamDocument<Document> change) {
+        if (change.getWallTime() != null) {
+            return change.getWallTime().getValue();
+        }
+        if (change.getClusterTime() != null) {
+            return change.getClusterTime().getTime() * 1000L;
+        }
+        return System.currentTimeMillis();
+    }
+}
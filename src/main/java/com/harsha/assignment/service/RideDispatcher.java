@@ -0,0 +1,204 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.model.Ride;
+import com.harsha.assignment.repository.RideRepository;
+import com.harsha.assignment.repository.RideTransitions;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Assigns REQUESTED rides to available drivers without waiting for a driver to accept. Every window, it plans one
+// micro-batch of pending rides (from PendingRideBoard) against on-duty drivers (from DriverLocationService) and
+// applies the plan with the same conditional REQUESTED -> ACCEPTED update as acceptRide, in one bulkWrite.
+// A ride a driver accepted meanwhile simply loses the race. Each planned driver is claimed (taken off duty) before
+// the write, as acceptRide does, so a driver never gets a dispatched ride on top of one they accepted; drivers
+// whose ride was lost go back on duty. Assigned drivers stay off duty until they set themselves available again.
+// Opt-in with rides.dispatch.enabled.
+@Component
+@ConditionalOnProperty(name = "rides.dispatch.enabled", havingValue = "true")
+public class RideDispatcher {
+    
+    private static final Logger log = LoggerFactory.getLogger(RideDispatcher.class);
+    
+    @Autowired
+    private RideRepository rideRepository;
+    
+    @Autowired
+    private PendingRideBoard pendingRideBoard;
+    
+    @Autowired
+    private DriverLocationService driverLocationService;
+    
+    @Autowired
+    private RideEventBroadcaster rideEventBroadcaster;
+    
+    @Autowired
+    private RideMetrics rideMetrics;
+    
+    @Autowired
+    private RideLifecycleRecorder rideLifecycleRecorder;
+    
+    @Autowired
+    private RideSummaryService rideSummaryService;
+    
+    @Autowired
+    private RideListVersions rideListVersions;
+    
+    @Value("${rides.dispatch.window-millis:500}")
+    private long windowMillis;
+    
+    @Value("${rides.dispatch.batch-size:100}")
+    private int batchSize;
+    
+    @Value("${rides.dispatch.max-pickup-km:5}")
+    private double maxPickupKm;
+    
+    @Value("${rides.dispatch.algorithm:hungarian}")
+    private String algorithm;
+    
+    private final LongAdder assignments = new LongAdder();
+    private final LongAdder lostRaces = new LongAdder();
+    private final LongAdder pickupMeters = new LongAdder();
+    private DispatchPlanner planner;
+    private ScheduledExecutorService scheduler;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        planner = new DispatchPlanner(maxPickupKm, batchSize,
+                DispatchPlanner.Algorithm.valueOf(algorithm.toUpperCase(Locale.ROOT)));
+        // A dedicated platform thread, so planning never competes with request handling for executor slots
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("ride-dispatcher").daemon().factory());
+        scheduler.scheduleWithFixedDelay(this::dispatchSafely, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+        log.info("Ride dispatcher started: {} every {} ms, batches of {}, pickup within {} km",
+                algorithm, windowMillis, batchSize, maxPickupKm);
+    }
+    
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+    
+    public long assignments() {
+        return assignments.sum();
+    }
+    
+    // Planned assignments whose ride was taken by someone else before the update landed
+    public long lostRaces() {
+        return lostRaces.sum();
+    }
+    
+    public double averagePickupKm() {
+        long count = assignments.sum();
+        return count == 0 ? 0 : pickupMeters.sum() / 1000.0 / count;
+    }
+    
+    private void dispatchSafely() {
+        try {
+            dispatch();
+        } catch (Exception e) {
+            log.warn("Dispatch window failed: {}", e.getMessage());
+        }
+    }
+    
+    // Returns how many rides were assigned in this window
+    int dispatch() {
+        if (!pendingRideBoard.isReady()) {
+            return 0;
+        }
+        List<Ride> pending = pendingRideBoard.pending();
+        List<DispatchPlanner.Request> requests = new ArrayList<>(pending.size());
+        for (Ride ride : pending) {
+            if (ride.getPickupPoint() != null) {
+                requests.add(new DispatchPlanner.Request(ride.getId(),
+                        ride.getPickupPoint().getY(), ride.getPickupPoint().getX()));
+            }
+        }
+        List<DispatchPlanner.Assignment> plan = planner.plan(requests, driverLocationService.availableDrivers());
+        if (plan.isEmpty()) {
+            return 0;
+        }
+        
+        // Claim every planned driver first; one who went off duty or accepted a ride since planning is skipped,
+        // and the ride stays pending for the next window
+        String transitionId = new ObjectId().toHexString();
+        List<DispatchPlanner.Assignment> claimed = new ArrayList<>(plan.size());
+        Map<String, DriverPosition> claims = new HashMap<>();
+        List<Query> conditions = new ArrayList<>(plan.size());
+        List<Update> updates = new ArrayList<>(plan.size());
+        for (DispatchPlanner.Assignment assignment : plan) {
+            DriverPosition claim = driverLocationService.claim(assignment.driverId());
+            if (claim == null) {
+                lostRaces.increment();
+                rideMetrics.rejected("ACCEPTED", "conflict");
+                continue;
+            }
+            claimed.add(assignment);
+            claims.put(assignment.driverId(), claim);
+            conditions.add(RideTransitions.requested(assignment.rideId()));
+            updates.add(RideTransitions.markedBy(RideTransitions.acceptBy(assignment.driverId()), transitionId));
+        }
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+        long modified = rideRepository.updateEachUnordered(conditions, updates);
+        
+        // On a short count, only the rides carrying this window's marker are ours; a ride the same driver accepted
+        // by hand looks the same by status and driver, but its side effects already ran in acceptRide
+        Set<String> won = modified == claimed.size() ? null
+                : rideRepository.findIdsMarkedBy(transitionId,
+                        claimed.stream().map(DispatchPlanner.Assignment::rideId).toList());
+        Map<String, Ride> pendingById = pending.stream().collect(Collectors.toMap(Ride::getId, Function.identity()));
+        int assigned = 0;
+        for (DispatchPlanner.Assignment assignment : claimed) {
+            pendingRideBoard.remove(assignment.rideId());
+            if (won != null && !won.contains(assignment.rideId())) {
+                driverLocationService.release(assignment.driverId(), claims.get(assignment.driverId()));
+                lostRaces.increment();
+                rideMetrics.rejected("ACCEPTED", "conflict");
+                continue;
+            }
+            Ride ride = accepted(pendingById.get(assignment.rideId()), assignment.driverId());
+            rideMetrics.transitioned("ACCEPTED");
+            rideLifecycleRecorder.record(ride);
+            rideSummaryService.record(ride);
+            rideListVersions.bump(ride);
+            rideEventBroadcaster.publish("ACCEPTED", ride);
+            assignments.increment();
+            pickupMeters.add(Math.round(assignment.pickupKm() * 1000));
+            assigned++;
+        }
+        log.debug("Dispatch window assigned {} of {} planned rides", assigned, plan.size());
+        return assigned;
+    }
+    
+    // The board copy with the transition applied, as Mongo now holds it
+    private static Ride accepted(Ride pending, String driverId) {
+        return new Ride(pending.getId(), pending.getUserId(), driverId, pending.getPickupLocation(),
+                pending.getPickupPoint(), pending.getDropLocation(), "ACCEPTED", pending.getCreatedAt());
+    }
+}
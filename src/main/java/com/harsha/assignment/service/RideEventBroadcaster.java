@@ -0,0 +1,48 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.dto.RideEvent;
+import com.harsha.assignment.dto.RideResponse;
+import com.harsha.assignment.model.Ride;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Fans ride lifecycle events out to subscribed drivers. Publishing only hands the event to each
+// subscriber's own bounded buffer, so a slow client can never stall RideService.
+@Component
+public class RideEventBroadcaster {
+    
+    private static final Logger log = LoggerFactory.getLogger(RideEventBroadcaster.class);
+    
+    private final Set<RideEventSubscriber> subscribers = new CopyOnWriteArraySet<>();
+    private final AtomicLong sequence = new AtomicLong();
+    
+    public Runnable subscribe(RideEventSubscriber subscriber) {
+        subscribers.add(subscriber);
+        return () -> subscribers.remove(subscriber);
+    }
+    
+    public void publish(String type, Ride ride) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        RideEvent event = new RideEvent(sequence.incrementAndGet(), type, RideResponse.fromRide(ride), LocalDateTime.now());
+        for (RideEventSubscriber subscriber : subscribers) {
+            try {
+                subscriber.offer(event);
+            } catch (RuntimeException e) {
+                log.debug("Dropping ride event subscriber: {}", e.getMessage());
+                subscribers.remove(subscriber);
+            }
+        }
+    }
+    
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+}
@@ -0,0 +1,8 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.dto.RideEvent;
+
+// A push-channel subscriber. offer() is called on the publishing thread and must never block.
+public interface RideEventSubscriber {
+    void offer(RideEvent event);
+}
@@ -0,0 +1,279 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.model.Ride;
+import com.harsha.assignment.model.RideLifecycleEvent;
+import com.harsha.assignment.repository.RideLifecycleLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+// Feeds every committed ride status change into the lifecycle log (when rides.event-log.store is file or mongo)
+// and keeps RideStateProjection current. Services only enqueue a copy of the ride; one writer thread appends
+// whatever has queued up as a single batch, then applies it to the projection. On startup that thread first
+// loads the newest snapshot and replays the log after it. Snapshots are taken every snapshot-millis.
+// A request never waits for the writer: with queue-capacity events already waiting (the log unreachable, say),
+// further changes are dropped and counted, and the projection is marked stale.
+@Component
+public class RideLifecycleRecorder {
+    
+    private static final Logger log = LoggerFactory.getLogger(RideLifecycleRecorder.class);
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final long RETRY_MILLIS = 1000;
+    
+    @Autowired
+    private ObjectProvider<RideLifecycleLog> lifecycleLogProvider;
+    
+    @Value("${rides.event-log.directory:data/ride-log}")
+    private String directory;
+    
+    @Value("${rides.event-log.queue-capacity:65536}")
+    private int queueCapacity;
+    
+    @Value("${rides.event-log.batch-size:1000}")
+    private int batchSize;
+    
+    @Value("${rides.event-log.catch-up-millis:1000}")
+    private long catchUpMillis;
+    
+    @Value("${rides.event-log.snapshots-kept:2}")
+    private int snapshotsKept;
+    
+    private final RideStateProjection projection = new RideStateProjection();
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder appendFailures = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    
+    private RideLifecycleLog lifecycleLog;
+    private BlockingQueue<RideLifecycleEvent> queue;
+    private Thread writer;
+    private volatile boolean running;
+    private volatile boolean restored;
+    private volatile long snapshotPosition = -1;
+    
+    @PostConstruct
+    void init() {
+        lifecycleLog = lifecycleLogProvider.getIfAvailable();
+        if (lifecycleLog != null) {
+            queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+    }
+    
+    // Call after the change is committed
+    public void record(Ride ride) {
+        if (queue == null || queue.offer(RideLifecycleEvent.of(ride))) {
+            return;
+        }
+        dropped.increment();
+        if (!projection.isStale()) {
+            projection.markStale();
+            log.warn("Ride lifecycle queue is full ({} events); dropping status changes, the ride state projection "
+                    + "is now stale", queueCapacity);
+        }
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (lifecycleLog == null) {
+            return;
+        }
+        running = true;
+        // A platform thread: appends hold the log's lock while writing to the mapped segment
+        writer = Thread.ofPlatform().name("ride-lifecycle-log").daemon().start(this::run);
+    }
+    
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        if (restored) {
+            snapshot();
+        }
+        lifecycleLog.close();
+    }
+    
+    // The ride as the log last saw it, if it has finished and not yet left memory; a finished ride never changes,
+    // so the answer is as good as a read, and rides already finished are the ones refused transitions ask about
+    public Optional<Ride> findFinished(String rideId) {
+        return projection.find(rideId).filter(RideStateProjection::isFinished);
+    }
+    
+    // True if the log has seen the ride; rides are archived, never deleted, so it still exists
+    public boolean knows(String rideId) {
+        return projection.find(rideId).isPresent();
+    }
+    
+    public int projectedRides() {
+        return projection.size();
+    }
+    
+    public long appended() {
+        return appended.sum();
+    }
+    
+    public long appendFailures() {
+        return appendFailures.sum();
+    }
+    
+    // Status changes that never reached the log because the queue was full
+    public long dropped() {
+        return dropped.sum();
+    }
+    
+    public boolean isStale() {
+        return projection.isStale();
+    }
+    
+    public int pendingEvents() {
+        return queue == null ? 0 : queue.size();
+    }
+    
+    // Skipped while nothing new has been applied since the last snapshot. The log is pruned up to the oldest
+    // snapshot kept, so any of them can still be restored from.
+    @Scheduled(fixedDelayString = "${rides.event-log.snapshot-millis:300000}")
+    public synchronized void snapshot() {
+        if (!restored || projection.position() == snapshotPosition) {
+            return;
+        }
+        try {
+            lifecycleLog.flush();
+            Path snapshots = snapshotDirectory();
+            Files.createDirectories(snapshots);
+            long started = System.currentTimeMillis();
+            long position = projection.writeSnapshot(snapshots.resolve(String.format("%s%020d.bin", SNAPSHOT_PREFIX,
+                    projection.position())));
+            snapshotPosition = position;
+            List<Path> all = snapshots();
+            int oldestKept = Math.max(0, all.size() - snapshotsKept);
+            for (int i = 0; i < oldestKept; i++) {
+                Files.deleteIfExists(all.get(i));
+            }
+            if (oldestKept < all.size()) {
+                lifecycleLog.pruneBefore(positionOf(all.get(oldestKept)));
+            }
+            log.info("Snapshot of {} rides at position {} took {} ms", projection.size(), position,
+                    System.currentTimeMillis() - started);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not snapshot ride state: {}", e.getMessage());
+        }
+    }
+    
+    private void run() {
+        while (running && !restored) {
+            try {
+                lifecycleLog.open();
+                restore();
+                restored = true;
+            } catch (Exception e) {
+                log.warn("Could not open the ride lifecycle log, retrying: {}", e.getMessage());
+                sleep(RETRY_MILLIS);
+            }
+        }
+        if (!restored) {
+            return;
+        }
+        List<RideLifecycleEvent> batch = new ArrayList<>(batchSize);
+        long lastCatchUp = System.currentTimeMillis();
+        // On shutdown, keep going until everything already queued is in the log
+        while (running || !queue.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    RideLifecycleEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first != null) {
+                        batch.add(first);
+                        queue.drainTo(batch, batchSize - 1);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    lifecycleLog.append(batch);
+                    batch.forEach(projection::apply);
+                    appended.add(batch.size());
+                    batch.clear();
+                }
+                // Other instances append to a shared log; read their events back
+                if (lifecycleLog.shared() && System.currentTimeMillis() - lastCatchUp >= catchUpMillis) {
+                    lifecycleLog.replayAfter(projection.position(), projection::apply);
+                    lastCatchUp = System.currentTimeMillis();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // The batch is kept and appended again
+                appendFailures.increment();
+                log.warn("Could not append {} ride lifecycle events, retrying: {}", batch.size(), e.getMessage());
+                sleep(RETRY_MILLIS);
+            }
+        }
+    }
+    
+    // Newest readable snapshot, then only the events after it
+    private void restore() throws IOException {
+        long started = System.currentTimeMillis();
+        List<Path> all = snapshots();
+        for (int i = all.size() - 1; i >= 0; i--) {
+            if (projection.readSnapshot(all.get(i))) {
+                snapshotPosition = projection.position();
+                break;
+            }
+            log.warn("Ignoring unreadable snapshot {}", all.get(i));
+        }
+        int fromSnapshot = projection.size();
+        long replayed = lifecycleLog.replayAfter(projection.position(), projection::apply);
+        log.info("Ride state restored in {} ms: {} rides from snapshot, {} events replayed, {} rides in total",
+                System.currentTimeMillis() - started, fromSnapshot, replayed, projection.size());
+    }
+    
+    private List<Path> snapshots() throws IOException {
+        Path snapshots = snapshotDirectory();
+        if (!Files.isDirectory(snapshots)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(snapshots)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(".bin");
+            }).sorted().toList();
+        }
+    }
+    
+    // Named after the position when it was taken; the snapshot itself may be a little further on
+    private static long positionOf(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - ".bin".length()));
+    }
+    
+    private Path snapshotDirectory() {
+        return Path.of(directory, "snapshots");
+    }
+    
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
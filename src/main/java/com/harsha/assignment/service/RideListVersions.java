@@ -0,0 +1,128 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.model.Ride;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Version stamps for the ride list views: the pending list, each passenger's rides and each driver's rides. They
+// back strong ETags, so a client that already has the current list gets a 304 without a Mongo read or serialization.
+// Writers bump a view only once their change is visible (committed, and applied to the PendingRideBoard); readers
+// take the stamp before reading, so a body is never labelled newer than what it holds. Participant versions live in
+// a fixed array of stripes: participants sharing a stripe also share bumps, which costs an occasional needless 200
+// but keeps memory flat however many users there are. Other instances' writes only arrive through
+// RideBoardSynchronizer, so rides.etag.enabled defaults to rides.board.change-stream.enabled; turn it on without
+// the change stream only when a single instance writes.
+@Component
+public class RideListVersions {
+    
+    public enum View { PENDING, USER, DRIVER }
+    
+    @Value("${rides.etag.enabled:${rides.board.change-stream.enabled:false}}")
+    private boolean enabled;
+    
+    @Value("${rides.etag.stripes:4096}")
+    private int stripes;
+    
+    // Versions restart from zero with the process, so the start time keeps stamps from repeating an earlier tag
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    // Moves on when writes may have been missed, which retires every stamp handed out before
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong pending = new AtomicLong();
+    private AtomicLongArray participants;
+    private volatile boolean suspended;
+    
+    private final LongAdder[] hits = adders();
+    private final LongAdder[] misses = adders();
+    
+    @PostConstruct
+    void init() {
+        participants = new AtomicLongArray(stripes);
+    }
+    
+    // Called after every committed change to a ride, with the ride as it now is
+    public void bump(Ride ride) {
+        bumpParticipant(ride.getUserId());
+        bumpParticipant(ride.getDriverId());
+        // Completion only changes histories; every other transition enters or leaves the pending list
+        if (!"COMPLETED".equals(ride.getStatus())) {
+            pending.incrementAndGet();
+        }
+    }
+    
+    // The pending list changed without a known ride, e.g. a reload of the board
+    public void bumpPending() {
+        pending.incrementAndGet();
+    }
+    
+    // No stamps while writes from elsewhere may be going unseen
+    public void suspend() {
+        suspended = true;
+    }
+    
+    // Following every write again; stamps from before may describe lists that have since changed
+    public void resume() {
+        generation.incrementAndGet();
+        suspended = false;
+    }
+    
+    // null when no ETag may be given out
+    public String pendingStamp() {
+        return isActive() ? prefix() + pending.get() + ".pending" : null;
+    }
+    
+    // The id is part of the stamp, so participants sharing a stripe never share a tag
+    public String participantStamp(View view, String participantId) {
+        if (!isActive()) {
+            return null;
+        }
+        long version = participants.get(stripe(participantId));
+        return prefix() + version + "." + view.name().toLowerCase() + "-" + participantId;
+    }
+    
+    public void recordHit(View view) {
+        hits[view.ordinal()].increment();
+    }
+    
+    public void recordMiss(View view) {
+        misses[view.ordinal()].increment();
+    }
+    
+    public long hits(View view) {
+        return hits[view.ordinal()].sum();
+    }
+    
+    public long misses(View view) {
+        return misses[view.ordinal()].sum();
+    }
+    
+    private boolean isActive() {
+        return enabled && !suspended;
+    }
+    
+    private String prefix() {
+        return epoch + "." + generation.get() + ".";
+    }
+    
+    private void bumpParticipant(String participantId) {
+        if (participantId != null) {
+            participants.incrementAndGet(stripe(participantId));
+        }
+    }
+    
+    private int stripe(String participantId) {
+        return Math.floorMod(participantId.hashCode(), participants.length());
+    }
+    
+    private static LongAdder[] adders() {
+        LongAdder[] adders = new LongAdder[View.values().length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
@@ -0,0 +1,29 @@
+package com.harsha.assignment.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+// Ride lifecycle counters shared by every path that changes a ride's status: rides.transitions{to} counts
+// committed changes (REQUESTED for creation), rides.transitions.rejected{to, reason} counts refused ones
+@Component
+public class RideMetrics {
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    public void transitioned(String status) {
+        transitioned(status, 1);
+    }
+    
+    public void transitioned(String status, long count) {
+        if (count > 0) {
+            meterRegistry.counter("rides.transitions", "to", status).increment(count);
+        }
+    }
+    
+    // reason is a short fixed code (conflict, not_found, rejected, invalid), never free text, to bound cardinality
+    public void rejected(String status, String reason) {
+        meterRegistry.counter("rides.transitions.rejected", "to", status, "reason", reason).increment();
+    }
+}
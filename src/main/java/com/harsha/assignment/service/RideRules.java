@@ -0,0 +1,123 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.dto.CreateRideRequest;
+import com.harsha.assignment.exception.BadRequestException;
+import com.harsha.assignment.exception.ConflictException;
+import com.harsha.assignment.exception.NotFoundException;
+import com.harsha.assignment.model.Ride;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+
+import java.time.LocalDateTime;
+
+// Business rules shared by the servlet (RideService) and reactive (ReactiveRideService) stacks,
+// so both APIs accept, reject and word errors identically
+final class RideRules {
+    
+    static final double MAX_NEARBY_RADIUS_KM = 50.0;
+    static final int MAX_NEARBY_LIMIT = 100;
+    static final int MAX_PAGE_SIZE = 500;
+    static final int MAX_BATCH_SIZE = 500;
+    
+    private RideRules() {
+    }
+    
+    // Only ROLE_USER can create rides
+    static void requirePassenger(String role) {
+        if (!"ROLE_USER".equals(role)) {
+            throw new BadRequestException("Only passengers can request rides");
+        }
+    }
+    
+    // Only ROLE_DRIVER can accept rides
+    static void requireDriver(String role) {
+        if (!"ROLE_DRIVER".equals(role)) {
+            throw new BadRequestException("Only drivers can accept rides");
+        }
+    }
+    
+    // Ride ids are ObjectIds; anything else can never name a ride
+    static void validateRideId(String rideId) {
+        if (!ObjectId.isValid(rideId)) {
+            throw new BadRequestException("Invalid ride id");
+        }
+    }
+    
+    static Ride newRequestedRide(String userId, CreateRideRequest request) {
+        Ride ride = new Ride();
+        ride.setUserId(userId);
+        ride.setPickupLocation(request.getPickupLocation());
+        ride.setDropLocation(request.getDropLocation());
+        ride.setStatus("REQUESTED");
+        ride.setCreatedAt(LocalDateTime.now());
+        
+        // Coordinates are optional, but must come as a pair
+        if (request.getPickupLatitude() != null || request.getPickupLongitude() != null) {
+            if (request.getPickupLatitude() == null || request.getPickupLongitude() == null) {
+                throw new BadRequestException("Pickup latitude and longitude must be provided together");
+            }
+            ride.setPickupPoint(new GeoJsonPoint(request.getPickupLongitude(), request.getPickupLatitude()));
+        }
+        return ride;
+    }
+    
+    static void validateNearbyQuery(double latitude, double longitude, double radiusKm, int limit) {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new BadRequestException("Invalid coordinates");
+        }
+        if (radiusKm <= 0 || radiusKm > MAX_NEARBY_RADIUS_KM) {
+            throw new BadRequestException("Radius must be greater than 0 and at most " + MAX_NEARBY_RADIUS_KM + " km");
+        }
+        if (limit < 1 || limit > MAX_NEARBY_LIMIT) {
+            throw new BadRequestException("Limit must be between 1 and " + MAX_NEARBY_LIMIT);
+        }
+    }
+    
+    static void validatePageSize(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+    
+    static void validateBatchSize(int size) {
+        if (size < 1 || size > MAX_BATCH_SIZE) {
+            throw new BadRequestException("Batch must contain between 1 and " + MAX_BATCH_SIZE + " items");
+        }
+    }
+    
+    // Returns why participantId may not complete the ride, or null if it may
+    static String completionRejection(Ride ride, String participantId) {
+        if ("ACCEPTED".equals(ride.getStatus())
+                && (participantId.equals(ride.getUserId()) || participantId.equals(ride.getDriverId()))) {
+            return null;
+        }
+        return completionRejected(ride).getMessage();
+    }
+    
+    // Returns why userId may not cancel the ride, or null if it may
+    static String cancellationRejection(Ride ride, String userId) {
+        if (!userId.equals(ride.getUserId())) {
+            return "You are not authorized to cancel this ride";
+        }
+        if (!"REQUESTED".equals(ride.getStatus())) {
+            return "Only requested rides can be cancelled";
+        }
+        return null;
+    }
+    
+    // Explains why the conditional REQUESTED -> ACCEPTED update matched nothing: a ride that exists was accepted or
+    // cancelled first
+    static RuntimeException acceptanceRejected(boolean exists) {
+        return exists ? new ConflictException("Ride is not available for acceptance")
+                : new NotFoundException("Ride not found");
+    }
+    
+    // Explains why the conditional ACCEPTED -> COMPLETED update did not match an existing ride
+    static BadRequestException completionRejected(Ride ride) {
+        // Check if ride is in ACCEPTED status
+        if (!ride.getStatus().equals("ACCEPTED")) {
+            return new BadRequestException("Ride must be accepted before completion");
+        }
+        return new BadRequestException("You are not authorized to complete this ride");
+    }
+}
@@ -1,128 +1,512 @@
 package com.harsha.assignment.service;
 
+import com.harsha.assignment.config.AuthenticatedUser;
+import com.harsha.assignment.dto.BatchItemResult;
+import com.harsha.assignment.dto.BatchResult;
 import com.harsha.assignment.dto.CreateRideRequest;
+import com.harsha.assignment.dto.DriverLocationRequest;
+import com.harsha.assignment.dto.RidePage;
 import com.harsha.assignment.dto.RideResponse;
+import com.harsha.assignment.dto.RideSummaryResponse;
 import com.harsha.assignment.exception.BadRequestException;
 import com.harsha.assignment.exception.NotFoundException;
 import com.harsha.assignment.model.Ride;
 import com.harsha.assignment.model.User;
+import com.harsha.assignment.repository.RideArchive;
 import com.harsha.assignment.repository.RideRepository;
-import com.harsha.assignment.repository.UserRepository;
+import com.harsha.assignment.repository.RideTransitions;
+import com.harsha.assignment.util.RideCursor;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+// Every public method is timed as rides.service{class, method}
 @Service
+@Timed(value = "rides.service", percentiles = {0.5, 0.95, 0.99})
 public class RideService {
     
+    private static final Logger log = LoggerFactory.getLogger(RideService.class);
+    
     @Autowired
     private RideRepository rideRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private RideArchive rideArchive;
     
-    private String getCurrentUsername() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return authentication.getName();
+    // Boot's application executor: virtual threads when spring.threads.virtual.enabled=true
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private AsyncTaskExecutor taskExecutor;
+    
+    @Autowired
+    private PendingRideBoard pendingRideBoard;
+    
+    @Autowired
+    private NearbyRideIndex nearbyRideIndex;
+    
+    @Autowired
+    private UserCache userCache;
+    
+    @Autowired
+    private RideEventBroadcaster rideEventBroadcaster;
+    
+    @Autowired
+    private Validator validator;
+    
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+    
+    @Autowired
+    private DriverLocationService driverLocationService;
+    
+    @Autowired
+    private RideMetrics rideMetrics;
+    
+    @Autowired
+    private RideLifecycleRecorder rideLifecycleRecorder;
+    
+    @Autowired
+    private RideSummaryService rideSummaryService;
+    
+    @Autowired
+    private RideListVersions rideListVersions;
+    
+    // Loads pending rides into the board (and its nearby index) without holding up startup
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmPendingRideBoard() {
+        taskExecutor.execute(() -> {
+            try {
+                long readStartedAt = System.currentTimeMillis();
+                pendingRideBoard.load(rideRepository.findByStatus("REQUESTED"), readStartedAt);
+                rideListVersions.bumpPending();
+                log.info("Pending ride board loaded with {} rides", pendingRideBoard.size());
+            } catch (Exception e) {
+                log.warn("Could not load pending rides into the board: {}", e.getMessage());
+            }
+        });
     }
     
-    private User getCurrentUser() {
-        String username = getCurrentUsername();
-        return userRepository.findByUsername(username)
+    // Identity comes from the JWT principal; only tokens without an id claim fall back to a (cached) user lookup
+    private AuthenticatedUser getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof AuthenticatedUser principal && principal.getId() != null) {
+            return principal;
+        }
+        User user = userCache.findByUsername(authentication.getName())
                 .orElseThrow(() -> new NotFoundException("User not found"));
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getRole());
     }
     
     public RideResponse createRide(CreateRideRequest request) {
-        User user = getCurrentUser();
-        
-        // Only ROLE_USER can create rides
-        if (!user.getRole().equals("ROLE_USER")) {
-            throw new BadRequestException("Only passengers can request rides");
-        }
+        AuthenticatedUser user = getCurrentUser();
+        RideRules.requirePassenger(user.getRole());
         
-        Ride ride = new Ride();
-        ride.setUserId(user.getId());
-        ride.setPickupLocation(request.getPickupLocation());
-        ride.setDropLocation(request.getDropLocation());
-        ride.setStatus("REQUESTED");
-        ride.setCreatedAt(LocalDateTime.now());
+        Ride ride = RideRules.newRequestedRide(user.getId(), request);
         
         Ride savedRide = rideRepository.save(ride);
+        rideMetrics.transitioned("REQUESTED");
+        rideLifecycleRecorder.record(savedRide);
+        rideSummaryService.record(savedRide);
+        pendingRideBoard.apply(savedRide);
+        rideListVersions.bump(savedRide);
+        rideEventBroadcaster.publish("CREATED", savedRide);
         return RideResponse.fromRide(savedRide);
     }
     
+    // A retry carrying the same Idempotency-Key gets the first response back instead of creating another ride
+    public RideResponse createRide(CreateRideRequest request, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return createRide(request);
+        }
+        AuthenticatedUser user = getCurrentUser();
+        return idempotencyStore.execute(user.getId(), "create-ride", idempotencyKey, fingerprint(request),
+                () -> createRide(request));
+    }
+    
+    // The request fields by name rather than CreateRideRequest.toString(), so the fingerprint only changes when
+    // the request does. Values are length-prefixed (-1 for null) so no two requests run together the same way.
+    static String fingerprint(CreateRideRequest request) {
+        StringBuilder fingerprint = new StringBuilder();
+        for (Object field : Arrays.asList(request.getPickupLocation(), request.getDropLocation(),
+                request.getPickupLatitude(), request.getPickupLongitude())) {
+            String value = field != null ? field.toString() : "";
+            fingerprint.append(field != null ? value.length() : -1).append(':').append(value).append(';');
+        }
+        return fingerprint.toString();
+    }
+    
+    // Creates many rides with one unordered bulk insert; invalid items are reported, not fatal
+    public BatchResult createRides(List<CreateRideRequest> requests) {
+        AuthenticatedUser user = getCurrentUser();
+        RideRules.requirePassenger(user.getRole());
+        RideRules.validateBatchSize(requests.size());
+        
+        BatchItemResult[] results = new BatchItemResult[requests.size()];
+        List<Ride> rides = new ArrayList<>(requests.size());
+        List<Integer> positions = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            CreateRideRequest request = requests.get(i);
+            String invalid = violations(request);
+            if (invalid != null) {
+                results[i] = BatchItemResult.failed(i, null, "INVALID", invalid);
+                continue;
+            }
+            try {
+                Ride ride = RideRules.newRequestedRide(user.getId(), request);
+                // Ids are assigned up front so results can be matched without reading the rides back
+                ride.setId(new ObjectId().toHexString());
+                rides.add(ride);
+                positions.add(i);
+            } catch (BadRequestException e) {
+                results[i] = BatchItemResult.failed(i, null, "INVALID", e.getMessage());
+            }
+        }
+        
+        Map<Integer, String> failures = rides.isEmpty() ? Map.of() : rideRepository.insertUnordered(rides);
+        for (int j = 0; j < rides.size(); j++) {
+            Ride ride = rides.get(j);
+            int i = positions.get(j);
+            if (failures.containsKey(j)) {
+                results[i] = BatchItemResult.failed(i, null, "FAILED", failures.get(j));
+                continue;
+            }
+            rideMetrics.transitioned("REQUESTED");
+            rideLifecycleRecorder.record(ride);
+            rideSummaryService.record(ride);
+            pendingRideBoard.apply(ride);
+            rideListVersions.bump(ride);
+            rideEventBroadcaster.publish("CREATED", ride);
+            results[i] = BatchItemResult.succeeded(i, "CREATED", RideResponse.fromRide(ride));
+        }
+        return BatchResult.of(Arrays.asList(results));
+    }
+    
+    // Registers a push-channel subscriber for ride events; run the returned handle to unsubscribe
+    public Runnable subscribeToRideEvents(RideEventSubscriber subscriber) {
+        return rideEventBroadcaster.subscribe(subscriber);
+    }
+    
+    // Without explicit coordinates the search is centred on the driver's last reported location
+    public List<RideResponse> getNearbyPendingRides(Double latitude, Double longitude, double radiusKm, int limit) {
+        if (latitude == null || longitude == null) {
+            if (latitude != null || longitude != null) {
+                throw new BadRequestException("Latitude and longitude must be provided together");
+            }
+            DriverPosition position = driverLocationService.findPosition(getCurrentUser().getId())
+                    .filter(DriverPosition::hasLocation)
+                    .orElseThrow(() -> new BadRequestException("No location reported yet; pass latitude and longitude"));
+            latitude = position.latitude();
+            longitude = position.longitude();
+        }
+        RideRules.validateNearbyQuery(latitude, longitude, radiusKm, limit);
+        
+        return nearbyRideIndex.findNearest(latitude, longitude, radiusKm, limit).stream()
+                .map(RideResponse::fromRide)
+                .collect(Collectors.toList());
+    }
+    
+    // Buffered in memory and written to Mongo with the next batch flush
+    public void reportDriverLocation(DriverLocationRequest request) {
+        driverLocationService.reportLocation(getCurrentUser().getId(),
+                request.getLatitude(), request.getLongitude(), request.getAvailable());
+    }
+    
+    public void setDriverAvailability(boolean available) {
+        driverLocationService.setAvailability(getCurrentUser().getId(), available);
+    }
+    
+    // Served from the in-memory board; Mongo is only read until the board is loaded or while it is resyncing
     public List<RideResponse> getPendingRides() {
-        List<Ride> rides = rideRepository.findByStatus("REQUESTED");
+        List<Ride> rides = pendingRideBoard.isReady()
+                ? pendingRideBoard.pending()
+                : rideRepository.findByStatus("REQUESTED");
         return rides.stream()
                 .map(RideResponse::fromRide)
                 .collect(Collectors.toList());
     }
     
     public RideResponse acceptRide(String rideId) {
-        User driver = getCurrentUser();
+        AuthenticatedUser driver = getCurrentUser();
+        RideRules.requireDriver(driver.getRole());
+        RideRules.validateRideId(rideId);
         
-        // Only ROLE_DRIVER can accept rides
-        if (!driver.getRole().equals("ROLE_DRIVER")) {
-            throw new BadRequestException("Only drivers can accept rides");
-        }
+        // Off duty before the write, so the dispatcher cannot hand this driver a second ride meanwhile
+        DriverPosition claim = driverLocationService.claim(driver.getId());
         
-        Ride ride = rideRepository.findById(rideId)
-                .orElseThrow(() -> new NotFoundException("Ride not found"));
+        // Single conditional update: only one concurrent driver can win the REQUESTED -> ACCEPTED transition
+        Ride updatedRide = rideRepository.acceptIfRequested(rideId, driver.getId());
         
-        // Check if ride is in REQUESTED status
-        if (!ride.getStatus().equals("REQUESTED")) {
-            throw new BadRequestException("Ride is not available for acceptance");
+        // Either way the ride is no longer pending, so drop any stale board entry
+        pendingRideBoard.remove(rideId);
+        if (updatedRide == null) {
+            if (claim != null) {
+                driverLocationService.release(driver.getId(), claim);
+            }
+            // Find out why: a ride the lifecycle log has seen needs no read; archived rides exist, finished
+            boolean exists = rideLifecycleRecorder.knows(rideId) || rideRepository.existsById(rideId)
+                    || rideArchive.findById(rideId).isPresent();
+            rideMetrics.rejected("ACCEPTED", exists ? "conflict" : "not_found");
+            throw RideRules.acceptanceRejected(exists);
         }
         
-        ride.setDriverId(driver.getId());
-        ride.setStatus("ACCEPTED");
-        
-        Ride updatedRide = rideRepository.save(ride);
+        rideMetrics.transitioned("ACCEPTED");
+        rideLifecycleRecorder.record(updatedRide);
+        rideSummaryService.record(updatedRide);
+        rideListVersions.bump(updatedRide);
+        rideEventBroadcaster.publish("ACCEPTED", updatedRide);
         return RideResponse.fromRide(updatedRide);
     }
     
+    // A retried accept with the same Idempotency-Key gets the original response, not a 409 for its own acceptance
+    public RideResponse acceptRide(String rideId, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return acceptRide(rideId);
+        }
+        AuthenticatedUser driver = getCurrentUser();
+        return idempotencyStore.execute(driver.getId(), "accept-ride", idempotencyKey, rideId,
+                () -> acceptRide(rideId));
+    }
+    
     public RideResponse completeRide(String rideId) {
-        User currentUser = getCurrentUser();
-        
-        Ride ride = rideRepository.findById(rideId)
-                .orElseThrow(() -> new NotFoundException("Ride not found"));
+        AuthenticatedUser currentUser = getCurrentUser();
         
-        // Check if ride is in ACCEPTED status
-        if (!ride.getStatus().equals("ACCEPTED")) {
-            throw new BadRequestException("Ride must be accepted before completion");
+        Ride updatedRide = rideRepository.completeIfAccepted(rideId, currentUser.getId());
+        if (updatedRide != null) {
+            rideMetrics.transitioned("COMPLETED");
+            rideLifecycleRecorder.record(updatedRide);
+            rideSummaryService.record(updatedRide);
+            rideListVersions.bump(updatedRide);
+            return RideResponse.fromRide(updatedRide);
         }
+        rideMetrics.rejected("COMPLETED", "rejected");
         
-        // Verify that the current user is either the passenger or the driver
-        if (!ride.getUserId().equals(currentUser.getId()) && !currentUser.getId().equals(ride.getDriverId())) {
-            throw new BadRequestException("You are not authorized to complete this ride");
-        }
+        // The conditional update did not match; find out why. A ride the lifecycle log saw finish needs no read (a
+        // retried complete, usually); otherwise read once (an archived ride is already completed)
+        Ride ride = rideLifecycleRecorder.findFinished(rideId)
+                .or(() -> rideRepository.findById(rideId))
+                .or(() -> rideArchive.findById(rideId))
+                .orElseThrow(() -> new NotFoundException("Ride not found"));
         
-        ride.setStatus("COMPLETED");
+        throw RideRules.completionRejected(ride);
+    }
+    
+    // Completes every listed ride the caller takes part in, with one bulk write
+    public BatchResult completeRides(List<String> rideIds) {
+        AuthenticatedUser user = getCurrentUser();
+        RideRules.validateBatchSize(rideIds.size());
         
-        Ride updatedRide = rideRepository.save(ride);
-        return RideResponse.fromRide(updatedRide);
+        return bulkTransition(rideIds, "COMPLETED",
+                ride -> RideRules.completionRejection(ride, user.getId()),
+                rideId -> RideTransitions.acceptedFor(rideId, user.getId()),
+                RideTransitions.complete(),
+                ride -> { });
+    }
+    
+    // Cancels every listed ride the passenger requested that no driver has accepted yet (USER only)
+    public BatchResult cancelRides(List<String> rideIds) {
+        AuthenticatedUser user = getCurrentUser();
+        RideRules.requirePassenger(user.getRole());
+        RideRules.validateBatchSize(rideIds.size());
+        
+        return bulkTransition(rideIds, "CANCELLED",
+                ride -> RideRules.cancellationRejection(ride, user.getId()),
+                rideId -> RideTransitions.requestedBy(rideId, user.getId()),
+                RideTransitions.cancel(),
+                ride -> {
+                    pendingRideBoard.remove(ride.getId());
+                    rideEventBroadcaster.publish("CANCELLED", ride);
+                });
     }
     
     public List<RideResponse> getUserRides() {
-        User user = getCurrentUser();
+        AuthenticatedUser user = getCurrentUser();
         
-        List<Ride> rides = rideRepository.findByUserId(user.getId());
+        List<Ride> rides = rideRepository.findAllBy("userId", user.getId());
         return rides.stream()
                 .map(RideResponse::fromRide)
                 .collect(Collectors.toList());
     }
     
     public List<RideResponse> getDriverRides() {
-        User driver = getCurrentUser();
+        AuthenticatedUser driver = getCurrentUser();
         
-        List<Ride> rides = rideRepository.findByDriverId(driver.getId());
+        List<Ride> rides = rideRepository.findAllBy("driverId", driver.getId());
         return rides.stream()
                 .map(RideResponse::fromRide)
                 .collect(Collectors.toList());
     }
+    
+    // Version stamps of the list views, taken before the list is read; null while they cannot be trusted
+    public String getUserRidesVersion() {
+        return rideListVersions.participantStamp(RideListVersions.View.USER, getCurrentUser().getId());
+    }
+    
+    public String getDriverRidesVersion() {
+        return rideListVersions.participantStamp(RideListVersions.View.DRIVER, getCurrentUser().getId());
+    }
+    
+    public String getPendingRidesVersion() {
+        return rideListVersions.pendingStamp();
+    }
+    
+    // Totals of the caller's rides as passenger or driver, read from a precomputed summary
+    public RideSummaryResponse getRideSummary() {
+        return rideSummaryService.find(getCurrentUser().getId());
+    }
+    
+    public RidePage getUserRidesPage(String cursor, int limit) {
+        AuthenticatedUser user = getCurrentUser();
+        return findPage("userId", user.getId(), cursor, limit, Sort.Direction.DESC);
+    }
+    
+    public RidePage getDriverRidesPage(String cursor, int limit) {
+        AuthenticatedUser driver = getCurrentUser();
+        return findPage("driverId", driver.getId(), cursor, limit, Sort.Direction.DESC);
+    }
+    
+    // Pending rides are paged oldest first so long-waiting requests are seen first
+    public RidePage getPendingRidesPage(String cursor, int limit) {
+        return findPage("status", "REQUESTED", cursor, limit, Sort.Direction.ASC);
+    }
+    
+    // Streams are backed by an open Mongo cursor; callers must close them
+    public Stream<RideResponse> streamUserRides() {
+        AuthenticatedUser user = getCurrentUser();
+        return rideRepository.streamBy("userId", user.getId()).map(RideResponse::fromRide);
+    }
+    
+    public Stream<RideResponse> streamDriverRides() {
+        AuthenticatedUser driver = getCurrentUser();
+        return rideRepository.streamBy("driverId", driver.getId()).map(RideResponse::fromRide);
+    }
+    
+    // One read to check every ride, one unordered bulk write of the conditional updates, and a second read
+    // of the ids this batch's updates matched, only if a concurrent request changed some of the rides in between.
+    // A ride another request moved to the same status lacks the batch's marker, so it is a conflict here and its
+    // side effects are left to the request that made the change.
+    private BatchResult bulkTransition(List<String> rideIds, String targetStatus, Function<Ride, String> rejection,
+                                       Function<String, Query> condition, Update update, Consumer<Ride> onTransition) {
+        String transitionId = new ObjectId().toHexString();
+        Map<String, Ride> before = findAllById(rideIds);
+        
+        BatchItemResult[] results = new BatchItemResult[rideIds.size()];
+        Set<String> eligible = new LinkedHashSet<>();
+        for (int i = 0; i < rideIds.size(); i++) {
+            String rideId = rideIds.get(i);
+            Ride ride = rideId != null ? before.get(rideId) : null;
+            if (ride == null) {
+                results[i] = BatchItemResult.failed(i, rideId, "NOT_FOUND", "Ride not found");
+                rideMetrics.rejected(targetStatus, "not_found");
+                continue;
+            }
+            String rejected = rejection.apply(ride);
+            if (rejected != null) {
+                results[i] = BatchItemResult.failed(i, rideId, "REJECTED", rejected);
+                rideMetrics.rejected(targetStatus, "rejected");
+            } else if (!eligible.add(rideId)) {
+                results[i] = BatchItemResult.failed(i, rideId, "REJECTED", "Ride is listed more than once");
+                rideMetrics.rejected(targetStatus, "rejected");
+            }
+        }
+        
+        long modified = eligible.isEmpty() ? 0
+                : rideRepository.updateEachUnordered(eligible.stream().map(condition).toList(),
+                        RideTransitions.markedBy(update, transitionId));
+        Set<String> matched = modified == eligible.size() ? eligible
+                : rideRepository.findIdsMarkedBy(transitionId, eligible);
+        
+        for (int i = 0; i < rideIds.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            String rideId = rideIds.get(i);
+            Ride ride = before.get(rideId);
+            if (!matched.contains(rideId)) {
+                results[i] = BatchItemResult.failed(i, rideId, "CONFLICT", "Ride changed while the batch was applied");
+                rideMetrics.rejected(targetStatus, "conflict");
+                continue;
+            }
+            rideMetrics.transitioned(targetStatus);
+            ride.setStatus(targetStatus);
+            rideLifecycleRecorder.record(ride);
+            rideSummaryService.record(ride);
+            onTransition.accept(ride);
+            rideListVersions.bump(ride);
+            results[i] = BatchItemResult.succeeded(i, targetStatus, RideResponse.fromRide(ride));
+        }
+        return BatchResult.of(Arrays.asList(results));
+    }
+    
+    private Map<String, Ride> findAllById(List<String> rideIds) {
+        Map<String, Ride> rides = new HashMap<>();
+        List<String> ids = rideIds.stream().filter(id -> id != null && ObjectId.isValid(id)).distinct().toList();
+        rideRepository.findAllById(ids).forEach(ride -> rides.put(ride.getId(), ride));
+        // Archived rides are completed, so they are rejected with the same reason as before they were moved
+        List<String> missing = ids.stream().filter(id -> !rides.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            rideArchive.findAllById(missing).forEach(ride -> rides.putIfAbsent(ride.getId(), ride));
+        }
+        return rides;
+    }
+    
+    private String violations(CreateRideRequest request) {
+        if (request == null) {
+            return "Ride request is required";
+        }
+        Set<ConstraintViolation<CreateRideRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+    
+    private RidePage findPage(String field, String value, String cursor, int limit, Sort.Direction direction) {
+        RideRules.validatePageSize(limit);
+        RideCursor after = cursor != null && !cursor.isEmpty() ? RideCursor.decode(cursor) : null;
+        
+        // Fetch one extra row to learn whether another page exists
+        List<Ride> rides = rideRepository.findPage(field, value,
+                after != null ? after.createdAt() : null,
+                after != null ? after.id() : null,
+                limit + 1, direction);
+        
+        boolean hasMore = rides.size() > limit;
+        List<Ride> page = hasMore ? rides.subList(0, limit) : rides;
+        String nextCursor = hasMore ? RideCursor.after(page.get(page.size() - 1)).encode() : null;
+        
+        List<RideResponse> responses = new ArrayList<>(page.size());
+        for (Ride ride : page) {
+            responses.add(RideResponse.fromRide(ride));
+        }
+        return new RidePage(responses, nextCursor);
+    }
 }
@@ -0,0 +1,167 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.model.Ride;
+import com.harsha.assignment.model.RideLifecycleEvent;
+import com.harsha.assignment.util.RideCodec;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Current state of every ride, folded from the lifecycle log. An event replaces the stored ride only if it
+// moves the status forward (REQUESTED, then ACCEPTED, then COMPLETED or CANCELLED), so replaying an event
+// twice or slightly out of order is harmless. Snapshots hold the rides plus the last applied position, so a
+// restart loads the snapshot and replays only the events after it. Once an event is known to be missing from the
+// log the projection is stale for good: its snapshots carry the mark, so a restart does not make it look complete.
+// A finished ride (COMPLETED or CANCELLED) never changes again, so it leaves memory once a snapshot holds it: the
+// projection keeps the active rides plus those finished since the last snapshot.
+public final class RideStateProjection {
+    
+    private static final int SNAPSHOT_MAGIC = 0x52534e31; // "RSN1"
+    private static final int STALE_SNAPSHOT_MAGIC = 0x52535331; // "RSS1"
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final int MAX_RIDE_BYTES = 64 * 1024;
+    private static final int FINISHED = 2;
+    
+    private final Map<String, Ride> rides = new ConcurrentHashMap<>();
+    private volatile long position;
+    private volatile boolean stale;
+    
+    // Single writer: the lifecycle log thread
+    public void apply(RideLifecycleEvent event) {
+        Ride next = event.getRide();
+        rides.merge(next.getId(), next, (current, candidate) ->
+                rank(candidate.getStatus()) > rank(current.getStatus()) ? candidate : current);
+        if (event.getPosition() > position) {
+            position = event.getPosition();
+        }
+    }
+    
+    public Optional<Ride> find(String rideId) {
+        return Optional.ofNullable(rides.get(rideId));
+    }
+    
+    public static boolean isFinished(Ride ride) {
+        return rank(ride.getStatus()) == FINISHED;
+    }
+    
+    public int size() {
+        return rides.size();
+    }
+    
+    public long position() {
+        return position;
+    }
+    
+    // Some status changes never reached the log, so rides here may be behind
+    public void markStale() {
+        stale = true;
+    }
+    
+    public boolean isStale() {
+        return stale;
+    }
+    
+    // Written to a temporary file, forced and renamed, so a crash never leaves a partial snapshot. The position is
+    // read before the rides are copied: rides changed meanwhile are already newer, and replaying them is harmless.
+    // Finished rides it holds are dropped from memory once it is in place. Returns the snapshot's position.
+    public long writeSnapshot(Path file) throws IOException {
+        long snapshotPosition = position;
+        List<Ride> finished = new ArrayList<>();
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+            buffer.putInt(stale ? STALE_SNAPSHOT_MAGIC : SNAPSHOT_MAGIC).putLong(snapshotPosition);
+            for (Ride ride : rides.values()) {
+                if (buffer.remaining() < MAX_RIDE_BYTES + 4) {
+                    drain(channel, buffer);
+                }
+                int start = buffer.position();
+                try {
+                    buffer.position(start + 4);
+                    RideCodec.writeRide(buffer, ride);
+                    buffer.putInt(start, buffer.position() - start - 4);
+                    if (isFinished(ride)) {
+                        finished.add(ride);
+                    }
+                } catch (BufferOverflowException e) {
+                    // Too large to snapshot; it is picked up again from the log
+                    buffer.position(start);
+                }
+            }
+            buffer.putInt(0);
+            drain(channel, buffer);
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        for (Ride ride : finished) {
+            rides.remove(ride.getId(), ride);
+        }
+        return snapshotPosition;
+    }
+    
+    // Replaces the current state with the snapshot's, except that a stale projection stays stale; returns false,
+    // leaving the state untouched, if the file is not a complete snapshot
+    public boolean readSnapshot(Path file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + file + " is larger than 2 GB");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        Map<String, Ride> loaded = new ConcurrentHashMap<>();
+        long snapshotPosition;
+        boolean snapshotStale;
+        try {
+            int magic = buffer.getInt();
+            if (magic != SNAPSHOT_MAGIC && magic != STALE_SNAPSHOT_MAGIC) {
+                return false;
+            }
+            snapshotStale = magic == STALE_SNAPSHOT_MAGIC;
+            snapshotPosition = buffer.getLong();
+            int length;
+            while ((length = buffer.getInt()) > 0) {
+                Ride ride = RideCodec.readRide(buffer.slice(buffer.position(), length));
+                buffer.position(buffer.position() + length);
+                loaded.put(ride.getId(), ride);
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            return false;
+        }
+        rides.clear();
+        rides.putAll(loaded);
+        position = snapshotPosition;
+        stale |= snapshotStale;
+        return true;
+    }
+    
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    private static int rank(String status) {
+        return switch (status) {
+            case null -> -1;
+            case "REQUESTED" -> 0;
+            case "ACCEPTED" -> 1;
+            default -> FINISHED;
+        };
+    }
+}
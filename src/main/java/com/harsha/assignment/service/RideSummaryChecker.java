@@ -0,0 +1,161 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.model.Ride;
+import com.harsha.assignment.model.RideSummary;
+import com.harsha.assignment.repository.RideArchive;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+// Recounts a random sample of ride summaries from the rides collection and the archive partitions, and reports
+// (optionally repairs) any that drifted, e.g. after a crash lost an unflushed delta. Only settled summaries are
+// checked: one flushed within settle-millis may still have deltas in flight on some instance. Opt-in with
+// rides.summary.check.enabled.
+@Component
+@ConditionalOnProperty(name = "rides.summary.check.enabled", havingValue = "true")
+public class RideSummaryChecker {
+    
+    private static final Logger log = LoggerFactory.getLogger(RideSummaryChecker.class);
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private RideArchive rideArchive;
+    
+    @Value("${rides.summary.check.sample-size:20}")
+    private int sampleSize;
+    
+    @Value("${rides.summary.check.settle-millis:60000}")
+    private long settleMillis;
+    
+    @Value("${rides.summary.check.repair:false}")
+    private boolean repair;
+    
+    private final LongAdder checked = new LongAdder();
+    private final LongAdder mismatches = new LongAdder();
+    private final LongAdder repaired = new LongAdder();
+    
+    @Scheduled(fixedDelayString = "${rides.summary.check.interval-millis:600000}")
+    public void checkSafely() {
+        try {
+            check();
+        } catch (Exception e) {
+            log.warn("Ride summary check failed: {}", e.getMessage());
+        }
+    }
+    
+    // Returns how many of the sampled summaries disagreed with the rides they count
+    public int check() {
+        Date settledBefore = new Date(System.currentTimeMillis() - settleMillis);
+        Aggregation sample = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("updatedAt").lt(settledBefore)),
+                Aggregation.sample(sampleSize));
+        int drifted = 0;
+        for (RideSummary summary : mongoTemplate.aggregate(sample, RideSummary.class, RideSummary.class)) {
+            checked.increment();
+            RideSummary actual = recount(summary.getId());
+            if (sameTotals(summary, actual)) {
+                continue;
+            }
+            drifted++;
+            mismatches.increment();
+            log.warn("Ride summary {} drifted: stored {}/{}/{} last {}, counted {}/{}/{} last {}", summary.getId(),
+                    summary.getRides(), summary.getCompleted(), summary.getCancelled(), summary.getLastRideAt(),
+                    actual.getRides(), actual.getCompleted(), actual.getCancelled(), actual.getLastRideAt());
+            if (repair) {
+                repair(summary, actual);
+            }
+        }
+        return drifted;
+    }
+    
+    // Totals straight from the rides the participant took part in, archived ones included
+    public RideSummary recount(String participantId) {
+        Aggregation byStatus = Aggregation.newAggregation(
+                Aggregation.match(new Criteria().orOperator(
+                        Criteria.where("userId").is(participantId), Criteria.where("driverId").is(participantId))),
+                Aggregation.group("status").count().as("count").max("createdAt").as("lastRideAt"));
+        List<String> collections = new ArrayList<>();
+        collections.add(mongoTemplate.getCollectionName(Ride.class));
+        collections.addAll(rideArchive.collections());
+        
+        RideSummary totals = new RideSummary(participantId, 0, 0, 0, null, null);
+        for (String collection : collections) {
+            for (Document group : mongoTemplate.aggregate(byStatus, collection, Document.class)) {
+                long count = ((Number) group.get("count")).longValue();
+                totals.setRides(totals.getRides() + count);
+                if ("COMPLETED".equals(group.get("_id"))) {
+                    totals.setCompleted(totals.getCompleted() + count);
+                } else if ("CANCELLED".equals(group.get("_id"))) {
+                    totals.setCancelled(totals.getCancelled() + count);
+                }
+                Date last = group.getDate("lastRideAt");
+                if (last != null) {
+                    LocalDateTime lastRideAt = LocalDateTime.ofInstant(last.toInstant(), ZoneId.systemDefault());
+                    if (totals.getLastRideAt() == null || lastRideAt.isAfter(totals.getLastRideAt())) {
+                        totals.setLastRideAt(lastRideAt);
+                    }
+                }
+            }
+        }
+        return totals;
+    }
+    
+    public long checked() {
+        return checked.sum();
+    }
+    
+    public long mismatches() {
+        return mismatches.sum();
+    }
+    
+    public long repaired() {
+        return repaired.sum();
+    }
+    
+    // Only if no flush touched the summary since it was sampled
+    private void repair(RideSummary stored, RideSummary actual) {
+        Query unchanged = Query.query(Criteria.where("_id").is(stored.getId()).and("updatedAt").is(stored.getUpdatedAt()));
+        Update totals = new Update()
+                .set("rides", actual.getRides())
+                .set("completed", actual.getCompleted())
+                .set("cancelled", actual.getCancelled())
+                .set("lastRideAt", actual.getLastRideAt())
+                .set("updatedAt", new Date());
+        if (mongoTemplate.updateFirst(unchanged, totals, RideSummary.class).getModifiedCount() > 0) {
+            repaired.increment();
+        }
+    }
+    
+    // Mongo keeps milliseconds, so times are compared at that precision
+    private static boolean sameTotals(RideSummary stored, RideSummary actual) {
+        return stored.getRides() == actual.getRides()
+                && stored.getCompleted() == actual.getCompleted()
+                && stored.getCancelled() == actual.getCancelled()
+                && Objects.equals(truncate(stored.getLastRideAt()), truncate(actual.getLastRideAt()));
+    }
+    
+    private static LocalDateTime truncate(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.truncatedTo(ChronoUnit.MILLIS) : null;
+    }
+}
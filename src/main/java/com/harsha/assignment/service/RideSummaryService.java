@@ -0,0 +1,257 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.dto.RideSummaryResponse;
+import com.harsha.assignment.model.Ride;
+import com.harsha.assignment.model.RideSummary;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per-passenger and per-driver ride totals (RideSummary). A committed transition only adds to the participant's
+// in-memory delta, a set of LongAdders, so concurrent transitions never contend. A periodic flush folds every
+// delta into ride_summaries with one unordered bulk of $inc/$max upserts. A summary read is one document lookup
+// plus this instance's unflushed delta, whatever the length of the history.
+@Service
+public class RideSummaryService {
+    
+    private static final Logger log = LoggerFactory.getLogger(RideSummaryService.class);
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Value("${rides.summary.flush-batch-size:1000}")
+    private int flushBatchSize;
+    
+    private final Map<String, Delta> deltas = new ConcurrentHashMap<>();
+    // Deltas that were idle at the last flush and left the map; drained once more in case a transition that
+    // looked them up just before was still adding to them
+    private List<Map.Entry<String, Delta>> retired = List.of();
+    
+    private final LongAdder summariesWritten = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+    private volatile long lastFlushDurationMillis;
+    
+    // Called after every committed status change, with the ride as it now is
+    public void record(Ride ride) {
+        String status = ride.getStatus();
+        if ("REQUESTED".equals(status)) {
+            delta(ride.getUserId()).ride(ride.getCreatedAt());
+        } else if ("ACCEPTED".equals(status)) {
+            delta(ride.getDriverId()).ride(ride.getCreatedAt());
+        } else if ("COMPLETED".equals(status)) {
+            delta(ride.getUserId()).completed.increment();
+            delta(ride.getDriverId()).completed.increment();
+        } else if ("CANCELLED".equals(status)) {
+            delta(ride.getUserId()).cancelled.increment();
+        }
+    }
+    
+    public RideSummaryResponse find(String participantId) {
+        return withPending(participantId, mongoTemplate.findById(participantId, RideSummary.class));
+    }
+    
+    // Adds what this instance has not flushed yet to the stored totals (null when the participant has none yet)
+    public RideSummaryResponse withPending(String participantId, RideSummary stored) {
+        Counts counts = stored != null
+                ? new Counts(stored.getRides(), stored.getCompleted(), stored.getCancelled(), millis(stored.getLastRideAt()))
+                : Counts.NONE;
+        Delta delta = deltas.get(participantId);
+        if (delta != null) {
+            counts = counts.plus(delta.peek());
+        }
+        return new RideSummaryResponse(counts.rides(), counts.completed(), counts.cancelled(),
+                dateTime(counts.lastRideAt()));
+    }
+    
+    @Scheduled(fixedDelayString = "${rides.summary.flush-millis:1000}")
+    public synchronized void flush() {
+        long started = System.currentTimeMillis();
+        Map<String, Counts> pending = new LinkedHashMap<>();
+        for (Map.Entry<String, Delta> entry : retired) {
+            pending.merge(entry.getKey(), entry.getValue().drain(), Counts::plus);
+        }
+        List<Map.Entry<String, Delta>> idle = new ArrayList<>();
+        for (Map.Entry<String, Delta> entry : deltas.entrySet()) {
+            Counts counts = entry.getValue().drain();
+            if (!counts.isEmpty()) {
+                pending.merge(entry.getKey(), counts, Counts::plus);
+            } else if (deltas.remove(entry.getKey(), entry.getValue())) {
+                // Nothing since the last flush, so only active participants stay in memory
+                idle.add(Map.entry(entry.getKey(), entry.getValue()));
+            }
+        }
+        retired = idle;
+        
+        List<String> participantIds = new ArrayList<>(flushBatchSize);
+        List<Counts> batch = new ArrayList<>(flushBatchSize);
+        for (Map.Entry<String, Counts> entry : pending.entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                continue;
+            }
+            participantIds.add(entry.getKey());
+            batch.add(entry.getValue());
+            if (participantIds.size() == flushBatchSize) {
+                write(participantIds, batch);
+                participantIds.clear();
+                batch.clear();
+            }
+        }
+        if (!participantIds.isEmpty()) {
+            write(participantIds, batch);
+        }
+        lastFlushDurationMillis = System.currentTimeMillis() - started;
+    }
+    
+    // Shutdown flush, so a clean restart loses nothing
+    @PreDestroy
+    public void stop() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("Could not flush ride summaries on shutdown: {}", e.getMessage());
+        }
+    }
+    
+    public long summariesWritten() {
+        return summariesWritten.sum();
+    }
+    
+    public long flushFailures() {
+        return flushFailures.sum();
+    }
+    
+    // Participants with changes in memory
+    public int pendingParticipants() {
+        return deltas.size();
+    }
+    
+    public long lastFlushDurationMillis() {
+        return lastFlushDurationMillis;
+    }
+    
+    // What this instance holds for the participant and has not flushed yet
+    Counts unflushed(String participantId) {
+        Delta delta = deltas.get(participantId);
+        return delta != null ? delta.peek() : Counts.NONE;
+    }
+    
+    private Delta delta(String participantId) {
+        return participantId != null ? deltas.computeIfAbsent(participantId, id -> new Delta()) : Delta.DISCARD;
+    }
+    
+    private void write(List<String> participantIds, List<Counts> batch) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RideSummary.class);
+        Date now = new Date();
+        for (int i = 0; i < participantIds.size(); i++) {
+            Counts counts = batch.get(i);
+            Update update = new Update()
+                    .inc("rides", counts.rides())
+                    .inc("completed", counts.completed())
+                    .inc("cancelled", counts.cancelled())
+                    .set("updatedAt", now);
+            if (counts.lastRideAt() != Counts.NO_RIDE) {
+                update.max("lastRideAt", dateTime(counts.lastRideAt()));
+            }
+            bulk.upsert(Query.query(Criteria.where("_id").is(participantIds.get(i))), update);
+        }
+        try {
+            bulk.execute();
+            summariesWritten.add(participantIds.size());
+        } catch (BulkOperationException e) {
+            // Unordered: only the failed upserts are retried, the rest already landed
+            flushFailures.increment();
+            log.warn("Could not flush {} of {} ride summaries: {}", e.getErrors().size(), participantIds.size(),
+                    e.getMessage());
+            summariesWritten.add(participantIds.size() - e.getErrors().size());
+            e.getErrors().forEach(error -> requeue(participantIds.get(error.getIndex()), batch.get(error.getIndex())));
+        } catch (Exception e) {
+            flushFailures.increment();
+            log.warn("Could not flush {} ride summaries: {}", participantIds.size(), e.getMessage());
+            for (int i = 0; i < participantIds.size(); i++) {
+                requeue(participantIds.get(i), batch.get(i));
+            }
+        }
+    }
+    
+    // Retried with the next flush
+    private void requeue(String participantId, Counts counts) {
+        Delta delta = delta(participantId);
+        delta.rides.add(counts.rides());
+        delta.completed.add(counts.completed());
+        delta.cancelled.add(counts.cancelled());
+        delta.lastRideAt.accumulate(counts.lastRideAt());
+    }
+    
+    // LocalDateTime carries no zone, so UTC here is only an encoding into a comparable long
+    private static long millis(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.toInstant(ZoneOffset.UTC).toEpochMilli() : Counts.NO_RIDE;
+    }
+    
+    private static LocalDateTime dateTime(long millis) {
+        return millis != Counts.NO_RIDE
+                ? LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000), (int) Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC)
+                : null;
+    }
+    
+    record Counts(long rides, long completed, long cancelled, long lastRideAt) {
+        
+        static final long NO_RIDE = Long.MIN_VALUE;
+        static final Counts NONE = new Counts(0, 0, 0, NO_RIDE);
+        
+        Counts plus(Counts other) {
+            return new Counts(rides + other.rides, completed + other.completed, cancelled + other.cancelled,
+                    Math.max(lastRideAt, other.lastRideAt));
+        }
+        
+        boolean isEmpty() {
+            return rides == 0 && completed == 0 && cancelled == 0 && lastRideAt == NO_RIDE;
+        }
+    }
+    
+    // Striped counters: transitions on many threads add without contending; a flush reads and resets each one
+    private static final class Delta {
+        
+        // Transitions without a participant (a completed ride that never had a driver) land here and are never read
+        static final Delta DISCARD = new Delta();
+        
+        final LongAdder rides = new LongAdder();
+        final LongAdder completed = new LongAdder();
+        final LongAdder cancelled = new LongAdder();
+        final LongAccumulator lastRideAt = new LongAccumulator(Math::max, Counts.NO_RIDE);
+        
+        void ride(LocalDateTime createdAt) {
+            rides.increment();
+            lastRideAt.accumulate(millis(createdAt));
+        }
+        
+        Counts peek() {
+            return new Counts(rides.sum(), completed.sum(), cancelled.sum(), lastRideAt.get());
+        }
+        
+        Counts drain() {
+            return new Counts(rides.sumThenReset(), completed.sumThenReset(), cancelled.sumThenReset(),
+                    lastRideAt.getThenReset());
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.model.RevokedToken;
+import com.harsha.assignment.util.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Revoked access-token ids (jti). Requests check an in-memory Bloom filter, so a token that was never
+// revoked (the normal case) costs a few hash probes and no Mongo round trip. Only filter hits, meaning
+// real revocations plus ~1% false positives, are confirmed against Mongo, and those answers are cached.
+// Other instances' revocations arrive through a periodic incremental sync. The filter is rebuilt once per
+// access-token lifetime so ids of expired tokens drop out.
+@Component
+public class TokenRevocationList {
+    
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationList.class);
+    private static final long SYNC_OVERLAP_MILLIS = 2000;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Value("${jwt.expiration}")
+    private long accessTokenLifetimeMillis;
+    
+    @Value("${jwt.revocation.expected-revocations:100000}")
+    private int expectedRevocations;
+    
+    @Value("${jwt.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+    
+    @Value("${jwt.revocation.sync-millis:5000}")
+    private long syncMillis;
+    
+    private volatile BloomFilter filter;
+    private volatile long lastSyncMillis;
+    private volatile long lastRebuildMillis;
+    
+    // Answers for filter hits, kept until the token would have expired (revoked) or the next sync (not revoked)
+    private final Map<String, Confirmation> confirmed = new ConcurrentHashMap<>();
+    
+    // Fast path: false means definitely not revoked
+    public boolean mightBeRevoked(String tokenId) {
+        BloomFilter current = filter;
+        return current == null || current.mightContain(tokenId);
+    }
+    
+    // Full check; touches Mongo only for filter hits whose answer is not cached yet
+    public boolean isRevoked(String tokenId) {
+        if (!mightBeRevoked(tokenId)) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        Confirmation cached = confirmed.get(tokenId);
+        if (cached != null && cached.untilMillis() > now) {
+            return cached.revoked();
+        }
+        RevokedToken revoked = mongoTemplate.findById(tokenId, RevokedToken.class);
+        boolean isRevoked = revoked != null;
+        confirmed.put(tokenId, new Confirmation(isRevoked, isRevoked ? revoked.getExpiresAt().getTime() : now + syncMillis));
+        return isRevoked;
+    }
+    
+    public void revoke(String tokenId, Date expiresAt) {
+        Date now = new Date();
+        mongoTemplate.save(new RevokedToken(tokenId, now, expiresAt));
+        BloomFilter current = filter;
+        if (current != null) {
+            current.add(tokenId);
+        }
+        confirmed.put(tokenId, new Confirmation(true, expiresAt.getTime()));
+    }
+    
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-millis:5000}")
+    public void sync() {
+        long now = System.currentTimeMillis();
+        try {
+            if (filter == null || now - lastRebuildMillis >= accessTokenLifetimeMillis) {
+                rebuild(now);
+            } else {
+                Query query = Query.query(Criteria.where("revokedAt").gte(new Date(lastSyncMillis - SYNC_OVERLAP_MILLIS)));
+                query.fields().include("_id");
+                BloomFilter current = filter;
+                mongoTemplate.find(query, RevokedToken.class).forEach(token -> current.add(token.getId()));
+                lastSyncMillis = now;
+            }
+            confirmed.values().removeIf(confirmation -> confirmation.untilMillis() <= now);
+        } catch (Exception e) {
+            log.warn("Could not sync revoked tokens: {}", e.getMessage());
+        }
+    }
+    
+    private void rebuild(long now) {
+        Query query = Query.query(Criteria.where("expiresAt").gt(new Date(now)));
+        query.fields().include("_id");
+        List<RevokedToken> live = mongoTemplate.find(query, RevokedToken.class);
+        
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedRevocations, live.size() * 2), falsePositiveRate);
+        live.forEach(token -> rebuilt.add(token.getId()));
+        filter = rebuilt;
+        // Local revocations that raced with the read above
+        confirmed.forEach((tokenId, confirmation) -> {
+            if (confirmation.revoked()) {
+                rebuilt.add(tokenId);
+            }
+        });
+        lastSyncMillis = now;
+        lastRebuildMillis = now;
+        log.debug("Rebuilt revocation filter with {} tokens", live.size());
+    }
+    
+    private record Confirmation(boolean revoked, long untilMillis) {
+    }
+}
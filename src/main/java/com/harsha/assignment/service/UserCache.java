@@ -0,0 +1,63 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.model.User;
+import com.harsha.assignment.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Small read-through cache of users by username with a TTL
+@Component
+public class UserCache {
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Value("${users.cache.ttl-millis:300000}")
+    private long ttlMillis;
+    
+    @Value("${users.cache.max-size:10000}")
+    private int maxSize;
+    
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    
+    public Optional<User> findByUsername(String username) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(username);
+        if (entry != null && entry.expiresAt() > now) {
+            return Optional.of(entry.user());
+        }
+        
+        Optional<User> user = userRepository.findByUsername(username);
+        if (user.isPresent()) {
+            if (entries.size() >= maxSize) {
+                evict(now);
+            }
+            entries.put(username, new Entry(user.get(), now + ttlMillis));
+        } else {
+            entries.remove(username);
+        }
+        return user;
+    }
+    
+    public void invalidate(String username) {
+        entries.remove(username);
+    }
+    
+    private void evict(long now) {
+        entries.values().removeIf(entry -> entry.expiresAt() <= now);
+        Iterator<String> keys = entries.keySet().iterator();
+        while (entries.size() >= maxSize && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+    
+    private record Entry(User user, long expiresAt) {
+    }
+}
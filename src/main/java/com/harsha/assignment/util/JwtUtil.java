@@ -1,9 +1,13 @@
 package com.harsha.assignment.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
@@ -13,6 +17,12 @@ import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 
 @Component
@@ -24,17 +34,81 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private Long expiration;
     
+    @Value("${jwt.claims-cache.max-size:10000}")
+    private int claimsCacheMaxSize;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    // Built once; both are immutable and thread-safe
+    private SecretKey signingKey;
+    private JwtParser parser;
+    
+    // auth.jwt.parse{cache}: hits skip the signature check, so misses are the cost worth watching
+    private Timer cacheHitTimer;
+    private Timer cacheMissTimer;
+    
+    // Verified claims keyed by SHA-256 of the token, so raw bearer tokens are never held in memory
+    private final Map<String, TokenClaims> claimsCache = new ConcurrentHashMap<>();
+    // Cached keys, oldest first. Tokens share one lifetime, so the oldest entries are also the first to expire, and
+    // eviction only ever looks at the head. Hits stay lock-free; evictLock only keeps two evictions apart.
+    private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock evictLock = new ReentrantLock();
+    
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser().verifyWith(signingKey).build();
+        cacheHitTimer = meterRegistry.timer("auth.jwt.parse", "cache", "hit");
+        cacheMissTimer = meterRegistry.timer("auth.jwt.parse", "cache", "miss");
+    }
+    
     private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signingKey;
+    }
+    
+    // Verifies the token once and returns its claims; repeat calls for the same token are served from cache.
+    // Throws a JwtException if the token is malformed, tampered with or expired.
+    public TokenClaims parseToken(String token) {
+        long started = System.nanoTime();
+        String key = TokenHashes.sha256(token);
+        long now = System.currentTimeMillis();
+        
+        TokenClaims cached = claimsCache.get(key);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                cacheHitTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                return cached;
+            }
+            claimsCache.remove(key, cached);
+        }
+        
+        Claims claims;
+        try {
+            claims = extractAllClaims(token);
+        } finally {
+            cacheMissTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+        TokenClaims parsed = new TokenClaims(
+                claims.get("uid", String.class),
+                claims.getSubject(),
+                claims.get("role", String.class),
+                claims.getIssuedAt(),
+                claims.getExpiration(),
+                claims.getId());
+        if (claimsCache.putIfAbsent(key, parsed) == null) {
+            insertionOrder.add(key);
+            evict(now);
+        }
+        return parsed;
     }
     
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return parseToken(token).username();
     }
     
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return parseToken(token).expiration();
     }
     
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
@@ -43,19 +117,16 @@ public class JwtUtil {
     }
     
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
     
     private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return parseToken(token).isExpired(System.currentTimeMillis());
     }
     
-    public String generateToken(String username, String role) {
+    public String generateToken(String userId, String username, String role) {
         Map<String, Object> claims = new HashMap<>();
+        claims.put("uid", userId);
         claims.put("role", role);
         return createToken(claims, username);
     }
@@ -64,6 +135,7 @@ public class JwtUtil {
         return Jwts.builder()
                 .claims(claims)
                 .subject(subject)
+                .id(UUID.randomUUID().toString()) // jti, the handle used to revoke this token
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
                 .signWith(getSigningKey())
@@ -76,7 +148,33 @@ public class JwtUtil {
     }
     
     public String extractRole(String token) {
-        Claims claims = extractAllClaims(token);
-        return claims.get("role", String.class);
+        return parseToken(token).role();
+    }
+    
+    int claimsCacheSize() {
+        return claimsCache.size();
+    }
+    
+    // Drops entries from the oldest end while they are expired, already gone, or the cache is over its size; each
+    // key is queued once, so this costs O(1) per insert. Skipped while another thread is at it.
+    private void evict(long now) {
+        if (!evictLock.tryLock()) {
+            return;
+        }
+        try {
+            String eldest;
+            while ((eldest = insertionOrder.peek()) != null) {
+                TokenClaims claims = claimsCache.get(eldest);
+                if (claims != null && !claims.isExpired(now) && claimsCache.size() <= claimsCacheMaxSize) {
+                    return;
+                }
+                insertionOrder.poll();
+                if (claims != null) {
+                    claimsCache.remove(eldest, claims);
+                }
+            }
+        } finally {
+            evictLock.unlock();
+        }
     }
 }
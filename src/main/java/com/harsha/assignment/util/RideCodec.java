@@ -0,0 +1,88 @@
+package com.harsha.assignment.util;
+
+import com.harsha.assignment.model.Ride;
+import com.harsha.assignment.model.RideLifecycleEvent;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+// Compact binary form of rides and lifecycle events, shared by the segment log and projection snapshots.
+// Strings are length-prefixed UTF-8 (-1 for null); the pickup point and createdAt carry a presence flag.
+public final class RideCodec {
+    
+    private RideCodec() {
+    }
+    
+    public static void writeEvent(ByteBuffer buffer, RideLifecycleEvent event) {
+        buffer.putLong(event.getPosition());
+        buffer.putLong(event.getRecordedAt());
+        writeRide(buffer, event.getRide());
+    }
+    
+    public static RideLifecycleEvent readEvent(ByteBuffer buffer) {
+        long position = buffer.getLong();
+        long recordedAt = buffer.getLong();
+        return new RideLifecycleEvent(null, null, position, recordedAt, readRide(buffer));
+    }
+    
+    public static void writeRide(ByteBuffer buffer, Ride ride) {
+        writeString(buffer, ride.getId());
+        writeString(buffer, ride.getUserId());
+        writeString(buffer, ride.getDriverId());
+        writeString(buffer, ride.getPickupLocation());
+        GeoJsonPoint pickup = ride.getPickupPoint();
+        buffer.put((byte) (pickup != null ? 1 : 0));
+        if (pickup != null) {
+            buffer.putDouble(pickup.getX());
+            buffer.putDouble(pickup.getY());
+        }
+        writeString(buffer, ride.getDropLocation());
+        writeString(buffer, ride.getStatus());
+        LocalDateTime createdAt = ride.getCreatedAt();
+        buffer.put((byte) (createdAt != null ? 1 : 0));
+        if (createdAt != null) {
+            buffer.putLong(createdAt.toEpochSecond(ZoneOffset.UTC));
+            buffer.putInt(createdAt.getNano());
+        }
+    }
+    
+    public static Ride readRide(ByteBuffer buffer) {
+        Ride ride = new Ride();
+        ride.setId(readString(buffer));
+        ride.setUserId(readString(buffer));
+        ride.setDriverId(readString(buffer));
+        ride.setPickupLocation(readString(buffer));
+        if (buffer.get() != 0) {
+            ride.setPickupPoint(new GeoJsonPoint(buffer.getDouble(), buffer.getDouble()));
+        }
+        ride.setDropLocation(readString(buffer));
+        ride.setStatus(readString(buffer));
+        if (buffer.get() != 0) {
+            ride.setCreatedAt(LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC));
+        }
+        return ride;
+    }
+    
+    private static void writeString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+    
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
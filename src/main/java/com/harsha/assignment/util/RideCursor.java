@@ -0,0 +1,37 @@
+package com.harsha.assignment.util;
+
+import com.harsha.assignment.exception.BadRequestException;
+import com.harsha.assignment.model.Ride;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Opaque keyset cursor: the (createdAt, id) of the last ride on the previous page
+public record RideCursor(LocalDateTime createdAt, String id) {
+    
+    private static final char SEPARATOR = '|';
+    
+    public static RideCursor after(Ride ride) {
+        return new RideCursor(ride.getCreatedAt(), ride.getId());
+    }
+    
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public static RideCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            return new RideCursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
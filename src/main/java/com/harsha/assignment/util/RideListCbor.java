@@ -0,0 +1,194 @@
+package com.harsha.assignment.util;
+
+import com.harsha.assignment.dto.RidePage;
+import com.harsha.assignment.dto.RideResponse;
+import org.bson.types.ObjectId;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.ObjectReadContext;
+import tools.jackson.core.ObjectWriteContext;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.dataformat.cbor.CBORFactory;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+// Compact CBOR encoding of a ride list (application/cbor), written field by field with no reflection:
+//   {"fields": [...], "statuses": [...], "rides": [[...], ...], "nextCursor": "..."}
+// Each ride is a fixed-order array named by "fields", so no name is repeated per ride. The status is an index
+// into "statuses" (the raw string if unknown), createdAt is epoch millis in the server's zone, and ObjectId
+// strings are their 12 raw bytes. nextCursor is only present for pages.
+public final class RideListCbor {
+    
+    public static final List<String> FIELDS = List.of("id", "userId", "driverId", "pickupLocation",
+            "pickupLatitude", "pickupLongitude", "dropLocation", "status", "createdAt");
+    public static final List<String> STATUSES = List.of("REQUESTED", "ACCEPTED", "COMPLETED", "CANCELLED");
+    
+    private static final CBORFactory FACTORY = CBORFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+    
+    private RideListCbor() {
+    }
+    
+    // nextCursor is null for a plain list; the stream is not closed
+    public static void write(List<RideResponse> rides, String nextCursor, OutputStream out) {
+        try (JsonGenerator generator = FACTORY.createGenerator(ObjectWriteContext.empty(), out)) {
+            generator.writeStartObject();
+            generator.writeName("fields");
+            writeStrings(generator, FIELDS);
+            generator.writeName("statuses");
+            writeStrings(generator, STATUSES);
+            generator.writeName("rides");
+            generator.writeStartArray(rides, rides.size());
+            for (RideResponse ride : rides) {
+                writeRide(generator, ride);
+            }
+            generator.writeEndArray();
+            if (nextCursor != null) {
+                generator.writeName("nextCursor");
+                generator.writeString(nextCursor);
+            }
+            generator.writeEndObject();
+        }
+    }
+    
+    // Inverse of write, for clients written in Java and for tests; nextCursor is null for a plain list
+    public static RidePage read(InputStream in) {
+        List<RideResponse> rides = new ArrayList<>();
+        List<String> statuses = STATUSES;
+        String nextCursor = null;
+        try (JsonParser parser = FACTORY.createParser(ObjectReadContext.empty(), in)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                switch (name) {
+                    case "statuses" -> statuses = readStrings(parser);
+                    case "rides" -> {
+                        while (parser.nextToken() == JsonToken.START_ARRAY) {
+                            rides.add(readRide(parser, statuses));
+                        }
+                    }
+                    case "nextCursor" -> nextCursor = parser.getString();
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return new RidePage(rides, nextCursor);
+    }
+    
+    private static void writeRide(JsonGenerator generator, RideResponse ride) {
+        generator.writeStartArray(ride, FIELDS.size());
+        writeId(generator, ride.getId());
+        writeId(generator, ride.getUserId());
+        writeId(generator, ride.getDriverId());
+        writeNullable(generator, ride.getPickupLocation());
+        writeNullable(generator, ride.getPickupLatitude());
+        writeNullable(generator, ride.getPickupLongitude());
+        writeNullable(generator, ride.getDropLocation());
+        int status = STATUSES.indexOf(ride.getStatus());
+        if (status >= 0) {
+            generator.writeNumber(status);
+        } else {
+            writeNullable(generator, ride.getStatus());
+        }
+        if (ride.getCreatedAt() != null) {
+            generator.writeNumber(ride.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        } else {
+            generator.writeNull();
+        }
+        generator.writeEndArray();
+    }
+    
+    private static RideResponse readRide(JsonParser parser, List<String> statuses) {
+        RideResponse ride = new RideResponse();
+        parser.nextToken();
+        ride.setId(readId(parser));
+        parser.nextToken();
+        ride.setUserId(readId(parser));
+        parser.nextToken();
+        ride.setDriverId(readId(parser));
+        parser.nextToken();
+        ride.setPickupLocation(readNullable(parser));
+        parser.nextToken();
+        ride.setPickupLatitude(parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getDoubleValue());
+        parser.nextToken();
+        ride.setPickupLongitude(parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getDoubleValue());
+        parser.nextToken();
+        ride.setDropLocation(readNullable(parser));
+        parser.nextToken();
+        ride.setStatus(parser.currentToken() == JsonToken.VALUE_NUMBER_INT
+                ? statuses.get(parser.getIntValue())
+                : readNullable(parser));
+        parser.nextToken();
+        ride.setCreatedAt(parser.currentToken() == JsonToken.VALUE_NULL ? null
+                : LocalDateTime.ofInstant(Instant.ofEpochMilli(parser.getLongValue()), ZoneId.systemDefault()));
+        expect(parser.nextToken(), JsonToken.END_ARRAY);
+        return ride;
+    }
+    
+    // ObjectIds as their 12 raw bytes instead of 24 hex characters
+    private static void writeId(JsonGenerator generator, String id) {
+        if (id != null && ObjectId.isValid(id)) {
+            generator.writeBinary(new ObjectId(id).toByteArray());
+        } else {
+            writeNullable(generator, id);
+        }
+    }
+    
+    private static String readId(JsonParser parser) {
+        return parser.currentToken() == JsonToken.VALUE_EMBEDDED_OBJECT
+                ? new ObjectId(parser.getBinaryValue()).toHexString()
+                : readNullable(parser);
+    }
+    
+    private static void writeNullable(JsonGenerator generator, String value) {
+        if (value != null) {
+            generator.writeString(value);
+        } else {
+            generator.writeNull();
+        }
+    }
+    
+    // getString() reads a CBOR null as the text "null"
+    private static String readNullable(JsonParser parser) {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getString();
+    }
+    
+    private static void writeNullable(JsonGenerator generator, Double value) {
+        if (value != null) {
+            generator.writeNumber(value);
+        } else {
+            generator.writeNull();
+        }
+    }
+    
+    private static void writeStrings(JsonGenerator generator, List<String> values) {
+        generator.writeStartArray(values, values.size());
+        for (String value : values) {
+            generator.writeString(value);
+        }
+        generator.writeEndArray();
+    }
+    
+    private static List<String> readStrings(JsonParser parser) {
+        List<String> values = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.VALUE_STRING) {
+            values.add(parser.getString());
+        }
+        return values;
+    }
+    
+    private static void expect(JsonToken actual, JsonToken expected) {
+        if (actual != expected) {
+            throw new IllegalArgumentException("Malformed ride list: expected " + expected + " but found " + actual);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.harsha.assignment.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Lock-free token bucket. Token count and refill time are packed into one long and updated with a single CAS,
+// so acquiring never blocks or allocates. The bucket holds thousandths of a token, and every millisecond adds
+// exactly refillPerSecond of them, so nothing is rounded and the long-run rate is exactly refillPerSecond.
+public final class TokenBucket {
+    
+    private static final int TOKEN_BITS = 22;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long UNITS_PER_TOKEN = 1000;
+    public static final int MAX_CAPACITY = (int) (TOKEN_MASK / UNITS_PER_TOKEN);
+    
+    private final long epochMillis;
+    private final long capacityUnits;
+    private final long refillPerSecond; // also units per millisecond
+    private final long fullRefillMillis;
+    
+    // refill time (millis since epochMillis) << TOKEN_BITS | thousandths of a token
+    private final AtomicLong state;
+    
+    public TokenBucket(int capacity, int refillPerSecond, long nowMillis) {
+        if (capacity < 1 || capacity > MAX_CAPACITY || refillPerSecond < 1) {
+            throw new IllegalArgumentException("capacity must be 1.." + MAX_CAPACITY + " and refill positive");
+        }
+        this.epochMillis = nowMillis;
+        this.capacityUnits = capacity * UNITS_PER_TOKEN;
+        this.refillPerSecond = refillPerSecond;
+        this.fullRefillMillis = (capacityUnits + refillPerSecond - 1) / refillPerSecond;
+        this.state = new AtomicLong(capacityUnits);
+    }
+    
+    // Takes one token; returns 0 on success, otherwise the millis until a token will be available
+    public long tryAcquire(long nowMillis) {
+        long now = Math.max(0, nowMillis - epochMillis);
+        while (true) {
+            long current = state.get();
+            long last = current >>> TOKEN_BITS;
+            long units = current & TOKEN_MASK;
+            long elapsed = Math.min(Math.max(0, now - last), fullRefillMillis);
+            units = Math.min(capacityUnits, units + elapsed * refillPerSecond);
+            if (units < UNITS_PER_TOKEN) {
+                return (UNITS_PER_TOKEN - units + refillPerSecond - 1) / refillPerSecond;
+            }
+            if (state.compareAndSet(current, Math.max(last, now) << TOKEN_BITS | (units - UNITS_PER_TOKEN))) {
+                return 0;
+            }
+        }
+    }
+    
+    // True once the bucket would be full again and has been untouched for idleMillis; such a bucket can be
+    // dropped and recreated later without changing any caller's outcome
+    public boolean isIdle(long nowMillis, long idleMillis) {
+        long current = state.get();
+        long sinceLast = nowMillis - epochMillis - (current >>> TOKEN_BITS);
+        return sinceLast >= Math.max(idleMillis, fullRefillMillis);
+    }
+}
@@ -0,0 +1,11 @@
+package com.harsha.assignment.util;
+
+import java.util.Date;
+
+// Typed view of the claims the application reads from a verified JWT
+public record TokenClaims(String userId, String username, String role, Date issuedAt, Date expiration, String tokenId) {
+    
+    public boolean isExpired(long nowMillis) {
+        return expiration != null && expiration.getTime() <= nowMillis;
+    }
+}
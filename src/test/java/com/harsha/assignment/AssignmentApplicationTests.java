@@ -3,7 +3,8 @@ package com.harsha.assignment;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// No MongoDB is running here; fail the background startup jobs fast so shutdown does not wait on them
+@SpringBootTest(properties = "mongo.server-selection-timeout-millis=1000")
 class AssignmentApplicationTests {
 
 	@Test
@@ -0,0 +1,69 @@
+package com.harsha.assignment;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.flapdoodle.embed.mongo.commands.MongodArguments;
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.config.Storage;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import de.flapdoodle.reverse.transitions.Start;
+import org.bson.Document;
+import org.junit.jupiter.api.Tag;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.List;
+
+// Base class for tests that need a real mongod. Run with: mvn test -Pembedded-mongo
+// The mongod is a single-node replica set so change streams work, standing in for a production cluster.
+@Tag("embedded-mongo")
+public abstract class EmbeddedMongoSupport {
+    
+    private static final String REPLICA_SET = "rs0";
+    
+    private static TransitionWalker.ReachedState<RunningMongodProcess> mongod;
+    
+    private static synchronized ServerAddress serverAddress() {
+        if (mongod == null) {
+            mongod = Mongod.instance()
+                    .withMongodArguments(Start.to(MongodArguments.class).initializedWith(
+                            MongodArguments.defaults().withReplication(Storage.of(REPLICA_SET, 0))))
+                    .start(Version.Main.V6_0);
+            Runtime.getRuntime().addShutdownHook(new Thread(mongod::close));
+            initiateReplicaSet(mongod.current().getServerAddress());
+        }
+        return mongod.current().getServerAddress();
+    }
+    
+    private static void initiateReplicaSet(ServerAddress address) {
+        try (MongoClient client = MongoClients.create("mongodb://" + address + "/?directConnection=true")) {
+            client.getDatabase("admin").runCommand(new Document("replSetInitiate", new Document("_id", REPLICA_SET)
+                    .append("members", List.of(new Document("_id", 0).append("host", address.toString())))));
+            // Wait for the node to elect itself primary before any test writes
+            for (int i = 0; i < 100; i++) {
+                Document hello = client.getDatabase("admin").runCommand(new Document("hello", 1));
+                if (Boolean.TRUE.equals(hello.getBoolean("isWritablePrimary"))) {
+                    return;
+                }
+                Thread.sleep(100);
+            }
+            throw new IllegalStateException("embedded replica set did not elect a primary");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.mongodb.uri", EmbeddedMongoSupport::mongoUri);
+    }
+    
+    // For tests that start application contexts themselves
+    protected static String mongoUri() {
+        return "mongodb://" + serverAddress() + "/rideshare?directConnection=true";
+    }
+}
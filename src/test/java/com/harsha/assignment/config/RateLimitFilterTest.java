@@ -0,0 +1,148 @@
+package com.harsha.assignment.config;
+
+import com.harsha.assignment.exception.GlobalExceptionHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.JacksonJsonHttpMessageConverter;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ExceptionHandlerExceptionResolver;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimitFilterTest {
+    
+    private static final AuthenticatedUser DRIVER = new AuthenticatedUser("d1", "driver@example.com", "DRIVER");
+    private static final AuthenticatedUser OTHER_DRIVER = new AuthenticatedUser("d2", "other@example.com", "DRIVER");
+    
+    @AfterEach
+    void clearCaller() {
+        SecurityContextHolder.clearContext();
+    }
+    
+    // One token per group and one per second, so the second request in a group is refused for a second
+    @Test
+    void pollingReadsShareABucketPerCaller() throws Exception {
+        RateLimitFilter filter = filter(60_000);
+        
+        assertPassed(send(filter, DRIVER, "GET", "/api/v1/driver/rides/pending"));
+        MockHttpServletResponse limited = send(filter, DRIVER, "GET", "/api/v1/user/rides").response();
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), limited.getStatus());
+        assertEquals("1", limited.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(limited.getContentAsString().contains("TOO_MANY_REQUESTS"), limited.getContentAsString());
+        
+        assertPassed(send(filter, OTHER_DRIVER, "GET", "/api/v1/user/rides"));
+    }
+    
+    // Writes have their own bucket, and the driver event stream is a long-lived connection, not a poll
+    @Test
+    void writesAndTheEventStreamAreNotCountedAsPolling() throws Exception {
+        RateLimitFilter filter = filter(60_000);
+        assertPassed(send(filter, DRIVER, "GET", "/api/v1/driver/rides/pending"));
+        
+        assertPassed(send(filter, DRIVER, "POST", "/api/v1/driver/rides/r1/accept"));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(),
+                send(filter, DRIVER, "PUT", "/api/v1/driver/rides/r1/complete").response().getStatus());
+        
+        assertPassed(send(filter, DRIVER, "GET", "/api/v1/driver/rides/events"));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(),
+                send(filter, DRIVER, "GET", "/api/v1/profile").response().getStatus());
+    }
+    
+    @Test
+    void leavesAnonymousAndNonApiRequestsAlone() throws Exception {
+        RateLimitFilter filter = filter(60_000);
+        for (int i = 0; i < 3; i++) {
+            assertPassed(send(filter, null, "GET", "/api/v1/driver/rides/pending"));
+            assertPassed(send(filter, DRIVER, "GET", "/actuator/health"));
+        }
+    }
+    
+    @Test
+    void sweepDropsOnlyRefilledIdleBuckets() throws Exception {
+        RateLimitFilter filter = filter(50);
+        send(filter, DRIVER, "GET", "/api/v1/driver/rides/pending");
+        send(filter, OTHER_DRIVER, "POST", "/api/v1/user/rides");
+        
+        filter.evictIdleBuckets();
+        assertEquals(1, buckets(filter, "polling").size());
+        assertEquals(1, buckets(filter, "writes").size());
+        
+        // A bucket is idle once it would be full again (a second at one token per second) and idleMillis have passed
+        Thread.sleep(1_100);
+        filter.evictIdleBuckets();
+        assertTrue(buckets(filter, "polling").isEmpty());
+        assertTrue(buckets(filter, "writes").isEmpty());
+        
+        // A caller whose bucket was dropped starts again from a full one
+        assertPassed(send(filter, DRIVER, "GET", "/api/v1/driver/rides/pending"));
+    }
+    
+    private static RateLimitFilter filter(long idleMillis) throws Exception {
+        RateLimitFilter filter = new RateLimitFilter();
+        ReflectionTestUtils.setField(filter, "exceptionResolver", exceptionResolver());
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "idleMillis", idleMillis);
+        for (String group : List.of("polling", "writes", "default")) {
+            ReflectionTestUtils.setField(filter, group + "Capacity", 1);
+            ReflectionTestUtils.setField(filter, group + "Refill", 1);
+        }
+        filter.afterPropertiesSet();
+        return filter;
+    }
+    
+    // The resolver MVC registers as handlerExceptionResolver, routing to GlobalExceptionHandler
+    private static ExceptionHandlerExceptionResolver exceptionResolver() {
+        StaticApplicationContext context = new StaticApplicationContext();
+        context.registerSingleton("globalExceptionHandler", GlobalExceptionHandler.class);
+        context.refresh();
+        ExceptionHandlerExceptionResolver resolver = new ExceptionHandlerExceptionResolver();
+        resolver.setMessageConverters(List.of(new JacksonJsonHttpMessageConverter()));
+        resolver.setApplicationContext(context);
+        resolver.afterPropertiesSet();
+        return resolver;
+    }
+    
+    private static Sent send(RateLimitFilter filter, AuthenticatedUser caller, String method, String uri)
+            throws Exception {
+        if (caller == null) {
+            SecurityContextHolder.clearContext();
+        } else {
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken(caller, null, List.of()));
+        }
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        return new Sent(chain, response);
+    }
+    
+    private static void assertPassed(Sent sent) {
+        assertNotNull(sent.chain().getRequest(), "request should have gone on down the chain");
+        assertEquals(HttpStatus.OK.value(), sent.response().getStatus());
+        assertNull(sent.response().getHeader(HttpHeaders.RETRY_AFTER));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Map<AuthenticatedUser, ?> buckets(RateLimitFilter filter, String group) {
+        return (Map<AuthenticatedUser, ?>) ReflectionTestUtils.getField(
+                ReflectionTestUtils.getField(filter, group), "buckets");
+    }
+    
+    private record Sent(MockFilterChain chain, MockHttpServletResponse response) {
+    }
+}
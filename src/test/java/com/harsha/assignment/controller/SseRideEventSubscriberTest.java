@@ -0,0 +1,91 @@
+package com.harsha.assignment.controller;
+
+import com.harsha.assignment.dto.RideEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SseRideEventSubscriberTest {
+    
+    private static final int STALLED_SUBSCRIBERS = 64;
+    
+    // Many clients stop reading, each with a write stuck on its socket: publishing to them never blocks, and a
+    // healthy subscriber still gets its events at once
+    @Test
+    void stalledSubscribersHoldUpNobodyElse() throws InterruptedException {
+        CountDownLatch unstall = new CountDownLatch(1);
+        ExecutorService executor = SseRideEventSubscriber.drainExecutor();
+        try {
+            List<SseRideEventSubscriber> stalled = new ArrayList<>();
+            for (int i = 0; i < STALLED_SUBSCRIBERS; i++) {
+                stalled.add(new SseRideEventSubscriber(new StalledEmitter(unstall), executor, 4));
+            }
+            CountDownLatch delivered = new CountDownLatch(1);
+            SseRideEventSubscriber healthy = new SseRideEventSubscriber(new DeliveringEmitter(delivered), executor, 4);
+            
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                for (int sequence = 1; sequence <= 100; sequence++) {
+                    RideEvent event = event(sequence);
+                    for (SseRideEventSubscriber subscriber : stalled) {
+                        subscriber.offer(event);
+                    }
+                }
+            });
+            healthy.offer(event(101));
+            
+            assertTrue(delivered.await(5, TimeUnit.SECONDS), "healthy subscriber waited on stalled ones");
+        } finally {
+            unstall.countDown();
+            executor.shutdownNow();
+        }
+    }
+    
+    private static RideEvent event(long sequence) {
+        return new RideEvent(sequence, "CREATED", null, LocalDateTime.of(2025, 1, 1, 8, 0));
+    }
+    
+    // A client that stopped reading: the write blocks until the test ends
+    private static final class StalledEmitter extends SseEmitter {
+        
+        private final CountDownLatch unstall;
+        
+        StalledEmitter(CountDownLatch unstall) {
+            this.unstall = unstall;
+        }
+        
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            try {
+                unstall.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+    }
+    
+    private static final class DeliveringEmitter extends SseEmitter {
+        
+        private final CountDownLatch delivered;
+        
+        DeliveringEmitter(CountDownLatch delivered) {
+            this.delivered = delivered;
+        }
+        
+        @Override
+        public void send(SseEventBuilder builder) {
+            delivered.countDown();
+        }
+    }
+}
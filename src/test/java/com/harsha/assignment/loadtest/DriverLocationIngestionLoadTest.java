@@ -0,0 +1,92 @@
+package com.harsha.assignment.loadtest;
+
+import com.harsha.assignment.EmbeddedMongoSupport;
+import com.harsha.assignment.model.DriverLocation;
+import com.harsha.assignment.service.DriverLocationService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Load generator for the ping pipeline: drivers ping at a fixed total rate while the scheduled flush writes to Mongo.
+// Run with: mvn test -Pload-test -Dtest=DriverLocationIngestionLoadTest
+// Tune with -Dload.pings-per-second=50000 -Dload.drivers=20000 -Dload.seconds=10
+@Tag("load-test")
+@SpringBootTest
+class DriverLocationIngestionLoadTest extends EmbeddedMongoSupport {
+    
+    private static final int PINGS_PER_SECOND = Integer.getInteger("load.pings-per-second", 50_000);
+    private static final int DRIVERS = Integer.getInteger("load.drivers", 20_000);
+    private static final int SECONDS = Integer.getInteger("load.seconds", 10);
+    private static final int THREADS = 8;
+    
+    @Autowired
+    private DriverLocationService driverLocationService;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Test
+    void absorbsTheTargetPingRateWithCoalescedWrites() throws Exception {
+        mongoTemplate.remove(new Query(), DriverLocation.class);
+        long receivedBefore = driverLocationService.pingsReceived();
+        long writtenBefore = driverLocationService.positionsWritten();
+        int maxPending = 0;
+        
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(SECONDS);
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            pool.execute(() -> pingUntil(thread, end));
+        }
+        while (System.nanoTime() < end) {
+            Thread.sleep(100);
+            maxPending = Math.max(maxPending, driverLocationService.pendingWrites());
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        driverLocationService.flush();
+        
+        long received = driverLocationService.pingsReceived() - receivedBefore;
+        long written = driverLocationService.positionsWritten() - writtenBefore;
+        System.out.printf("location ingestion: %d drivers, %.0f pings/s, %d pings -> %d writes (%.1fx coalescing), "
+                        + "max pending %d, last flush %d ms, flush failures %d%n",
+                DRIVERS, received / seconds, received, written, (double) received / written,
+                maxPending, driverLocationService.lastFlushDurationMillis(), driverLocationService.flushFailures());
+        
+        assertEquals(0, driverLocationService.pendingWrites());
+        assertEquals(Math.min(DRIVERS, received), mongoTemplate.count(new Query(), DriverLocation.class));
+        assertTrue(written < received, "pings should be coalesced between flushes");
+    }
+    
+    // Sends this thread's share of the target rate in 1 ms ticks
+    private void pingUntil(int thread, long endNanos) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double perTick = PINGS_PER_SECOND / 1000.0 / THREADS;
+        double owed = 0;
+        long tick = System.nanoTime();
+        while (tick < endNanos) {
+            owed += perTick;
+            for (; owed >= 1; owed--) {
+                int driver = random.nextInt(DRIVERS / THREADS) * THREADS + thread;
+                driverLocationService.reportLocation("driver-" + driver,
+                        12.9 + random.nextDouble(0.2), 77.5 + random.nextDouble(0.2), null);
+            }
+            tick += TimeUnit.MILLISECONDS.toNanos(1);
+            LockSupport.parkNanos(tick - System.nanoTime());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.harsha.assignment.loadtest;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Open-model load: operations start at a fixed rate whether or not earlier ones finished, like independent
+// users would. Each runs on its own virtual thread; past maxInFlight new operations are dropped and counted.
+// hold() is the closed model instead: a fixed number of users, each with one operation always in flight.
+final class LoadGenerator {
+    
+    private final Workload workload;
+    private final ExecutorService executor;
+    private final int maxInFlight;
+    
+    LoadGenerator(Workload workload, ExecutorService executor, int maxInFlight) {
+        this.workload = workload;
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+    }
+    
+    LoadReport run(Scenario scenario, int operationsPerSecond, int seconds) throws InterruptedException {
+        LoadReport report = new LoadReport();
+        AtomicInteger inFlight = new AtomicInteger();
+        double perTick = operationsPerSecond / 1000.0;
+        double owed = 0;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        long tick = start;
+        while (tick < end) {
+            owed += perTick;
+            for (; owed >= 1; owed--) {
+                if (inFlight.incrementAndGet() > maxInFlight) {
+                    inFlight.decrementAndGet();
+                    report.dropped();
+                    continue;
+                }
+                Scenario.Operation operation = scenario.next();
+                long scheduled = tick;
+                executor.execute(() -> {
+                    try {
+                        workload.run(scenario, operation, report, scheduled);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            }
+            tick += TimeUnit.MILLISECONDS.toNanos(1);
+            LockSupport.parkNanos(tick - System.nanoTime());
+        }
+        // Let the tail finish so its latency is counted; throughput is still over the scheduled seconds
+        long drainUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < drainUntil) {
+            Thread.sleep(10);
+        }
+        report.finish(seconds);
+        return report;
+    }
+    
+    // Every client starts its next operation as soon as the last one answers, so the server holds about clients
+    // connections open for the whole run
+    LoadReport hold(Scenario scenario, int clients, int seconds) throws InterruptedException {
+        LoadReport report = new LoadReport();
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        CountDownLatch finished = new CountDownLatch(clients);
+        for (int c = 0; c < clients; c++) {
+            executor.execute(() -> {
+                try {
+                    while (System.nanoTime() < end) {
+                        workload.run(scenario, scenario.next(), report, System.nanoTime());
+                    }
+                } finally {
+                    finished.countDown();
+                }
+            });
+        }
+        // As in run, operations still in flight at the end are waited for so their latency is counted
+        finished.await(seconds + 30, TimeUnit.SECONDS);
+        report.finish(seconds);
+        return report;
+    }
+}
@@ -0,0 +1,154 @@
+package com.harsha.assignment.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per-endpoint latency histograms and error counts for one run. Latency is measured from when a request
+// was scheduled, not when it was sent, so a stalled server shows up as latency instead of fewer requests.
+final class LoadReport {
+    
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(2);
+    
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final Histogram overall = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+    private final LongAdder dropped = new LongAdder();
+    private volatile double seconds;
+    
+    // error is null for a 2xx response, otherwise the status code or the exception name
+    void record(String endpoint, long latencyNanos, String error) {
+        long micros = Math.min(MAX_LATENCY_MICROS, Math.max(1, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+        Endpoint stats = endpoints.computeIfAbsent(endpoint, name -> new Endpoint());
+        stats.latency.recordValue(micros);
+        overall.recordValue(micros);
+        if (error != null) {
+            stats.errors.computeIfAbsent(error, e -> new LongAdder()).increment();
+        }
+    }
+    
+    // Requests the generator could not start because too many were already in flight
+    void dropped() {
+        dropped.increment();
+    }
+    
+    void finish(double elapsedSeconds) {
+        this.seconds = elapsedSeconds;
+    }
+    
+    long requests() {
+        return overall.getTotalCount();
+    }
+    
+    double throughput() {
+        return requests() / seconds;
+    }
+    
+    long droppedCount() {
+        return dropped.sum();
+    }
+    
+    double p99Millis() {
+        return overall.getValueAtPercentile(99) / 1000.0;
+    }
+    
+    // Server-side failures and transport errors; 4xx answers such as a lost accept race are expected traffic
+    long failures() {
+        return endpoints.values().stream()
+                .flatMap(stats -> stats.errors.entrySet().stream())
+                .filter(error -> !error.getKey().startsWith("4"))
+                .mapToLong(error -> error.getValue().sum())
+                .sum();
+    }
+    
+    double failureRate() {
+        long requests = requests();
+        return requests == 0 ? 0 : (double) failures() / requests;
+    }
+    
+    void print(PrintStream out, String title) {
+        out.printf("%n%s: %d requests in %.1f s, %.1f req/s, %d dropped%n", title, requests(), seconds, throughput(),
+                droppedCount());
+        out.printf("%-42s %8s %9s %8s %8s %8s %8s  %s%n", "endpoint", "count", "req/s", "p50 ms", "p95 ms", "p99 ms",
+                "max ms", "errors");
+        new TreeMap<>(endpoints).forEach((name, stats) -> {
+            Histogram latency = stats.latency;
+            out.printf("%-42s %8d %9.1f %8.1f %8.1f %8.1f %8.1f  %s%n", name, latency.getTotalCount(),
+                    latency.getTotalCount() / seconds, millis(latency, 50), millis(latency, 95), millis(latency, 99),
+                    latency.getMaxValue() / 1000.0, stats.errorSummary());
+        });
+        out.printf("%-42s %8d %9.1f %8.1f %8.1f %8.1f %8.1f%n", "all", requests(), throughput(), millis(overall, 50),
+                millis(overall, 95), millis(overall, 99), overall.getMaxValue() / 1000.0);
+    }
+    
+    // Same numbers as print, shaped for the JSON report
+    Map<String, Object> toMap() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("seconds", seconds);
+        result.put("requests", requests());
+        result.put("throughput", throughput());
+        result.put("dropped", droppedCount());
+        result.put("failures", failures());
+        result.put("latencyMillis", percentiles(overall));
+        Map<String, Object> perEndpoint = new TreeMap<>();
+        endpoints.forEach((name, stats) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("count", stats.latency.getTotalCount());
+            entry.put("throughput", stats.latency.getTotalCount() / seconds);
+            entry.put("latencyMillis", percentiles(stats.latency));
+            Map<String, Long> errors = new TreeMap<>();
+            stats.errors.forEach((error, count) -> errors.put(error, count.sum()));
+            entry.put("errors", errors);
+            perEndpoint.put(name, entry);
+        });
+        result.put("endpoints", perEndpoint);
+        return result;
+    }
+    
+    // Writes a run's results to target/load-test/<name>-<timestamp>.json
+    static void write(String name, Map<String, Object> result) {
+        File directory = new File("target/load-test");
+        directory.mkdirs();
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        File file = new File(directory, name + "-" + timestamp + ".json");
+        JsonMapper.builder().build().writerWithDefaultPrettyPrinter().writeValue(file, result);
+        System.out.println("report written to " + file);
+    }
+    
+    private static Map<String, Double> percentiles(Histogram histogram) {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (double percentile : List.of(50.0, 95.0, 99.0, 99.9)) {
+            result.put("p" + (percentile % 1 == 0 ? String.valueOf((int) percentile) : String.valueOf(percentile)),
+                    millis(histogram, percentile));
+        }
+        result.put("max", histogram.getMaxValue() / 1000.0);
+        return result;
+    }
+    
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+    
+    private static final class Endpoint {
+        private final Histogram latency = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+        private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+        
+        private String errorSummary() {
+            Map<String, Long> sorted = new TreeMap<>();
+            errors.forEach((error, count) -> sorted.put(error, count.sum()));
+            return sorted.isEmpty() ? "-" : sorted.toString();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.harsha.assignment.loadtest;
+
+import com.harsha.assignment.EmbeddedMongoSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.env.Environment;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// End-to-end load test: the full app on a random port against embedded mongod, driven over HTTP by virtual
+// passengers and drivers. Prints per-endpoint throughput, latency percentiles and errors, and writes the same
+// numbers to target/load-test/. Runs offline once the mongod binary is cached. Run with: mvn test -Pload-test
+//
+//   -Dload.scenario=mixed|auth-storm|accept-race  -Dload.rps=100  -Dload.seconds=30
+//   -Dload.passengers=100  -Dload.drivers=50  -Dload.max-in-flight=2000
+//
+// Saturation mode (-Dload.saturation=true) raises the rate by load.step-factor every load.step-seconds until
+// a step misses its target rate, drops requests, exceeds load.slo-p99-ms or fails more than
+// load.max-failure-rate of requests, and reports the last rate that held.
+// Batch comparison mode (-Dload.compare-batch=true) creates load.batch-rides rides from load.clients concurrent
+// clients, first one POST /rides per ride and then load.batch-size rides per POST /rides/batch, and reports the
+// rides per second of each.
+// Rate limiting is off: it would cap each virtual user long before the server is saturated.
+// With -Dspring.profiles.active=reactive the same scenarios run against the WebFlux stack, reading unpaged lists
+// (it has no paged ones). It has no batch endpoints either, so batch comparison mode is servlet-only.
+@Tag("load-test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "rate-limit.enabled=false")
+class LoadTest extends EmbeddedMongoSupport {
+    
+    private static final Scenario SCENARIO = Scenario.fromName(System.getProperty("load.scenario", "mixed"));
+    private static final int RPS = Integer.getInteger("load.rps", 100);
+    private static final int SECONDS = Integer.getInteger("load.seconds", 30);
+    private static final int PASSENGERS = Integer.getInteger("load.passengers", 100);
+    private static final int DRIVERS = Integer.getInteger("load.drivers", 50);
+    private static final int MAX_IN_FLIGHT = Integer.getInteger("load.max-in-flight", 2000);
+    
+    private static final int STEP_SECONDS = Integer.getInteger("load.step-seconds", 10);
+    private static final double STEP_FACTOR = Double.parseDouble(System.getProperty("load.step-factor", "1.5"));
+    private static final int MAX_RPS = Integer.getInteger("load.max-rps", 20_000);
+    private static final double SLO_P99_MILLIS = Double.parseDouble(System.getProperty("load.slo-p99-ms", "500"));
+    private static final double MAX_FAILURE_RATE = Double.parseDouble(System.getProperty("load.max-failure-rate", "0.01"));
+    
+    private static final int BATCH_RIDES = Integer.getInteger("load.batch-rides", 10_000);
+    private static final int BATCH_SIZE = Integer.getInteger("load.batch-size", 100);
+    private static final int CLIENTS = Integer.getInteger("load.clients", 50);
+    
+    @LocalServerPort
+    private int port;
+    
+    @Autowired
+    private Environment environment;
+    
+    private ExecutorService executor;
+    private Workload workload;
+    private LoadGenerator generator;
+    
+    @BeforeEach
+    void signUp() throws Exception {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        workload = new Workload("http://localhost:" + port, !environment.matchesProfiles("reactive"), executor);
+        generator = new LoadGenerator(workload, executor, MAX_IN_FLIGHT);
+        
+        LoadReport signUps = new LoadReport();
+        long start = System.nanoTime();
+        workload.signUp(PASSENGERS, DRIVERS, signUps);
+        signUps.finish((System.nanoTime() - start) / 1e9);
+        signUps.print(System.out, "sign-up storm (" + (PASSENGERS + DRIVERS) + " users)");
+    }
+    
+    @AfterEach
+    void shutDown() {
+        executor.shutdownNow();
+    }
+    
+    @Test
+    @DisabledIfSystemProperty(named = "load.saturation", matches = "true")
+    @DisabledIfSystemProperty(named = "load.compare-batch", matches = "true")
+    void runsScenario() throws Exception {
+        LoadReport report = generator.run(SCENARIO, RPS, SECONDS);
+        report.print(System.out, scenarioName() + " at " + RPS + " ops/s");
+        LoadReport.write(scenarioName(),
+                Map.of("scenario", scenarioName(), "targetRate", RPS, "result", report.toMap()));
+        
+        assertTrue(report.requests() > 0);
+        assertEquals(0, report.failures(), "5xx responses or transport errors");
+    }
+    
+    @Test
+    @EnabledIfSystemProperty(named = "load.saturation", matches = "true")
+    void findsMaxSustainableRate() throws Exception {
+        List<Map<String, Object>> steps = new ArrayList<>();
+        int sustained = 0;
+        for (int rate = RPS; rate <= MAX_RPS; rate = (int) Math.ceil(rate * STEP_FACTOR)) {
+            LoadReport report = generator.run(SCENARIO, rate, STEP_SECONDS);
+            String verdict = verdict(report, rate);
+            report.print(System.out, scenarioName() + " at " + rate + " ops/s: " + verdict);
+            
+            Map<String, Object> step = new LinkedHashMap<>();
+            step.put("targetRate", rate);
+            step.put("verdict", verdict);
+            step.put("result", report.toMap());
+            steps.add(step);
+            if (!"sustained".equals(verdict)) {
+                break;
+            }
+            sustained = rate;
+        }
+        System.out.printf("%nmax sustainable rate for %s: %d ops/s (p99 <= %.0f ms, failures <= %.1f%%)%n",
+                scenarioName(), sustained, SLO_P99_MILLIS, MAX_FAILURE_RATE * 100);
+        LoadReport.write(scenarioName(),
+                Map.of("scenario", scenarioName(), "maxSustainableRate", sustained, "steps", steps));
+        
+        assertTrue(!steps.isEmpty());
+    }
+    
+    @Test
+    @EnabledIfSystemProperty(named = "load.compare-batch", matches = "true")
+    void comparesSingleAndBatchCreates() {
+        // One small round of each first, so JIT warm-up and connection setup do not count against whichever goes first
+        int warmUp = Math.min(BATCH_RIDES, 10 * BATCH_SIZE);
+        workload.createRides(warmUp, 1, CLIENTS, new LoadReport());
+        workload.createRides(warmUp, BATCH_SIZE, CLIENTS, new LoadReport());
+        
+        Map<String, Object> modes = new LinkedHashMap<>();
+        Map<String, Double> ridesPerSecond = new LinkedHashMap<>();
+        for (int batchSize : new int[] {1, BATCH_SIZE}) {
+            String mode = batchSize == 1 ? "single" : "batch-" + batchSize;
+            LoadReport report = new LoadReport();
+            long start = System.nanoTime();
+            long created = workload.createRides(BATCH_RIDES, batchSize, CLIENTS, report);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            report.finish(seconds);
+            report.print(System.out, String.format("%s: %d rides created, %.0f rides/s", mode, created,
+                    created / seconds));
+            
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("ridesCreated", created);
+            entry.put("ridesPerSecond", created / seconds);
+            entry.put("result", report.toMap());
+            modes.put(mode, entry);
+            ridesPerSecond.put(mode, created / seconds);
+            assertEquals(BATCH_RIDES, created, mode + " did not create every ride");
+        }
+        double speedup = ridesPerSecond.get("batch-" + BATCH_SIZE) / ridesPerSecond.get("single");
+        System.out.printf("%nbatches of %d create rides %.1fx as fast as single requests (%d clients)%n", BATCH_SIZE,
+                speedup, CLIENTS);
+        LoadReport.write("compare-batch", Map.of("rides", BATCH_RIDES, "batchSize", BATCH_SIZE, "clients", CLIENTS,
+                "speedup", speedup, "modes", modes));
+    }
+    
+    private static String verdict(LoadReport report, int rate) {
+        if (report.droppedCount() > 0) {
+            return "dropped " + report.droppedCount();
+        }
+        if (report.throughput() < rate * 0.95) {
+            return String.format("reached only %.0f ops/s", report.throughput());
+        }
+        if (report.p99Millis() > SLO_P99_MILLIS) {
+            return String.format("p99 %.0f ms", report.p99Millis());
+        }
+        if (report.failureRate() > MAX_FAILURE_RATE) {
+            return String.format("failure rate %.1f%%", report.failureRate() * 100);
+        }
+        return "sustained";
+    }
+    
+    private static String scenarioName() {
+        return SCENARIO.name().toLowerCase().replace('_', '-');
+    }
+}
@@ -0,0 +1,47 @@
+package com.harsha.assignment.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// Weighted operation mixes. Choose one with -Dload.scenario=mixed|auth-storm|accept-race
+enum Scenario {
+    
+    // Steady day: drivers mostly poll, passengers book, a few logins
+    MIXED(false, 1, 4, 15, 50, 15, 10, 5),
+    // Everyone opening the app at once: password hashing is the bottleneck
+    AUTH_STORM(false, 30, 70, 0, 0, 0, 0, 0),
+    // Rush hour: every driver grabs the oldest request it saw, so most accepts lose with 409
+    ACCEPT_RACE(true, 0, 0, 30, 20, 45, 5, 0);
+    
+    enum Operation { REGISTER, LOGIN, CREATE_RIDE, POLL_REQUESTS, ACCEPT_RIDE, COMPLETE_RIDE, RIDE_HISTORY }
+    
+    private final boolean raceForOldest;
+    private final int[] cumulativeWeights;
+    
+    Scenario(boolean raceForOldest, int... weights) {
+        this.raceForOldest = raceForOldest;
+        this.cumulativeWeights = new int[weights.length];
+        int total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            cumulativeWeights[i] = total;
+        }
+    }
+    
+    boolean raceForOldest() {
+        return raceForOldest;
+    }
+    
+    Operation next() {
+        int roll = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (roll < cumulativeWeights[i]) {
+                return Operation.values()[i];
+            }
+        }
+        throw new IllegalStateException();
+    }
+    
+    static Scenario fromName(String name) {
+        return valueOf(name.trim().toUpperCase().replace('-', '_'));
+    }
+}
@@ -0,0 +1,89 @@
+package com.harsha.assignment.loadtest;
+
+import com.harsha.assignment.AssignmentApplication;
+import com.harsha.assignment.EmbeddedMongoSupport;
+import com.harsha.assignment.config.VirtualThreadPinningMonitor;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Platform vs virtual request threads under the same held-open load. For each mode a fresh application starts on a
+// random port, first with spring.threads.virtual.enabled=false and then true. load.connections clients (10,000)
+// each keep one operation of load.scenario in flight, for load.warmup-seconds and then load.seconds. Prints both
+// results and writes them to target/load-test/. The virtual run fails if VirtualThreadPinningMonitor saw a carrier
+// pinned longer than execution.pinned-threshold-millis. Client and server share this JVM, so raise the open file
+// limit above twice the connection count first (ulimit -n 65536).
+// Run with: mvn test -Pload-test -Dtest=ThreadModeComparisonLoadTest
+@Tag("load-test")
+class ThreadModeComparisonLoadTest extends EmbeddedMongoSupport {
+    
+    private static final Scenario SCENARIO = Scenario.fromName(System.getProperty("load.scenario", "mixed"));
+    private static final int CONNECTIONS = Integer.getInteger("load.connections", 10_000);
+    private static final int WARMUP_SECONDS = Integer.getInteger("load.warmup-seconds", 10);
+    private static final int SECONDS = Integer.getInteger("load.seconds", 30);
+    private static final int PASSENGERS = Integer.getInteger("load.passengers", 100);
+    private static final int DRIVERS = Integer.getInteger("load.drivers", 50);
+    
+    @Test
+    void comparesPlatformAndVirtualThreads() throws Exception {
+        Map<String, Object> modes = new LinkedHashMap<>();
+        List<String> problems = new ArrayList<>();
+        for (boolean virtual : new boolean[] {false, true}) {
+            String mode = virtual ? "virtual" : "platform";
+            try (ConfigurableApplicationContext app = start(virtual)) {
+                ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+                try {
+                    Workload workload = new Workload("http://localhost:" + port(app), true, executor);
+                    workload.signUp(PASSENGERS, DRIVERS, new LoadReport());
+                    LoadGenerator generator = new LoadGenerator(workload, executor, CONNECTIONS);
+                    generator.hold(SCENARIO, CONNECTIONS, WARMUP_SECONDS);
+                    LoadReport report = generator.hold(SCENARIO, CONNECTIONS, SECONDS);
+                    report.print(System.out, mode + " threads, " + CONNECTIONS + " connections");
+                    
+                    Map<String, Object> entry = new LinkedHashMap<>();
+                    entry.put("result", report.toMap());
+                    if (report.failures() > 0) {
+                        problems.add(mode + ": " + report.failures() + " 5xx responses or transport errors");
+                    }
+                    if (virtual) {
+                        long pinned = app.getBean(VirtualThreadPinningMonitor.class).getPinnedEvents();
+                        entry.put("pinnedEvents", pinned);
+                        if (pinned > 0) {
+                            problems.add(mode + ": carriers pinned " + pinned + " times, stacks are in the log");
+                        }
+                    }
+                    modes.put(mode, entry);
+                } finally {
+                    executor.shutdownNow();
+                }
+            }
+        }
+        LoadReport.write("thread-modes", Map.of("scenario", SCENARIO.name().toLowerCase().replace('_', '-'),
+                "connections", CONNECTIONS, "seconds", SECONDS, "modes", modes));
+        
+        assertTrue(problems.isEmpty(), String.join("; ", problems));
+    }
+    
+    private static ConfigurableApplicationContext start(boolean virtual) {
+        return new SpringApplicationBuilder(AssignmentApplication.class)
+                .properties("server.port=0",
+                        "spring.mongodb.uri=" + mongoUri(),
+                        "spring.threads.virtual.enabled=" + virtual,
+                        "rate-limit.enabled=false")
+                .run();
+    }
+    
+    private static int port(ConfigurableApplicationContext app) {
+        return app.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+}
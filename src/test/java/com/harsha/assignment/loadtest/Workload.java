@@ -0,0 +1,271 @@
+package com.harsha.assignment.loadtest;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Virtual passengers and drivers talking to the API over real HTTP. Each operation is one scripted user
+// action; every request it makes is recorded in the report passed in. Lists are read a page at a time
+// (?limit=20) unless paged is false: the reactive stack only serves the unpaged lists.
+final class Workload {
+    
+    private static final String PASSWORD = "load-test-password";
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    
+    private final String baseUrl;
+    private final boolean paged;
+    private final HttpClient http;
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicInteger registrations = new AtomicInteger();
+    
+    private final List<VirtualUser> passengers = new ArrayList<>();
+    private final List<VirtualUser> drivers = new ArrayList<>();
+    // Rides some driver won and has not completed yet
+    private final Queue<Accepted> accepted = new ConcurrentLinkedQueue<>();
+    
+    Workload(String baseUrl, boolean paged, ExecutorService executor) {
+        this.baseUrl = baseUrl;
+        this.paged = paged;
+        this.http = HttpClient.newBuilder().executor(executor).connectTimeout(TIMEOUT).build();
+    }
+    
+    // Registers every virtual user concurrently, retrying requests the server sheds with 429
+    void signUp(int passengerCount, int driverCount, LoadReport report) throws InterruptedException {
+        for (int i = 0; i < passengerCount; i++) {
+            passengers.add(new VirtualUser("p-" + runId + "-" + i, "ROLE_USER"));
+        }
+        for (int i = 0; i < driverCount; i++) {
+            drivers.add(new VirtualUser("d-" + runId + "-" + i, "ROLE_DRIVER"));
+        }
+        List<VirtualUser> everyone = new ArrayList<>(passengers);
+        everyone.addAll(drivers);
+        try (ExecutorService signUps = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (VirtualUser user : everyone) {
+                signUps.execute(() -> {
+                    for (int attempt = 0; attempt < 50 && user.token == null; attempt++) {
+                        JsonNode body = send(report, "POST /api/auth/register", "POST", "/api/auth/register", null,
+                                Map.of("username", user.username, "password", PASSWORD, "role", user.role),
+                                System.nanoTime());
+                        if (body != null) {
+                            user.token = body.get("token").asString();
+                        } else {
+                            sleep(200);
+                        }
+                    }
+                });
+            }
+        }
+        if (everyone.stream().anyMatch(user -> user.token == null)) {
+            throw new IllegalStateException("could not register every virtual user");
+        }
+    }
+    
+    void run(Scenario scenario, Scenario.Operation operation, LoadReport report, long scheduledNanos) {
+        switch (operation) {
+            case REGISTER -> register(report, scheduledNanos);
+            case LOGIN -> login(report, scheduledNanos);
+            case CREATE_RIDE -> createRide(report, scheduledNanos);
+            case POLL_REQUESTS -> poll(randomDriver(), report, scheduledNanos);
+            case ACCEPT_RIDE -> accept(scenario.raceForOldest(), report, scheduledNanos);
+            case COMPLETE_RIDE -> complete(report, scheduledNanos);
+            case RIDE_HISTORY -> history(report, scheduledNanos);
+        }
+    }
+    
+    private void register(LoadReport report, long scheduledNanos) {
+        String username = "r-" + runId + "-" + registrations.incrementAndGet();
+        send(report, "POST /api/auth/register", "POST", "/api/auth/register", null,
+                Map.of("username", username, "password", PASSWORD, "role", "ROLE_USER"), scheduledNanos);
+    }
+    
+    private void login(LoadReport report, long scheduledNanos) {
+        VirtualUser user = ThreadLocalRandom.current().nextBoolean() ? randomPassenger() : randomDriver();
+        JsonNode body = send(report, "POST /api/auth/login", "POST", "/api/auth/login", null,
+                Map.of("username", user.username, "password", PASSWORD), scheduledNanos);
+        if (body != null) {
+            user.token = body.get("token").asString();
+        }
+    }
+    
+    private void createRide(LoadReport report, long scheduledNanos) {
+        send(report, "POST /api/v1/rides", "POST", "/api/v1/rides", randomPassenger().token, rideRequest(),
+                scheduledNanos);
+    }
+    
+    // Closed model for comparing write paths: concurrency clients create count rides between them as fast as the
+    // server answers, either one POST /rides per ride (batchSize 1) or batchSize rides per POST /rides/batch.
+    // Returns how many rides the responses report as created.
+    long createRides(int count, int batchSize, int concurrency, LoadReport report) {
+        AtomicInteger remaining = new AtomicInteger(count);
+        LongAdder created = new LongAdder();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < concurrency; c++) {
+                clients.execute(() -> {
+                    for (int size = take(remaining, batchSize); size > 0; size = take(remaining, batchSize)) {
+                        String token = randomPassenger().token;
+                        if (batchSize == 1) {
+                            if (send(report, "POST /api/v1/rides", "POST", "/api/v1/rides", token, rideRequest(),
+                                    System.nanoTime()) != null) {
+                                created.increment();
+                            }
+                            continue;
+                        }
+                        List<Map<String, Object>> rides = new ArrayList<>(size);
+                        for (int i = 0; i < size; i++) {
+                            rides.add(rideRequest());
+                        }
+                        JsonNode result = send(report, "POST /api/v1/rides/batch", "POST", "/api/v1/rides/batch", token,
+                                Map.of("rides", rides), System.nanoTime());
+                        if (result != null) {
+                            created.add(result.get("succeeded").asLong());
+                        }
+                    }
+                });
+            }
+        }
+        return created.sum();
+    }
+    
+    private static int take(AtomicInteger remaining, int batchSize) {
+        return Math.max(0, Math.min(batchSize, remaining.getAndAdd(-batchSize)));
+    }
+    
+    private static Map<String, Object> rideRequest() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return Map.of("pickupLocation", "Pickup " + random.nextInt(1000),
+                "dropLocation", "Drop " + random.nextInt(1000),
+                "pickupLatitude", 12.9 + random.nextDouble(0.2),
+                "pickupLongitude", 77.5 + random.nextDouble(0.2));
+    }
+    
+    private void poll(VirtualUser driver, LoadReport report, long scheduledNanos) {
+        JsonNode page = send(report, "GET /api/v1/driver/rides/requests", "GET",
+                "/api/v1/driver/rides/requests" + pageQuery(), driver.token, null, scheduledNanos);
+        if (page != null) {
+            List<String> rideIds = new ArrayList<>();
+            (page.isArray() ? page : page.get("rides")).forEach(ride -> rideIds.add(ride.get("id").asString()));
+            driver.seen = paged ? rideIds : rideIds.subList(0, Math.min(20, rideIds.size()));
+        }
+    }
+    
+    // Accepts a ride from the driver's last poll, polling first if it has none left
+    private void accept(boolean raceForOldest, LoadReport report, long scheduledNanos) {
+        VirtualUser driver = randomDriver();
+        if (driver.seen.isEmpty()) {
+            poll(driver, report, scheduledNanos);
+            scheduledNanos = System.nanoTime();
+        }
+        List<String> seen = driver.seen;
+        if (seen.isEmpty()) {
+            return;
+        }
+        String rideId = seen.get(raceForOldest ? 0 : ThreadLocalRandom.current().nextInt(Math.min(5, seen.size())));
+        driver.seen = seen.stream().filter(id -> !id.equals(rideId)).toList();
+        JsonNode ride = send(report, "POST /api/v1/driver/rides/{id}/accept", "POST",
+                "/api/v1/driver/rides/" + rideId + "/accept", driver.token, null, scheduledNanos);
+        if (ride != null) {
+            accepted.add(new Accepted(rideId, driver));
+        }
+    }
+    
+    // A driver with nothing to complete checks for new requests instead
+    private void complete(LoadReport report, long scheduledNanos) {
+        Accepted ride = accepted.poll();
+        if (ride == null) {
+            poll(randomDriver(), report, scheduledNanos);
+            return;
+        }
+        send(report, "POST /api/v1/rides/{id}/complete", "POST", "/api/v1/rides/" + ride.rideId() + "/complete",
+                ride.driver().token, null, scheduledNanos);
+    }
+    
+    private void history(LoadReport report, long scheduledNanos) {
+        send(report, "GET /api/v1/user/rides", "GET", "/api/v1/user/rides" + pageQuery(), randomPassenger().token,
+                null, scheduledNanos);
+    }
+    
+    private String pageQuery() {
+        return paged ? "?limit=20" : "";
+    }
+    
+    // Returns the parsed body of a 2xx response, or null after recording the failure
+    private JsonNode send(LoadReport report, String endpoint, String method, String path, String token, Object body,
+                          long scheduledNanos) {
+        try {
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(TIMEOUT)
+                    .header("Accept", "application/json");
+            if (token != null) {
+                request.header("Authorization", "Bearer " + token);
+            }
+            if (body != null) {
+                request.header("Content-Type", "application/json")
+                        .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+            } else {
+                request.method(method, HttpRequest.BodyPublishers.noBody());
+            }
+            HttpResponse<byte[]> response = http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+            int status = response.statusCode();
+            report.record(endpoint, System.nanoTime() - scheduledNanos, status / 100 == 2 ? null : String.valueOf(status));
+            if (status / 100 != 2) {
+                return null;
+            }
+            return response.body().length == 0 ? objectMapper.nullNode() : objectMapper.readTree(response.body());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            report.record(endpoint, System.nanoTime() - scheduledNanos, "interrupted");
+        } catch (IOException e) {
+            report.record(endpoint, System.nanoTime() - scheduledNanos, e.getClass().getSimpleName());
+        }
+        return null;
+    }
+    
+    private VirtualUser randomPassenger() {
+        return passengers.get(ThreadLocalRandom.current().nextInt(passengers.size()));
+    }
+    
+    private VirtualUser randomDriver() {
+        return drivers.get(ThreadLocalRandom.current().nextInt(drivers.size()));
+    }
+    
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static final class VirtualUser {
+        private final String username;
+        private final String role;
+        private volatile String token;
+        private volatile List<String> seen = List.of();
+        
+        private VirtualUser(String username, String role) {
+            this.username = username;
+            this.role = role;
+        }
+    }
+    
+    private record Accepted(String rideId, VirtualUser driver) {
+    }
+}
@@ -0,0 +1,74 @@
+package com.harsha.assignment.repository;
+
+import com.harsha.assignment.model.Ride;
+import com.harsha.assignment.model.RideLifecycleEvent;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CappedCollectionRideLogTest {
+    
+    // Once instance "a" has been read up to 100 000, a catch-up asks it only for what follows, and reaches back
+    // the skew only for instances it has not seen
+    @Test
+    void catchUpReachesBackOnlyForInstancesNotSeenYet() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.stream(any(Query.class), eq(RideLifecycleEvent.class)))
+                .thenReturn(Stream.of(event("a", 99_000), event("a", 100_000)))
+                .thenReturn(Stream.empty());
+        CappedCollectionRideLog log = new CappedCollectionRideLog(mongoTemplate, 1 << 20, 5000);
+        
+        assertEquals(2, log.replayAfter(98_000, event -> { }));
+        log.replayAfter(100_000, event -> { });
+        
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).stream(queries.capture(), eq(RideLifecycleEvent.class));
+        List<Document> branches = queries.getValue().getQueryObject().getList("$or", Document.class);
+        assertEquals(2, branches.size());
+        assertEquals("a", branches.get(0).get("source"));
+        assertEquals(100_000L, branches.get(0).get("position", Document.class).get("$gte"));
+        assertEquals(List.of("a"), List.copyOf(branches.get(1).get("source", Document.class)
+                .get("$nin", Collection.class)));
+        assertEquals(95_000L, branches.get(1).get("position", Document.class).get("$gte"));
+    }
+    
+    // An instance quiet for longer than the skew is no longer asked for by name
+    @Test
+    void forgetsInstancesSilentForLongerThanTheSkew() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.stream(any(Query.class), eq(RideLifecycleEvent.class)))
+                .thenReturn(Stream.of(event("a", 100_000)))
+                .thenReturn(Stream.empty());
+        CappedCollectionRideLog log = new CappedCollectionRideLog(mongoTemplate, 1 << 20, 5000);
+        
+        log.replayAfter(99_000, event -> { });
+        log.replayAfter(200_000, event -> { });
+        
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).stream(queries.capture(), eq(RideLifecycleEvent.class));
+        List<Document> branches = queries.getValue().getQueryObject().getList("$or", Document.class);
+        assertEquals(1, branches.size());
+        assertEquals(195_000L, branches.get(0).get("position", Document.class).get("$gte"));
+    }
+    
+    private static RideLifecycleEvent event(String source, long position) {
+        Ride ride = new Ride("r" + position, "u1", null, "Pickup", null, "Drop", "REQUESTED",
+                LocalDateTime.of(2025, 1, 1, 8, 0));
+        return new RideLifecycleEvent("id" + position, source, position, position, ride);
+    }
+}
@@ -0,0 +1,157 @@
+package com.harsha.assignment.repository;
+
+import com.harsha.assignment.model.Ride;
+import com.harsha.assignment.model.RideLifecycleEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedSegmentRideLogTest {
+    
+    private static final int SEGMENT_BYTES = 128 * 1024;
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void rollsSegmentsAndReplaysFromAnyPositionAfterReopening() throws IOException {
+        MappedSegmentRideLog log = new MappedSegmentRideLog(directory, SEGMENT_BYTES);
+        log.open();
+        for (int i = 0; i < 50; i++) {
+            log.append(events(i * 100, 100));
+        }
+        log.close();
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.count() > 1, "expected the log to roll over to more segments");
+        }
+        
+        MappedSegmentRideLog reopened = new MappedSegmentRideLog(directory, SEGMENT_BYTES);
+        reopened.open();
+        assertEquals(5000, reopened.lastPosition());
+        reopened.append(events(5000, 1));
+        
+        List<RideLifecycleEvent> tail = new ArrayList<>();
+        assertEquals(1001, reopened.replayAfter(4000, tail::add));
+        assertEquals(4001, tail.get(0).getPosition());
+        assertEquals("ride-4000", tail.get(0).getRide().getId());
+        assertEquals(5001, tail.get(tail.size() - 1).getPosition());
+        assertEquals(5001, reopened.replayAfter(0, event -> { }));
+        
+        Ride ride = tail.get(0).getRide();
+        assertEquals("ACCEPTED", ride.getStatus());
+        assertEquals("driver-4000", ride.getDriverId());
+        assertEquals(77.6, ride.getPickupPoint().getX());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 8, 0).plusSeconds(4000), ride.getCreatedAt());
+    }
+    
+    @Test
+    void dropsATornRecordAtTheEndAndKeepsAppendingAfterTheLastGoodOne() throws IOException {
+        MappedSegmentRideLog log = new MappedSegmentRideLog(directory, SEGMENT_BYTES);
+        log.open();
+        log.append(events(0, 10));
+        log.close();
+        
+        // Corrupt the payload of the last record, as a crash halfway through writing it would
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        List<Integer> recordStarts = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_BYTES);
+            int offset = 0;
+            int length;
+            while ((length = buffer.getInt(offset)) > 0) {
+                recordStarts.add(offset);
+                offset += 8 + length;
+            }
+            int last = recordStarts.get(recordStarts.size() - 1);
+            buffer.put(last + 20, (byte) (buffer.get(last + 20) ^ 0xff));
+            buffer.force();
+        }
+        
+        MappedSegmentRideLog reopened = new MappedSegmentRideLog(directory, SEGMENT_BYTES);
+        reopened.open();
+        assertEquals(9, reopened.lastPosition());
+        reopened.append(events(100, 1));
+        List<RideLifecycleEvent> all = new ArrayList<>();
+        reopened.replayAfter(0, all::add);
+        assertEquals(10, all.size());
+        assertEquals("ride-100", all.get(9).getRide().getId());
+        assertNull(all.get(0).getRide().getDriverId());
+    }
+    
+    // The writer failed after the first half of a batch was written and appends the whole batch again
+    @Test
+    void aRetriedBatchIsNotAppendedTwice() {
+        MappedSegmentRideLog log = new MappedSegmentRideLog(directory, SEGMENT_BYTES);
+        log.open();
+        List<RideLifecycleEvent> batch = events(0, 10);
+        log.append(batch.subList(0, 5));
+        
+        log.append(batch);
+        
+        assertEquals(10, log.lastPosition());
+        List<RideLifecycleEvent> all = new ArrayList<>();
+        log.replayAfter(0, all::add);
+        assertEquals(10, all.size());
+        assertEquals("ride-9", all.get(9).getRide().getId());
+    }
+    
+    @Test
+    void prunesOnlySegmentsWhollyBeforeThePosition() throws IOException {
+        MappedSegmentRideLog log = new MappedSegmentRideLog(directory, SEGMENT_BYTES);
+        log.open();
+        for (int i = 0; i < 50; i++) {
+            log.append(events(i * 100, 100));
+        }
+        long segments = segmentCount();
+        
+        log.pruneBefore(4000);
+        
+        assertTrue(segmentCount() < segments);
+        List<RideLifecycleEvent> tail = new ArrayList<>();
+        assertEquals(1000, log.replayAfter(4000, tail::add));
+        assertEquals(4001, tail.get(0).getPosition());
+        assertTrue(log.replayAfter(0, event -> { }) > 1000);
+        
+        log.pruneBefore(log.lastPosition());
+        assertEquals(1, segmentCount());
+        log.append(events(5000, 1));
+        assertEquals(5001, log.lastPosition());
+    }
+    
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+    
+    // Even rides after the first are accepted, the rest only requested
+    private static List<RideLifecycleEvent> events(int from, int count) {
+        List<RideLifecycleEvent> events = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            boolean accepted = i % 2 == 0 && i > 0;
+            Ride ride = new Ride("ride-" + i, "user-" + i, accepted ? "driver-" + i : null, "Pickup " + i,
+                    new GeoJsonPoint(77.6, 12.97), "Drop " + i, accepted ? "ACCEPTED" : "REQUESTED",
+                    LocalDateTime.of(2025, 1, 1, 8, 0).plusSeconds(i));
+            events.add(RideLifecycleEvent.of(ride));
+        }
+        return events;
+    }
+}
@@ -0,0 +1,146 @@
+package com.harsha.assignment.repository;
+
+import com.harsha.assignment.EmbeddedMongoSupport;
+import com.harsha.assignment.config.MongoIndexConfig;
+import com.harsha.assignment.model.Ride;
+import com.harsha.assignment.model.User;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.mongodb.autoconfigure.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Captures every query the repositories send to Mongo and fails if explain() shows a COLLSCAN
+@SpringBootTest
+class RepositoryQueryPlanTest extends EmbeddedMongoSupport {
+    
+    private static final Set<String> QUERY_COMMANDS = Set.of("find", "count", "aggregate", "findAndModify", "update", "delete");
+    private static final List<Document> captured = new CopyOnWriteArrayList<>();
+    
+    @TestConfiguration
+    static class CaptureQueries {
+        @Bean
+        MongoClientSettingsBuilderCustomizer captureQueryCommands() {
+            CommandListener listener = new CommandListener() {
+                @Override
+                public void commandStarted(CommandStartedEvent event) {
+                    if (QUERY_COMMANDS.contains(event.getCommandName())) {
+                        captured.add(Document.parse(event.getCommand().toJson()));
+                    }
+                }
+            };
+            return builder -> builder.addCommandListener(listener);
+        }
+    }
+    
+    @Autowired
+    private RideRepository rideRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private MongoIndexConfig mongoIndexConfig;
+    
+    private Ride seeded;
+    
+    @BeforeEach
+    void seed() {
+        mongoIndexConfig.ensureIndexes(Ride.class);
+        mongoIndexConfig.ensureIndexes(User.class);
+        
+        userRepository.save(new User(null, "plan-user-" + System.nanoTime(), "x", "ROLE_USER"));
+        for (int i = 0; i < 20; i++) {
+            Ride ride = new Ride();
+            ride.setUserId("plan-passenger");
+            ride.setDriverId(i % 2 == 0 ? "plan-driver" : null);
+            ride.setPickupLocation("A");
+            ride.setDropLocation("B");
+            ride.setStatus(i % 2 == 0 ? "ACCEPTED" : "REQUESTED");
+            ride.setCreatedAt(LocalDateTime.now().minusMinutes(i));
+            seeded = rideRepository.save(ride);
+        }
+        captured.clear();
+    }
+    
+    @Test
+    void everyRepositoryQueryUsesAnIndex() {
+        LocalDateTime cursorTime = seeded.getCreatedAt();
+        String cursorId = seeded.getId();
+        
+        rideRepository.findByStatus("REQUESTED");
+        rideRepository.findByUserId("plan-passenger");
+        rideRepository.findByDriverId("plan-driver");
+        rideRepository.findAllBy("userId", "plan-passenger");
+        rideRepository.findById(cursorId);
+        rideRepository.findPage("status", "REQUESTED", cursorTime, cursorId, 10, Sort.Direction.ASC);
+        rideRepository.findPage("userId", "plan-passenger", cursorTime, cursorId, 10, Sort.Direction.DESC);
+        rideRepository.findPage("driverId", "plan-driver", null, null, 10, Sort.Direction.DESC);
+        try (Stream<Ride> rides = rideRepository.streamBy("userId", "plan-passenger")) {
+            rides.count();
+        }
+        rideRepository.acceptIfRequested("000000000000000000000000", "plan-driver");
+        rideRepository.completeIfAccepted("000000000000000000000000", "plan-driver");
+        rideRepository.updateEachUnordered(
+                List.of(RideTransitions.requestedBy("000000000000000000000000", "plan-passenger")), RideTransitions.cancel());
+        rideRepository.findAllById(List.of(cursorId));
+        
+        userRepository.findByUsername("plan-user");
+        userRepository.existsByUsername("plan-user");
+        
+        assertFalse(captured.isEmpty(), "no queries were captured");
+        List<String> scans = new ArrayList<>();
+        for (Document command : captured) {
+            Document explain = mongoTemplate.getDb().runCommand(
+                    new Document("explain", stripDriverFields(command)).append("verbosity", "queryPlanner"));
+            Object winningPlan = ((Document) explain.get("queryPlanner")).get("winningPlan");
+            if (containsStage(winningPlan, "COLLSCAN")) {
+                scans.add(command.toJson());
+            }
+        }
+        assertTrue(scans.isEmpty(), "queries fell back to COLLSCAN: " + scans);
+    }
+    
+    private static Document stripDriverFields(Document command) {
+        Document copy = new Document();
+        command.forEach((key, value) -> {
+            if (!key.startsWith("$") && !key.equals("lsid") && !key.equals("txnNumber")) {
+                copy.append(key, value);
+            }
+        });
+        return copy;
+    }
+    
+    private static boolean containsStage(Object node, String stage) {
+        if (node instanceof Document document) {
+            if (stage.equals(document.get("stage"))) {
+                return true;
+            }
+            return document.values().stream().anyMatch(value -> containsStage(value, stage));
+        }
+        if (node instanceof List<?> list) {
+            return list.stream().anyMatch(value -> containsStage(value, stage));
+        }
+        return false;
+    }
+}
@@ -0,0 +1,102 @@
+package com.harsha.assignment.repository;
+
+import com.harsha.assignment.EmbeddedMongoSupport;
+import com.harsha.assignment.model.Ride;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+class RideAcceptanceContentionTest extends EmbeddedMongoSupport {
+    
+    private static final int DRIVERS = 64;
+    private static final int RIDES = 200;
+    
+    @Autowired
+    private RideRepository rideRepository;
+    
+    @Test
+    void exactlyOneDriverWinsEachRide() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(DRIVERS);
+        int lostUpdates = 0;
+        long attempts = 0;
+        long start = System.nanoTime();
+        
+        try {
+            for (int r = 0; r < RIDES; r++) {
+                Ride ride = new Ride();
+                ride.setUserId("passenger-" + r);
+                ride.setPickupLocation("A");
+                ride.setDropLocation("B");
+                ride.setStatus("REQUESTED");
+                ride.setCreatedAt(LocalDateTime.now());
+                String rideId = rideRepository.save(ride).getId();
+                
+                CountDownLatch go = new CountDownLatch(1);
+                CountDownLatch done = new CountDownLatch(DRIVERS);
+                AtomicInteger winners = new AtomicInteger();
+                AtomicReference<String> winner = new AtomicReference<>();
+                
+                for (int d = 0; d < DRIVERS; d++) {
+                    String driverId = "driver-" + d;
+                    pool.execute(() -> {
+                        try {
+                            go.await();
+                            if (rideRepository.acceptIfRequested(rideId, driverId) != null) {
+                                winners.incrementAndGet();
+                                winner.set(driverId);
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } finally {
+                            done.countDown();
+                        }
+                    });
+                }
+                go.countDown();
+                done.await();
+                attempts += DRIVERS;
+                
+                assertEquals(1, winners.get(), "exactly one driver must win ride " + rideId);
+                Ride stored = rideRepository.findById(rideId).orElseThrow();
+                if (!"ACCEPTED".equals(stored.getStatus()) || !winner.get().equals(stored.getDriverId())) {
+                    lostUpdates++;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("accept contention: %d drivers, %d rides, %.0f accept attempts/s, lost updates=%d%n",
+                DRIVERS, RIDES, attempts / seconds, lostUpdates);
+        assertEquals(0, lostUpdates);
+    }
+    
+    @Test
+    void completeOnlyMatchesAcceptedRideForParticipant() {
+        Ride ride = new Ride();
+        ride.setUserId("passenger");
+        ride.setPickupLocation("A");
+        ride.setDropLocation("B");
+        ride.setStatus("REQUESTED");
+        ride.setCreatedAt(LocalDateTime.now());
+        String rideId = rideRepository.save(ride).getId();
+        
+        assertNull(rideRepository.completeIfAccepted(rideId, "passenger"));
+        rideRepository.acceptIfRequested(rideId, "driver");
+        assertNull(rideRepository.completeIfAccepted(rideId, "someone-else"));
+        assertEquals("COMPLETED", rideRepository.completeIfAccepted(rideId, "driver").getStatus());
+        assertNull(rideRepository.completeIfAccepted(rideId, "passenger"));
+    }
+}
@@ -0,0 +1,43 @@
+package com.harsha.assignment.repository;
+
+import com.harsha.assignment.model.Ride;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RideArchiveTest {
+    
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+    
+    // Hot rides can be older than archived ones (an old ride still in progress), so streams interleave
+    @Test
+    void mergesHotAndArchivedStreamsNewestFirstWithoutRepeats() {
+        AtomicInteger closed = new AtomicInteger();
+        // An interrupted move left m2 in rides as well as in its partition
+        List<Ride> hot = List.of(ride("h2", 90), ride("m2", 70), ride("h1", 5));
+        List<Ride> march = List.of(ride("m2", 70), ride("m1", 60));
+        List<Ride> january = List.of(ride("j1", 10), ride("j0", 10));
+        
+        try (Stream<Ride> merged = RideArchive.merge(List.of(
+                hot.stream().onClose(closed::incrementAndGet),
+                march.stream().onClose(closed::incrementAndGet),
+                january.stream().onClose(closed::incrementAndGet)), RideArchive.NEWEST_FIRST)) {
+            assertEquals(List.of("h2", "m2", "m1", "j1", "j0", "h1"), merged.map(Ride::getId).toList());
+        }
+        assertEquals(3, closed.get());
+    }
+    
+    private static Ride ride(String id, int day) {
+        Ride ride = new Ride();
+        ride.setId(id);
+        ride.setUserId("u1");
+        ride.setStatus("COMPLETED");
+        ride.setCreatedAt(START.plusDays(day));
+        return ride;
+    }
+}
@@ -0,0 +1,100 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.EmbeddedMongoSupport;
+import com.harsha.assignment.config.AuthenticatedUser;
+import com.harsha.assignment.dto.BatchResult;
+import com.harsha.assignment.model.Ride;
+import com.harsha.assignment.repository.RideRepository;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// A single complete racing a batch complete of the same ride: exactly one of them succeeds, and the ride is
+// counted (summary, transition side effects) once
+@SpringBootTest
+class BulkTransitionRaceTest extends EmbeddedMongoSupport {
+    
+    private static final int RIDES = 200;
+    
+    @Autowired
+    private RideService rideService;
+    
+    @Autowired
+    private RideRepository rideRepository;
+    
+    @Autowired
+    private RideSummaryService rideSummaryService;
+    
+    @Test
+    void singleAndBatchCompleteOfTheSameRideSucceedOnce() throws Exception {
+        AuthenticatedUser passenger = new AuthenticatedUser(new ObjectId().toHexString(), "race-passenger", "USER");
+        String driverId = new ObjectId().toHexString();
+        int singleWins = 0;
+        int batchWins = 0;
+        
+        try (ExecutorService pool = Executors.newFixedThreadPool(2)) {
+            for (int r = 0; r < RIDES; r++) {
+                String rideId = rideRepository.save(acceptedRide(passenger.getId(), driverId)).getId();
+                CountDownLatch go = new CountDownLatch(1);
+                Future<Boolean> single = pool.submit(() -> as(passenger, go, () -> {
+                    try {
+                        rideService.completeRide(rideId);
+                        return true;
+                    } catch (RuntimeException e) {
+                        return false;
+                    }
+                }));
+                Future<Boolean> batch = pool.submit(() -> as(passenger, go, () -> {
+                    BatchResult result = rideService.completeRides(List.of(rideId));
+                    return result.getSucceeded() == 1;
+                }));
+                go.countDown();
+                
+                boolean singleWon = single.get();
+                boolean batchWon = batch.get();
+                assertEquals(1, (singleWon ? 1 : 0) + (batchWon ? 1 : 0), "exactly one request must complete " + rideId);
+                singleWins += singleWon ? 1 : 0;
+                batchWins += batchWon ? 1 : 0;
+            }
+        }
+        
+        assertEquals(RIDES, rideSummaryService.find(passenger.getId()).getCompleted());
+        System.out.printf("%d races: single won %d, batch won %d%n", RIDES, singleWins, batchWins);
+    }
+    
+    private static <T> T as(AuthenticatedUser user, CountDownLatch go, Callable<T> action)
+            throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, List.of()));
+        try {
+            go.await();
+            return action.call();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+    
+    private static Ride acceptedRide(String userId, String driverId) {
+        Ride ride = new Ride();
+        ride.setUserId(userId);
+        ride.setDriverId(driverId);
+        ride.setPickupLocation("A");
+        ride.setDropLocation("B");
+        ride.setStatus("ACCEPTED");
+        ride.setCreatedAt(LocalDateTime.now());
+        return ride;
+    }
+}
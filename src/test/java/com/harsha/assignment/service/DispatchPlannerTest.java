@@ -0,0 +1,133 @@
+package com.harsha.assignment.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DispatchPlannerTest {
+    
+    private static final int OPEN_REQUESTS = 10_000;
+    private static final int DRIVERS = 3_000;
+    
+    @Test
+    void hungarianBeatsGreedyWhereTheClosestPairIsAWrongChoice() {
+        // Greedy gives d1 to r1 (0.9 km) and leaves r2 with d2 (3.1 km); swapping costs 1.0 + 1.2 km in total
+        List<DispatchPlanner.Request> requests = List.of(
+                new DispatchPlanner.Request("r1", 0, 0),
+                new DispatchPlanner.Request("r2", 0, 0.0189));
+        List<DispatchPlanner.Driver> drivers = List.of(
+                new DispatchPlanner.Driver("d1", 0, 0.0081),
+                new DispatchPlanner.Driver("d2", 0, -0.009));
+        
+        List<DispatchPlanner.Assignment> greedy = new DispatchPlanner(5, 10, DispatchPlanner.Algorithm.GREEDY)
+                .plan(requests, drivers);
+        List<DispatchPlanner.Assignment> optimal = new DispatchPlanner(5, 10, DispatchPlanner.Algorithm.HUNGARIAN)
+                .plan(requests, drivers);
+        
+        assertEquals(2, greedy.size());
+        assertEquals(2, optimal.size());
+        assertTrue(total(optimal) < total(greedy));
+        assertEquals("d2", optimal.stream().filter(a -> a.rideId().equals("r1")).findFirst().orElseThrow().driverId());
+    }
+    
+    @Test
+    void neverAssignsBeyondThePickupRadiusOrTwice() {
+        List<DispatchPlanner.Request> requests = List.of(
+                new DispatchPlanner.Request("near", 12.97, 77.59),
+                new DispatchPlanner.Request("far", 13.50, 77.59),
+                new DispatchPlanner.Request("also-near", 12.971, 77.591));
+        List<DispatchPlanner.Driver> drivers = List.of(new DispatchPlanner.Driver("d1", 12.972, 77.592));
+        
+        for (DispatchPlanner.Algorithm algorithm : DispatchPlanner.Algorithm.values()) {
+            List<DispatchPlanner.Assignment> plan = new DispatchPlanner(5, 10, algorithm).plan(requests, drivers);
+            assertEquals(1, plan.size(), algorithm.name());
+            assertTrue(plan.get(0).pickupKm() <= 5);
+        }
+    }
+    
+    // Fiji straddles 180°: a driver 2 km away on the other side of the antimeridian is still a neighbour
+    @Test
+    void reachesDriversAcrossTheAntimeridian() {
+        List<DispatchPlanner.Request> requests = List.of(new DispatchPlanner.Request("r1", -16.5, 179.99));
+        List<DispatchPlanner.Driver> drivers = List.of(new DispatchPlanner.Driver("d1", -16.5, -179.99));
+        
+        for (DispatchPlanner.Algorithm algorithm : DispatchPlanner.Algorithm.values()) {
+            List<DispatchPlanner.Assignment> plan = new DispatchPlanner(5, 10, algorithm).plan(requests, drivers);
+            assertEquals(1, plan.size(), algorithm.name());
+            assertEquals(2.13, plan.get(0).pickupKm(), 0.01);
+        }
+    }
+    
+    // Near a pole a degree of longitude is a few hundred metres, so the driver is many cells away yet in range;
+    // one just outside the radius by great-circle distance is not
+    @Test
+    void reachesDriversNearThePole() {
+        List<DispatchPlanner.Request> requests = List.of(new DispatchPlanner.Request("r1", 89.99, 0));
+        List<DispatchPlanner.Driver> drivers = List.of(
+                new DispatchPlanner.Driver("across", 89.99, 170),
+                new DispatchPlanner.Driver("too-far", 89.9, 0));
+        
+        for (DispatchPlanner.Algorithm algorithm : DispatchPlanner.Algorithm.values()) {
+            List<DispatchPlanner.Assignment> plan = new DispatchPlanner(5, 10, algorithm).plan(requests, drivers);
+            assertEquals(1, plan.size(), algorithm.name());
+            assertEquals("across", plan.get(0).driverId());
+            assertTrue(plan.get(0).pickupKm() <= 5);
+        }
+    }
+    
+    // Simulation: 10k open requests and a smaller driver fleet around one city, dispatched window by window
+    @Test
+    void simulateTenThousandOpenRequests() {
+        for (DispatchPlanner.Algorithm algorithm : DispatchPlanner.Algorithm.values()) {
+            Random random = new Random(42);
+            List<DispatchPlanner.Request> open = new ArrayList<>();
+            for (int i = 0; i < OPEN_REQUESTS; i++) {
+                open.add(new DispatchPlanner.Request("r" + i, 12.85 + random.nextDouble() * 0.25,
+                        77.45 + random.nextDouble() * 0.25));
+            }
+            List<DispatchPlanner.Driver> available = new ArrayList<>();
+            for (int i = 0; i < DRIVERS; i++) {
+                available.add(new DispatchPlanner.Driver("d" + i, 12.85 + random.nextDouble() * 0.25,
+                        77.45 + random.nextDouble() * 0.25));
+            }
+            
+            DispatchPlanner planner = new DispatchPlanner(5, 100, algorithm);
+            Set<String> assignedRides = new HashSet<>();
+            Set<String> assignedDrivers = new HashSet<>();
+            double pickupKm = 0;
+            int windows = 0;
+            long start = System.nanoTime();
+            while (true) {
+                List<DispatchPlanner.Assignment> plan = planner.plan(open, available);
+                if (plan.isEmpty()) {
+                    break;
+                }
+                windows++;
+                for (DispatchPlanner.Assignment assignment : plan) {
+                    assertTrue(assignedRides.add(assignment.rideId()));
+                    assertTrue(assignedDrivers.add(assignment.driverId()));
+                    pickupKm += assignment.pickupKm();
+                }
+                open.removeIf(request -> assignedRides.contains(request.rideId()));
+                available.removeIf(driver -> assignedDrivers.contains(driver.driverId()));
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("dispatch simulation (%s): %d open requests, %d drivers, %d windows, "
+                            + "%.0f assignments/s, avg pickup %.2f km%n",
+                    algorithm, OPEN_REQUESTS, DRIVERS, windows, assignedRides.size() / seconds,
+                    pickupKm / assignedRides.size());
+            assertEquals(DRIVERS, assignedRides.size());
+        }
+    }
+    
+    private static double total(List<DispatchPlanner.Assignment> plan) {
+        return plan.stream().mapToDouble(DispatchPlanner.Assignment::pickupKm).sum();
+    }
+}
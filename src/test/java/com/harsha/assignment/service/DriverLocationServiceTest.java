@@ -0,0 +1,112 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.model.DriverLocation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DriverLocationServiceTest {
+    
+    private MongoTemplate mongoTemplate;
+    private DriverLocationService service;
+    
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(DriverLocation.class)))
+                .thenReturn(mock(BulkOperations.class));
+        service = new DriverLocationService();
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "flushBatchSize", 1000);
+        ReflectionTestUtils.setField(service, "staleMillis", 300000L);
+    }
+    
+    // A ping without availability after the entry was evicted keeps the driver on duty, as stored
+    @Test
+    void pingAfterEvictionKeepsStoredAvailability() throws InterruptedException {
+        service.reportLocation("d1", 12.90, 77.50, true);
+        evictEverything();
+        stored("d1", 12.90, 77.50, true);
+        
+        service.reportLocation("d1", 12.95, 77.60, null);
+        
+        List<DispatchPlanner.Driver> drivers = service.availableDrivers();
+        assertEquals(1, drivers.size());
+        assertEquals("d1", drivers.get(0).driverId());
+        assertEquals(12.95, service.findPosition("d1").orElseThrow().latitude());
+    }
+    
+    // Going on duty after eviction keeps the stored position, so nearby search still has coordinates
+    @Test
+    void availabilityAfterEvictionKeepsStoredPosition() throws InterruptedException {
+        service.reportLocation("d1", 12.90, 77.50, false);
+        evictEverything();
+        stored("d1", 12.90, 77.50, false);
+        
+        service.setAvailability("d1", true);
+        
+        DriverPosition position = service.findPosition("d1").orElseThrow();
+        assertTrue(position.isAvailable());
+        assertEquals(12.90, position.latitude());
+        assertEquals(77.50, position.longitude());
+        assertEquals(1, service.availableDrivers().size());
+    }
+    
+    @Test
+    void driverWithoutStoredStateStartsUnknown() {
+        service.reportLocation("d2", 12.90, 77.50, null);
+        assertTrue(service.availableDrivers().isEmpty());
+        
+        service.setAvailability("d3", true);
+        assertTrue(service.findPosition("d3").orElseThrow().isAvailable());
+        assertFalse(service.findPosition("d3").orElseThrow().hasLocation());
+    }
+    
+    // Only one of two claims gets the driver; a release after the driver changed their own availability is ignored
+    @Test
+    void claimTakesAnOnDutyDriverOnce() {
+        service.reportLocation("d1", 12.90, 77.50, true);
+        
+        DriverPosition claim = service.claim("d1");
+        assertNotNull(claim);
+        assertNull(service.claim("d1"));
+        assertTrue(service.availableDrivers().isEmpty());
+        
+        service.release("d1", claim);
+        assertEquals(1, service.availableDrivers().size());
+        
+        DriverPosition again = service.claim("d1");
+        service.setAvailability("d1", false);
+        service.release("d1", again);
+        assertTrue(service.availableDrivers().isEmpty());
+    }
+    
+    private void evictEverything() throws InterruptedException {
+        ReflectionTestUtils.setField(service, "staleMillis", 0L);
+        Thread.sleep(2);
+        service.flush();
+        ReflectionTestUtils.setField(service, "staleMillis", 300000L);
+        assertEquals(0, service.trackedDrivers());
+    }
+    
+    private void stored(String driverId, double latitude, double longitude, boolean available) {
+        when(mongoTemplate.findById(driverId, DriverLocation.class)).thenReturn(
+                new DriverLocation(driverId, new GeoJsonPoint(longitude, latitude), available, new Date()));
+    }
+}
@@ -0,0 +1,145 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.dto.RideResponse;
+import com.harsha.assignment.exception.BadRequestException;
+import com.harsha.assignment.exception.ConflictException;
+import com.harsha.assignment.model.IdempotencyRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyStoreTest {
+    
+    private IdempotencyStore store;
+    
+    @BeforeEach
+    void setUp() {
+        store = new IdempotencyStore();
+        ReflectionTestUtils.setField(store, "mongoTemplate", mock(MongoTemplate.class));
+        ReflectionTestUtils.setField(store, "ttlMillis", 60000L);
+        ReflectionTestUtils.setField(store, "claimMillis", 30000L);
+        ReflectionTestUtils.setField(store, "maxSize", 100);
+    }
+    
+    @Test
+    void concurrentDuplicatesRunTheActionOnce() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        RideResponse created = new RideResponse();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<RideResponse>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return store.execute("u1", "create-ride", "key-1", "body", () -> {
+                        executions.incrementAndGet();
+                        sleep(50);
+                        return created;
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<RideResponse> result : results) {
+                assertSame(created, result.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, executions.get());
+    }
+    
+    @Test
+    void reusedKeyWithADifferentRequestIsRejected() {
+        store.execute("u1", "create-ride", "key-1", "body", RideResponse::new);
+        assertThrows(BadRequestException.class,
+                () -> store.execute("u1", "create-ride", "key-1", "other body", RideResponse::new));
+    }
+    
+    @Test
+    void failedRequestsCanBeRetried() {
+        assertThrows(ConflictException.class, () -> store.execute("u1", "accept-ride", "key-1", "ride-1", () -> {
+            throw new ConflictException("Ride is not available for acceptance");
+        }));
+        RideResponse accepted = new RideResponse();
+        assertSame(accepted, store.execute("u1", "accept-ride", "key-1", "ride-1", () -> accepted));
+    }
+    
+    // The ride exists once the action returns, so a failed response write must neither release the claim nor let a
+    // retry create it again
+    @Test
+    void failedResponseWriteKeepsTheClaimAndTheReplay() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecord.class)))
+                .thenThrow(new DataAccessResourceFailureException("primary stepped down"));
+        ReflectionTestUtils.setField(store, "mongoTemplate", mongoTemplate);
+        AtomicInteger executions = new AtomicInteger();
+        RideResponse created = new RideResponse();
+        
+        for (int i = 0; i < 2; i++) {
+            assertSame(created, store.execute("u1", "create-ride", "key-1", "body", () -> {
+                executions.incrementAndGet();
+                return created;
+            }));
+        }
+        assertEquals(1, executions.get());
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(IdempotencyRecord.class));
+    }
+    
+    // The mocked collection holds nothing, so a key that fell out of the cache runs its action again
+    @Test
+    void fullCacheEvictsTheLeastRecentlyUsedKey() {
+        AtomicInteger executions = new AtomicInteger();
+        for (int i = 0; i < 100; i++) {
+            store.execute("u1", "create-ride", "key-" + i, "body", () -> {
+                executions.incrementAndGet();
+                return new RideResponse();
+            });
+        }
+        // Replaying key-0 makes key-1 the least recently used
+        store.execute("u1", "create-ride", "key-0", "body", RideResponse::new);
+        store.execute("u1", "create-ride", "key-100", "body", RideResponse::new);
+        assertEquals(100, store.cachedEntries());
+        
+        RideResponse first = store.execute("u1", "create-ride", "key-0", "body", () -> {
+            executions.incrementAndGet();
+            return new RideResponse();
+        });
+        assertEquals(100, executions.get());
+        store.execute("u1", "create-ride", "key-1", "body", () -> {
+            executions.incrementAndGet();
+            return first;
+        });
+        assertEquals(101, executions.get());
+    }
+    
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.model.Ride;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NearbyRideIndexTest {
+    
+    // Degrees of latitude per km on the sphere distanceKm uses
+    private static final double DEGREES_PER_KM = 1 / 111.19508;
+    private static final double LAT = 12.9716;
+    private static final double LNG = 77.5946;
+    
+    @Test
+    void findsOnlyRidesWithinTheRadius() {
+        NearbyRideIndex index = new NearbyRideIndex();
+        index.add(ride("1km", LAT + 1 * DEGREES_PER_KM, LNG));
+        index.add(ride("4.9km", LAT - 4.9 * DEGREES_PER_KM, LNG));
+        index.add(ride("5.1km", LAT + 5.1 * DEGREES_PER_KM, LNG));
+        index.add(ride("far", LAT + 1, LNG + 1));
+        index.add(new Ride("no-point", "u1", null, "Pickup", null, "Drop", "REQUESTED", LocalDateTime.now()));
+        
+        assertEquals(List.of("1km", "4.9km"), ids(index.findNearest(LAT, LNG, 5, 10)));
+        assertEquals(4, index.size());
+    }
+    
+    @Test
+    void returnsTheNearestUpToTheLimitNearestFirst() {
+        NearbyRideIndex index = new NearbyRideIndex();
+        // Spread over several cells and added out of order
+        index.add(ride("3km", LAT, LNG + 3 * DEGREES_PER_KM / Math.cos(Math.toRadians(LAT))));
+        index.add(ride("0.5km", LAT - 0.5 * DEGREES_PER_KM, LNG));
+        index.add(ride("8km", LAT + 8 * DEGREES_PER_KM, LNG));
+        index.add(ride("2km", LAT + 2 * DEGREES_PER_KM, LNG));
+        
+        assertEquals(List.of("0.5km", "2km", "3km", "8km"), ids(index.findNearest(LAT, LNG, 10, 10)));
+        assertEquals(List.of("0.5km", "2km"), ids(index.findNearest(LAT, LNG, 10, 2)));
+    }
+    
+    @Test
+    void reAddingARideMovesItToItsNewCell() {
+        NearbyRideIndex index = new NearbyRideIndex();
+        index.add(ride("r1", LAT, LNG));
+        index.add(ride("r1", LAT + 1, LNG + 1));
+        
+        assertTrue(index.findNearest(LAT, LNG, 5, 10).isEmpty());
+        assertEquals(List.of("r1"), ids(index.findNearest(LAT + 1, LNG + 1, 5, 10)));
+        assertEquals(1, index.size());
+    }
+    
+    @Test
+    void removedRidesAreNoLongerFound() {
+        NearbyRideIndex index = new NearbyRideIndex();
+        index.add(ride("r1", LAT, LNG));
+        index.add(ride("r2", LAT, LNG));
+        index.remove("r1");
+        index.remove("unknown");
+        
+        assertEquals(List.of("r2"), ids(index.findNearest(LAT, LNG, 5, 10)));
+        assertEquals(1, index.size());
+    }
+    
+    @Test
+    void searchesAcrossTheAntimeridian() {
+        NearbyRideIndex index = new NearbyRideIndex();
+        index.add(ride("west", -17.0, 179.99));
+        index.add(ride("east", -17.0, -179.99));
+        
+        assertEquals(List.of("west", "east"), ids(index.findNearest(-17.0, 179.995, 5, 10)));
+        assertEquals(List.of("east", "west"), ids(index.findNearest(-17.0, -179.995, 5, 10)));
+    }
+    
+    // Near a pole a few km span every longitude, so rides on the far side of the pole are still found
+    @Test
+    void searchesAroundThePoles() {
+        NearbyRideIndex index = new NearbyRideIndex();
+        index.add(ride("north-near", 89.99, 10));
+        index.add(ride("north-across", 89.99, -170));
+        index.add(ride("south-across", -89.99, 90));
+        
+        assertEquals(List.of("north-near", "north-across"), ids(index.findNearest(89.99, 0, 5, 10)));
+        assertEquals(List.of("south-across"), ids(index.findNearest(-89.99, -90, 5, 10)));
+    }
+    
+    private static Ride ride(String id, double latitude, double longitude) {
+        return new Ride(id, "u1", null, "Pickup", new GeoJsonPoint(longitude, latitude), "Drop", "REQUESTED",
+                LocalDateTime.now());
+    }
+    
+    private static List<String> ids(List<Ride> rides) {
+        return rides.stream().map(Ride::getId).toList();
+    }
+}
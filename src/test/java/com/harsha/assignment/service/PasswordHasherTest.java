@@ -0,0 +1,78 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.config.PasswordEncoderConfig;
+import com.harsha.assignment.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHasherTest {
+    
+    @Test
+    void rejectsWorkBeyondTheQueueWith429() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordHasher hasher = new PasswordHasher(new BlockingEncoder(release), new SimpleMeterRegistry(), 1, 1, 5000);
+        try {
+            CompletableFuture<String> running = hasher.encodeAsync("a");
+            CompletableFuture<String> queued = hasher.encodeAsync("b");
+            CompletableFuture<String> rejected = hasher.encodeAsync("c");
+            
+            ExecutionException failure = assertThrows(ExecutionException.class, rejected::get);
+            assertInstanceOf(TooManyRequestsException.class, failure.getCause());
+            
+            release.countDown();
+            running.get();
+            queued.get();
+        } finally {
+            hasher.shutdown();
+        }
+    }
+    
+    @Test
+    void legacyBcryptHashesAreUpgradedOnLogin() {
+        PasswordEncoderConfig config = new PasswordEncoderConfig();
+        ReflectionTestUtils.setField(config, "encoderId", "pbkdf2");
+        ReflectionTestUtils.setField(config, "bcryptStrength", 10);
+        PasswordHasher hasher = new PasswordHasher(config.passwordEncoder(), new SimpleMeterRegistry(), 1, 4, 5000);
+        try {
+            String legacy = new BCryptPasswordEncoder().encode("secret");
+            assertTrue(hasher.matches("secret", legacy));
+            assertTrue(hasher.needsRehash(legacy));
+            
+            String upgraded = hasher.encode("secret");
+            assertTrue(upgraded.startsWith("{pbkdf2}"));
+            assertTrue(hasher.matches("secret", upgraded));
+            assertFalse(hasher.needsRehash(upgraded));
+        } finally {
+            hasher.shutdown();
+        }
+    }
+    
+    private record BlockingEncoder(CountDownLatch release) implements PasswordEncoder {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "{noop}" + rawPassword;
+        }
+        
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.EmbeddedMongoSupport;
+import com.harsha.assignment.model.Ride;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Writes go straight through MongoTemplate, as another instance's would, so only the change stream can see them
+@SpringBootTest(properties = "rides.board.change-stream.enabled=true")
+class PendingRideBoardSyncTest extends EmbeddedMongoSupport {
+    
+    @Autowired
+    private PendingRideBoard pendingRideBoard;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Test
+    void boardFollowsWritesFromOtherInstances() throws Exception {
+        awaitTrue(pendingRideBoard::isReady, "board was never loaded");
+        
+        Ride ride = new Ride();
+        ride.setUserId("remote-passenger");
+        ride.setPickupLocation("A");
+        ride.setDropLocation("B");
+        ride.setStatus("REQUESTED");
+        ride.setCreatedAt(LocalDateTime.now());
+        String rideId = mongoTemplate.insert(ride).getId();
+        awaitTrue(() -> onBoard(rideId), "inserted ride never reached the board");
+        
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(rideId)),
+                Update.update("status", "ACCEPTED").set("driverId", "remote-driver"), Ride.class);
+        awaitTrue(() -> !onBoard(rideId), "accepted ride stayed on the board");
+        assertTrue(pendingRideBoard.lastSyncLagMillis() >= 0);
+    }
+    
+    private boolean onBoard(String rideId) {
+        return pendingRideBoard.pending().stream().anyMatch(ride -> ride.getId().equals(rideId));
+    }
+    
+    private static void awaitTrue(BooleanSupplier condition, String message) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, message);
+            Thread.sleep(50);
+        }
+    }
+}
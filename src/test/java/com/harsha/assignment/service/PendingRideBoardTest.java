@@ -0,0 +1,89 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.model.Ride;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PendingRideBoardTest {
+    
+    private static final long MINUTE = 60 * 1000;
+    
+    private PendingRideBoard board;
+    private long loadedAt;
+    
+    @BeforeEach
+    void setUp() {
+        board = new PendingRideBoard();
+        ReflectionTestUtils.setField(board, "nearbyRideIndex", new NearbyRideIndex());
+        loadedAt = System.currentTimeMillis();
+        board.load(List.of(), loadedAt);
+    }
+    
+    // A ride taken off the board is not put back by a late creation event
+    @Test
+    void removedRideStaysOffTheBoard() {
+        Ride ride = requested(new ObjectId().toHexString());
+        board.apply(ride);
+        
+        board.remove(ride.getId());
+        board.apply(ride);
+        
+        assertEquals(0, board.size());
+        assertEquals(1, board.tombstoneCount());
+    }
+    
+    // Removes of rides the board never held and cannot receive (an old archived ride, a bad id) leave nothing behind;
+    // a ride created after the load may still have its creation event in flight, so it is remembered
+    @Test
+    void onlyRidesThatMayStillArriveAreTombstoned() {
+        board.remove(new ObjectId(new Date(loadedAt - 60 * MINUTE)).toHexString());
+        board.remove("not-an-object-id");
+        assertEquals(0, board.tombstoneCount());
+        
+        String fresh = new ObjectId(new Date(loadedAt + 1000)).toHexString();
+        board.remove(fresh);
+        board.apply(requested(fresh));
+        assertEquals(1, board.tombstoneCount());
+        assertEquals(0, board.size());
+    }
+    
+    // Each remove expires what has outlived the TTL, oldest first, without scanning the rest
+    @Test
+    void tombstonesExpireInRemovalOrder() {
+        String first = onBoard();
+        String second = onBoard();
+        board.remove(first, loadedAt);
+        board.remove(second, loadedAt + 5 * MINUTE);
+        
+        board.remove(onBoard(), loadedAt + 11 * MINUTE);
+        assertEquals(2, board.tombstoneCount());
+        
+        // Only the expired tombstone lets its ride back on the board
+        board.apply(requested(first));
+        board.apply(requested(second));
+        assertEquals(1, board.size());
+    }
+    
+    private String onBoard() {
+        Ride ride = requested(new ObjectId().toHexString());
+        board.apply(ride);
+        return ride.getId();
+    }
+    
+    private static Ride requested(String id) {
+        Ride ride = new Ride();
+        ride.setId(id);
+        ride.setUserId("u1");
+        ride.setStatus("REQUESTED");
+        ride.setCreatedAt(LocalDateTime.now());
+        return ride;
+    }
+}
@@ -0,0 +1,132 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.model.Ride;
+import com.harsha.assignment.repository.RideRepository;
+import com.harsha.assignment.repository.RideTransitions;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RideDispatcherTest {
+    
+    private RideRepository rideRepository;
+    private PendingRideBoard pendingRideBoard;
+    private DriverLocationService driverLocationService;
+    private RideSummaryService rideSummaryService;
+    private RideEventBroadcaster rideEventBroadcaster;
+    private RideDispatcher dispatcher;
+    
+    private final DriverPosition d1Claim = new DriverPosition(12.90, 77.50, false, 1);
+    private final DriverPosition d2Claim = new DriverPosition(12.95, 77.60, false, 1);
+    
+    @BeforeEach
+    void setUp() {
+        rideRepository = mock(RideRepository.class);
+        pendingRideBoard = mock(PendingRideBoard.class);
+        driverLocationService = mock(DriverLocationService.class);
+        rideSummaryService = mock(RideSummaryService.class);
+        rideEventBroadcaster = mock(RideEventBroadcaster.class);
+        
+        dispatcher = new RideDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "rideRepository", rideRepository);
+        ReflectionTestUtils.setField(dispatcher, "pendingRideBoard", pendingRideBoard);
+        ReflectionTestUtils.setField(dispatcher, "driverLocationService", driverLocationService);
+        ReflectionTestUtils.setField(dispatcher, "rideEventBroadcaster", rideEventBroadcaster);
+        ReflectionTestUtils.setField(dispatcher, "rideMetrics", mock(RideMetrics.class));
+        ReflectionTestUtils.setField(dispatcher, "rideLifecycleRecorder", mock(RideLifecycleRecorder.class));
+        ReflectionTestUtils.setField(dispatcher, "rideSummaryService", rideSummaryService);
+        ReflectionTestUtils.setField(dispatcher, "rideListVersions", mock(RideListVersions.class));
+        ReflectionTestUtils.setField(dispatcher, "planner",
+                new DispatchPlanner(5, 100, DispatchPlanner.Algorithm.HUNGARIAN));
+        
+        when(pendingRideBoard.isReady()).thenReturn(true);
+        when(pendingRideBoard.pending()).thenReturn(List.of(
+                pendingRide("r1", 12.90, 77.50), pendingRide("r2", 12.95, 77.60)));
+        when(driverLocationService.availableDrivers()).thenReturn(List.of(
+                new DispatchPlanner.Driver("d1", 12.90, 77.50), new DispatchPlanner.Driver("d2", 12.95, 77.60)));
+    }
+    
+    // d2 accepted r2 by hand while the window was writing: r2 is ACCEPTED by d2 either way, but only r1 carries
+    // this window's marker, so r2's side effects are left to acceptRide and d2's claim is given back
+    @Test
+    @SuppressWarnings("unchecked")
+    void aRideTheSameDriverAcceptedByHandIsALostRace() {
+        when(driverLocationService.claim("d1")).thenReturn(d1Claim);
+        when(driverLocationService.claim("d2")).thenReturn(d2Claim);
+        when(rideRepository.updateEachUnordered(anyList(), anyList())).thenReturn(1L);
+        ArgumentCaptor<String> transitionId = ArgumentCaptor.forClass(String.class);
+        when(rideRepository.findIdsMarkedBy(transitionId.capture(), anyCollection())).thenReturn(Set.of("r1"));
+        
+        assertEquals(1, dispatcher.dispatch());
+        
+        ArgumentCaptor<List<Update>> updates = ArgumentCaptor.forClass(List.class);
+        verify(rideRepository).updateEachUnordered(anyList(), updates.capture());
+        for (Update update : updates.getValue()) {
+            assertEquals(transitionId.getValue(), update.getUpdateObject().get("$set", Document.class)
+                    .get(RideTransitions.MARKER));
+        }
+        ArgumentCaptor<Ride> recorded = ArgumentCaptor.forClass(Ride.class);
+        verify(rideSummaryService, times(1)).record(recorded.capture());
+        assertEquals("r1", recorded.getValue().getId());
+        assertEquals("d1", recorded.getValue().getDriverId());
+        verify(rideEventBroadcaster, times(1)).publish(eq("ACCEPTED"), any(Ride.class));
+        verify(driverLocationService).release("d2", d2Claim);
+        verify(driverLocationService, never()).release(eq("d1"), any());
+        assertEquals(1, dispatcher.assignments());
+        assertEquals(1, dispatcher.lostRaces());
+    }
+    
+    // d2 went off duty (a manual accept claimed it) between planning and the write: r2 is not written at all and
+    // stays on the board for the next window
+    @Test
+    @SuppressWarnings("unchecked")
+    void aDriverClaimedSincePlanningIsSkipped() {
+        when(driverLocationService.claim("d1")).thenReturn(d1Claim);
+        when(driverLocationService.claim("d2")).thenReturn(null);
+        when(rideRepository.updateEachUnordered(anyList(), anyList())).thenReturn(1L);
+        
+        assertEquals(1, dispatcher.dispatch());
+        
+        ArgumentCaptor<List<Query>> conditions = ArgumentCaptor.forClass(List.class);
+        verify(rideRepository).updateEachUnordered(conditions.capture(), anyList());
+        assertEquals(1, conditions.getValue().size());
+        assertEquals("r1", conditions.getValue().get(0).getQueryObject().get("_id"));
+        verify(rideRepository, never()).findIdsMarkedBy(anyString(), anyCollection());
+        verify(pendingRideBoard, never()).remove("r2");
+        verify(rideSummaryService, times(1)).record(any(Ride.class));
+        assertEquals(1, dispatcher.lostRaces());
+    }
+    
+    private static Ride pendingRide(String id, double latitude, double longitude) {
+        Ride ride = new Ride();
+        ride.setId(id);
+        ride.setUserId("u-" + id);
+        ride.setPickupLocation("A");
+        ride.setPickupPoint(new GeoJsonPoint(longitude, latitude));
+        ride.setDropLocation("B");
+        ride.setStatus("REQUESTED");
+        ride.setCreatedAt(LocalDateTime.now());
+        return ride;
+    }
+}
@@ -0,0 +1,51 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.model.Ride;
+import com.harsha.assignment.repository.RideLifecycleLog;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RideLifecycleRecorderTest {
+    
+    // The writer is never started here, as if the log stayed unreachable: nothing drains the queue
+    @Test
+    void fullQueueDropsChangesInsteadOfBlocking() {
+        @SuppressWarnings("unchecked")
+        ObjectProvider<RideLifecycleLog> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(mock(RideLifecycleLog.class));
+        RideLifecycleRecorder recorder = new RideLifecycleRecorder();
+        ReflectionTestUtils.setField(recorder, "lifecycleLogProvider", provider);
+        ReflectionTestUtils.setField(recorder, "queueCapacity", 3);
+        recorder.init();
+        
+        for (int i = 0; i < 3; i++) {
+            recorder.record(ride("r" + i));
+        }
+        assertEquals(0, recorder.dropped());
+        assertFalse(recorder.isStale());
+        
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            for (int i = 3; i < 10; i++) {
+                recorder.record(ride("r" + i));
+            }
+        });
+        assertEquals(7, recorder.dropped());
+        assertEquals(3, recorder.pendingEvents());
+        assertTrue(recorder.isStale());
+    }
+    
+    private static Ride ride(String id) {
+        return new Ride(id, "u1", null, "Pickup", null, "Drop", "REQUESTED", LocalDateTime.of(2025, 1, 1, 8, 0));
+    }
+}
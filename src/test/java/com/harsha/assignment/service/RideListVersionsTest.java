@@ -0,0 +1,81 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.model.Ride;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RideListVersionsTest {
+    
+    @Test
+    void eachTransitionChangesOnlyTheViewsItAffects() {
+        RideListVersions versions = versions();
+        String beforeRequest = versions.pendingStamp();
+        String otherPassenger = versions.participantStamp(RideListVersions.View.USER, "u2");
+        
+        versions.bump(ride("REQUESTED", null));
+        String afterRequest = versions.pendingStamp();
+        String passenger = versions.participantStamp(RideListVersions.View.USER, "u1");
+        String driver = versions.participantStamp(RideListVersions.View.DRIVER, "d1");
+        assertNotEquals(beforeRequest, afterRequest);
+        
+        versions.bump(ride("ACCEPTED", "d1"));
+        assertNotEquals(afterRequest, versions.pendingStamp());
+        assertNotEquals(driver, versions.participantStamp(RideListVersions.View.DRIVER, "d1"));
+        String afterAccept = versions.pendingStamp();
+        
+        // Completing an accepted ride leaves the pending list as it was
+        versions.bump(ride("COMPLETED", "d1"));
+        assertEquals(afterAccept, versions.pendingStamp());
+        assertNotEquals(passenger, versions.participantStamp(RideListVersions.View.USER, "u1"));
+        
+        assertEquals(otherPassenger, versions.participantStamp(RideListVersions.View.USER, "u2"));
+    }
+    
+    @Test
+    void participantsSharingAStripeStillGetTheirOwnTags() {
+        RideListVersions versions = versions(1);
+        assertNotEquals(versions.participantStamp(RideListVersions.View.USER, "u1"),
+                versions.participantStamp(RideListVersions.View.USER, "u2"));
+    }
+    
+    // While writes from other instances may be missed no tag is given out, and none from before is honoured after
+    @Test
+    void resumingRetiresEveryEarlierStamp() {
+        RideListVersions versions = versions();
+        String pending = versions.pendingStamp();
+        String passenger = versions.participantStamp(RideListVersions.View.USER, "u1");
+        
+        versions.suspend();
+        assertNull(versions.pendingStamp());
+        assertNull(versions.participantStamp(RideListVersions.View.USER, "u1"));
+        
+        versions.resume();
+        assertNotEquals(pending, versions.pendingStamp());
+        assertNotEquals(passenger, versions.participantStamp(RideListVersions.View.USER, "u1"));
+    }
+    
+    private static RideListVersions versions() {
+        return versions(4096);
+    }
+    
+    private static RideListVersions versions(int stripes) {
+        RideListVersions versions = new RideListVersions();
+        ReflectionTestUtils.setField(versions, "enabled", true);
+        ReflectionTestUtils.setField(versions, "stripes", stripes);
+        versions.init();
+        return versions;
+    }
+    
+    private static Ride ride(String status, String driverId) {
+        Ride ride = new Ride();
+        ride.setId("r1");
+        ride.setUserId("u1");
+        ride.setDriverId(driverId);
+        ride.setStatus(status);
+        return ride;
+    }
+}
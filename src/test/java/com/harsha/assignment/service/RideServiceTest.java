@@ -0,0 +1,79 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.config.AuthenticatedUser;
+import com.harsha.assignment.exception.BadRequestException;
+import com.harsha.assignment.exception.ConflictException;
+import com.harsha.assignment.exception.NotFoundException;
+import com.harsha.assignment.repository.RideArchive;
+import com.harsha.assignment.repository.RideRepository;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RideServiceTest {
+    
+    private RideRepository rideRepository;
+    private RideArchive rideArchive;
+    private RideMetrics rideMetrics;
+    private RideService rideService;
+    
+    @BeforeEach
+    void setUp() {
+        rideRepository = mock(RideRepository.class);
+        rideArchive = mock(RideArchive.class);
+        rideMetrics = mock(RideMetrics.class);
+        rideService = new RideService();
+        ReflectionTestUtils.setField(rideService, "rideRepository", rideRepository);
+        ReflectionTestUtils.setField(rideService, "rideArchive", rideArchive);
+        ReflectionTestUtils.setField(rideService, "rideMetrics", rideMetrics);
+        ReflectionTestUtils.setField(rideService, "pendingRideBoard", mock(PendingRideBoard.class));
+        ReflectionTestUtils.setField(rideService, "driverLocationService", mock(DriverLocationService.class));
+        ReflectionTestUtils.setField(rideService, "rideLifecycleRecorder", mock(RideLifecycleRecorder.class));
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new AuthenticatedUser(new ObjectId().toHexString(), "driver", "ROLE_DRIVER"), null, List.of()));
+    }
+    
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+    
+    @Test
+    void acceptingAMalformedIdIsABadRequestWithoutAWrite() {
+        assertThrows(BadRequestException.class, () -> rideService.acceptRide("not-a-ride"));
+        verify(rideRepository, never()).acceptIfRequested(anyString(), anyString());
+    }
+    
+    @Test
+    void acceptingAnUnknownRideIsNotFound() {
+        String rideId = new ObjectId().toHexString();
+        when(rideArchive.findById(rideId)).thenReturn(Optional.empty());
+        
+        assertThrows(NotFoundException.class, () -> rideService.acceptRide(rideId));
+        verify(rideMetrics).rejected("ACCEPTED", "not_found");
+    }
+    
+    // Another driver won the conditional update; the ride exists, so the loser gets a conflict
+    @Test
+    void acceptingATakenRideIsAConflict() {
+        String rideId = new ObjectId().toHexString();
+        when(rideRepository.existsById(rideId)).thenReturn(true);
+        
+        assertThrows(ConflictException.class, () -> rideService.acceptRide(rideId));
+        verify(rideMetrics).rejected("ACCEPTED", "conflict");
+    }
+}
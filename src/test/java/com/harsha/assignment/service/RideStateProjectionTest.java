@@ -0,0 +1,111 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.model.Ride;
+import com.harsha.assignment.model.RideLifecycleEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RideStateProjectionTest {
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void replayedOrReorderedEventsNeverMoveARideBackwards() {
+        RideStateProjection projection = new RideStateProjection();
+        projection.apply(event(1, "r1", "REQUESTED", null));
+        projection.apply(event(2, "r1", "ACCEPTED", "d1"));
+        projection.apply(event(3, "r1", "COMPLETED", "d1"));
+        // A shared log replays some events again
+        projection.apply(event(2, "r1", "ACCEPTED", "d1"));
+        projection.apply(event(1, "r1", "REQUESTED", null));
+        
+        Ride ride = projection.find("r1").orElseThrow();
+        assertEquals("COMPLETED", ride.getStatus());
+        assertEquals("d1", ride.getDriverId());
+        assertEquals(3, projection.position());
+    }
+    
+    @Test
+    void snapshotRoundTripsAndRejectsATruncatedFile() throws IOException {
+        RideStateProjection projection = new RideStateProjection();
+        for (int i = 0; i < 10_000; i++) {
+            projection.apply(event(i + 1, "r" + i, i % 3 == 0 ? "ACCEPTED" : "REQUESTED", i % 3 == 0 ? "d" + i : null));
+        }
+        Path file = directory.resolve("snapshot.bin");
+        assertEquals(10_000, projection.writeSnapshot(file));
+        
+        RideStateProjection restored = new RideStateProjection();
+        assertTrue(restored.readSnapshot(file));
+        assertEquals(10_000, restored.size());
+        assertEquals(10_000, restored.position());
+        assertEquals("d3", restored.find("r3").orElseThrow().getDriverId());
+        assertEquals(projection.find("r42").orElseThrow(), restored.find("r42").orElseThrow());
+        
+        Path truncated = directory.resolve("truncated.bin");
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length / 2));
+        assertFalse(restored.readSnapshot(truncated));
+        assertEquals(10_000, restored.size());
+    }
+    
+    @Test
+    void staleMarkSurvivesASnapshot() throws IOException {
+        RideStateProjection projection = new RideStateProjection();
+        projection.apply(event(1, "r1", "REQUESTED", null));
+        Path clean = directory.resolve("clean.bin");
+        projection.writeSnapshot(clean);
+        projection.markStale();
+        Path stale = directory.resolve("stale.bin");
+        projection.writeSnapshot(stale);
+        
+        RideStateProjection restored = new RideStateProjection();
+        assertTrue(restored.readSnapshot(clean));
+        assertFalse(restored.isStale());
+        assertTrue(restored.readSnapshot(stale));
+        assertTrue(restored.isStale());
+        assertEquals("REQUESTED", restored.find("r1").orElseThrow().getStatus());
+        // Events already lost in this process are not undone by loading a clean snapshot
+        assertTrue(restored.readSnapshot(clean));
+        assertTrue(restored.isStale());
+    }
+    
+    // A finished ride is in the snapshot and then gone from memory; an active one stays
+    @Test
+    void finishedRidesLeaveMemoryOnceSnapshotted() throws IOException {
+        RideStateProjection projection = new RideStateProjection();
+        projection.apply(event(1, "r1", "REQUESTED", null));
+        projection.apply(event(2, "r2", "REQUESTED", null));
+        projection.apply(event(3, "r1", "COMPLETED", "d1"));
+        projection.apply(event(4, "r2", "ACCEPTED", "d2"));
+        assertEquals(2, projection.size());
+        
+        Path file = directory.resolve("snapshot.bin");
+        projection.writeSnapshot(file);
+        
+        assertEquals(1, projection.size());
+        assertTrue(projection.find("r1").isEmpty());
+        assertEquals("ACCEPTED", projection.find("r2").orElseThrow().getStatus());
+        RideStateProjection restored = new RideStateProjection();
+        assertTrue(restored.readSnapshot(file));
+        assertEquals("COMPLETED", restored.find("r1").orElseThrow().getStatus());
+    }
+    
+    private static RideLifecycleEvent event(long position, String rideId, String status, String driverId) {
+        Ride ride = new Ride(rideId, "u-" + rideId, driverId, "Pickup", null, "Drop", status,
+                LocalDateTime.of(2025, 1, 1, 8, 0));
+        RideLifecycleEvent event = RideLifecycleEvent.of(ride);
+        event.setPosition(position);
+        return event;
+    }
+}
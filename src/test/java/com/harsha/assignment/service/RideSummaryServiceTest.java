@@ -0,0 +1,80 @@
+package com.harsha.assignment.service;
+
+import com.harsha.assignment.dto.RideSummaryResponse;
+import com.harsha.assignment.model.Ride;
+import com.harsha.assignment.model.RideSummary;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RideSummaryServiceTest {
+    
+    private static final LocalDateTime START = LocalDateTime.of(2026, 5, 1, 8, 30);
+    
+    @Test
+    void concurrentTransitionsAreAllCounted() throws Exception {
+        RideSummaryService summaries = new RideSummaryService();
+        int threads = 8;
+        int ridesPerThread = 10_000;
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                done.add(executor.submit(() -> {
+                    for (int i = 0; i < ridesPerThread; i++) {
+                        LocalDateTime createdAt = START.plusSeconds((long) thread * ridesPerThread + i);
+                        summaries.record(ride("REQUESTED", null, createdAt));
+                        summaries.record(ride("ACCEPTED", "d1", createdAt));
+                        summaries.record(ride(i % 4 == 0 ? "CANCELLED" : "COMPLETED", i % 4 == 0 ? null : "d1", createdAt));
+                    }
+                }));
+            }
+            for (Future<?> future : done) {
+                future.get();
+            }
+        }
+        
+        long total = (long) threads * ridesPerThread;
+        LocalDateTime newest = START.plusSeconds(total - 1);
+        RideSummaryService.Counts passenger = summaries.unflushed("u1");
+        assertEquals(total, passenger.rides());
+        assertEquals(total * 3 / 4, passenger.completed());
+        assertEquals(total / 4, passenger.cancelled());
+        RideSummaryResponse driver = summaries.withPending("d1", null);
+        assertEquals(total, driver.getRides());
+        assertEquals(total * 3 / 4, driver.getCompleted());
+        assertEquals(newest, driver.getLastRideAt());
+    }
+    
+    @Test
+    void pendingChangesAreAddedToTheStoredSummary() {
+        RideSummaryService summaries = new RideSummaryService();
+        summaries.record(ride("REQUESTED", null, START.minusDays(1)));
+        summaries.record(ride("CANCELLED", null, START.minusDays(1)));
+        
+        RideSummary stored = new RideSummary("u1", 5, 3, 1, START, null);
+        RideSummaryResponse summary = summaries.withPending("u1", stored);
+        assertEquals(6, summary.getRides());
+        assertEquals(3, summary.getCompleted());
+        assertEquals(2, summary.getCancelled());
+        // An older ride does not move the last ride time back
+        assertEquals(START, summary.getLastRideAt());
+    }
+    
+    private static Ride ride(String status, String driverId, LocalDateTime createdAt) {
+        Ride ride = new Ride();
+        ride.setId("r1");
+        ride.setUserId("u1");
+        ride.setDriverId(driverId);
+        ride.setStatus(status);
+        ride.setCreatedAt(createdAt);
+        return ride;
+    }
+}
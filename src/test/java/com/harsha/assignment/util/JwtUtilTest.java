@@ -0,0 +1,59 @@
+package com.harsha.assignment.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtUtilTest {
+    
+    // A full cache gives up its oldest entries, one per insert, and never grows past its size
+    @Test
+    void claimsCacheStaysWithinItsSize() {
+        JwtUtil jwtUtil = jwtUtil(3_600_000L, 100);
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            String token = jwtUtil.generateToken("id" + i, "user" + i, "ROLE_USER");
+            tokens.add(token);
+            assertEquals("user" + i, jwtUtil.parseToken(token).username());
+            assertTrue(jwtUtil.claimsCacheSize() <= 100);
+        }
+        assertEquals(100, jwtUtil.claimsCacheSize());
+        
+        // The newest are still cached; an evicted one is verified again and takes the place of the oldest
+        jwtUtil.parseToken(tokens.get(249));
+        jwtUtil.parseToken(tokens.get(0));
+        assertEquals(100, jwtUtil.claimsCacheSize());
+    }
+    
+    // Expired entries at the old end go on the next insert, long before the cache is full. Token expiry has whole
+    // seconds, so a two-second lifetime is never already over when the fresh token is parsed
+    @Test
+    void expiredClaimsLeaveOnTheNextInsert() throws InterruptedException {
+        JwtUtil jwtUtil = jwtUtil(2_000L, 100);
+        for (int i = 0; i < 10; i++) {
+            jwtUtil.parseToken(jwtUtil.generateToken("id" + i, "user" + i, "ROLE_USER"));
+        }
+        assertEquals(10, jwtUtil.claimsCacheSize());
+        Thread.sleep(2_100);
+        
+        jwtUtil.parseToken(jwtUtil.generateToken("fresh", "fresh", "ROLE_USER"));
+        
+        assertEquals(1, jwtUtil.claimsCacheSize());
+    }
+    
+    private static JwtUtil jwtUtil(long expirationMillis, int cacheSize) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "a-test-secret-that-is-at-least-32-bytes-long");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", expirationMillis);
+        ReflectionTestUtils.setField(jwtUtil, "claimsCacheMaxSize", cacheSize);
+        ReflectionTestUtils.setField(jwtUtil, "meterRegistry", new SimpleMeterRegistry());
+        jwtUtil.init();
+        return jwtUtil;
+    }
+}
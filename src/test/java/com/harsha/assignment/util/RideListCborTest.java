@@ -0,0 +1,56 @@
+package com.harsha.assignment.util;
+
+import com.harsha.assignment.dto.RidePage;
+import com.harsha.assignment.dto.RideResponse;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RideListCborTest {
+    
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2026, 3, 14, 9, 26, 53, 589_000_000);
+    
+    @Test
+    void roundTripsRidesAndCursor() {
+        List<RideResponse> rides = List.of(
+                new RideResponse("65f2a1c0e4b0a1b2c3d4e5f6", "65f2a1c0e4b0a1b2c3d4e5f7", "65f2a1c0e4b0a1b2c3d4e5f8",
+                        "Airport", 12.97, 77.59, "Station", "ACCEPTED", CREATED_AT),
+                // Ids that are not ObjectIds, an unknown status and missing values are kept as they are
+                new RideResponse("legacy-1", "65f2a1c0e4b0a1b2c3d4e5f7", null,
+                        "Home", null, null, "Office", "EXPIRED", null));
+        
+        RidePage page = RideListCbor.read(new ByteArrayInputStream(write(rides, "cursor-1")));
+        
+        assertEquals(rides, page.getRides());
+        assertEquals("cursor-1", page.getNextCursor());
+        assertNull(RideListCbor.read(new ByteArrayInputStream(write(rides, null))).getNextCursor());
+    }
+    
+    @Test
+    void isSmallerThanJson() {
+        List<RideResponse> rides = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rides.add(new RideResponse(String.format("%024x", i), String.format("%024x", 1_000_000 + i),
+                    String.format("%024x", 2_000_000 + i), "Pickup " + i, 12.9 + i / 1000.0, 77.5 + i / 1000.0,
+                    "Drop " + i, RideListCbor.STATUSES.get(i % 4), CREATED_AT.plusMinutes(i)));
+        }
+        int json = JsonMapper.builder().build().writeValueAsBytes(rides).length;
+        int cbor = write(rides, null).length;
+        assertTrue(cbor * 2 < json, "CBOR " + cbor + " bytes, JSON " + json + " bytes");
+    }
+    
+    private static byte[] write(List<RideResponse> rides, String nextCursor) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RideListCbor.write(rides, nextCursor, out);
+        return out.toByteArray();
+    }
+}
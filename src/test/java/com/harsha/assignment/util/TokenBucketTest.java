@@ -0,0 +1,77 @@
+package com.harsha.assignment.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+    
+    @Test
+    void allowsABurstThenRefillsAtTheConfiguredRate() {
+        TokenBucket bucket = new TokenBucket(5, 2, 1_000);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryAcquire(1_000));
+        }
+        assertEquals(500, bucket.tryAcquire(1_000));
+        assertEquals(100, bucket.tryAcquire(1_400));
+        
+        // 1.25s at 2 tokens/s refills two whole tokens; the leftover quarter second is kept
+        assertEquals(0, bucket.tryAcquire(2_250));
+        assertEquals(0, bucket.tryAcquire(2_250));
+        assertEquals(250, bucket.tryAcquire(2_250));
+        assertEquals(0, bucket.tryAcquire(2_500));
+    }
+    
+    // A third of a second is not a whole number of millis. Drained, then polled every millisecond for an hour, the
+    // bucket grants exactly three tokens a second; rounding each refill to whole millis used to add ten more
+    @Test
+    void longRunRateIsExactWhenTheRefillDoesNotDivideASecond() {
+        TokenBucket bucket = new TokenBucket(5, 3, 0);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryAcquire(0));
+        }
+        int granted = 0;
+        for (long now = 1; now <= 3_600_000; now++) {
+            if (bucket.tryAcquire(now) == 0) {
+                granted++;
+            }
+        }
+        assertEquals(3 * 3_600, granted);
+    }
+    
+    @Test
+    void concurrentCallersNeverGetMoreThanTheCapacity() throws Exception {
+        TokenBucket bucket = new TokenBucket(1_000, 1, 0);
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    if (bucket.tryAcquire(0) == 0) {
+                        granted.incrementAndGet();
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(1_000, granted.get());
+    }
+    
+    @Test
+    void isIdleOnlyOnceRefilled() {
+        TokenBucket bucket = new TokenBucket(10, 1, 0);
+        for (int i = 0; i < 10; i++) {
+            bucket.tryAcquire(0);
+        }
+        assertFalse(bucket.isIdle(5_000, 1_000));
+        assertTrue(bucket.isIdle(10_000, 1_000));
+    }
+}